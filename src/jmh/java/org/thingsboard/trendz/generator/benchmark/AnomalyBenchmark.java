@@ -0,0 +1,90 @@
+package org.thingsboard.trendz.generator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyType;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
+import org.thingsboard.trendz.generator.service.anomaly.DataGapAnomalyCreator;
+import org.thingsboard.trendz.generator.service.anomaly.SettingValueAnomalyCreator;
+import org.thingsboard.trendz.generator.service.anomaly.ShiftedDataAnomalyCreator;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-year hourly series with a ten-day anomaly. Every invocation copies the series first,
+ * {@link #copy()} measures that part alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnomalyBenchmark {
+
+    private static final long START_TS = 1672531200000L;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int SIZE = 8760;
+
+    @Param({"SET_VALUES", "DATA_GAP", "SHIFTED_DATA"})
+    private AnomalyType type;
+
+    private AnomalyService anomalyService;
+    private Telemetry<Long> telemetry;
+    private Set<AnomalyInfo> anomalies;
+
+
+    @Setup
+    public void setup() {
+        this.anomalyService = new AnomalyService(List.of(
+                new DataGapAnomalyCreator(),
+                new SettingValueAnomalyCreator(),
+                new ShiftedDataAnomalyCreator()
+        ));
+        this.anomalyService.init();
+
+        this.telemetry = new Telemetry<>("value");
+        for (int i = 0; i < SIZE; i++) {
+            this.telemetry.add(START_TS + i * HOUR, 1_000L + i % 24);
+        }
+
+        ZonedDateTime startDate = DateTimeUtils.fromTs(START_TS).plusMonths(6);
+        this.anomalies = Set.of(AnomalyInfo.builder()
+                .startDate(startDate)
+                .endDate(startDate.plusDays(10))
+                .type(this.type)
+                .settingValue(0)
+                .shiftValue(500)
+                .coefficient(1.5)
+                .noiseAmplitude(50)
+                .build()
+        );
+    }
+
+    @Benchmark
+    public Telemetry<Long> copy() {
+        return new Telemetry<>(this.telemetry);
+    }
+
+    @Benchmark
+    public Telemetry<Long> applyAnomaly() {
+        Telemetry<Long> result = new Telemetry<>(this.telemetry);
+        this.anomalyService.applyAnomaly(result, this.anomalies);
+        return result;
+    }
+}
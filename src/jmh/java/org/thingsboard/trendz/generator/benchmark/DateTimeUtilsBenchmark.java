@@ -0,0 +1,63 @@
+package org.thingsboard.trendz.generator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeUtilsBenchmark {
+
+    private long ts;
+    private ZonedDateTime date;
+    private ZoneId zoneId;
+
+
+    @Setup
+    public void setup() {
+        this.ts = 1688212800000L;
+        this.zoneId = ZoneId.of("Europe/Kiev");
+        this.date = DateTimeUtils.fromTs(this.ts, this.zoneId);
+    }
+
+    @Benchmark
+    public ZonedDateTime fromTs() {
+        return DateTimeUtils.fromTs(this.ts);
+    }
+
+    @Benchmark
+    public ZonedDateTime fromTsWithZone() {
+        return DateTimeUtils.fromTs(this.ts, this.zoneId);
+    }
+
+    @Benchmark
+    public long toTs() {
+        return DateTimeUtils.toTs(this.date);
+    }
+
+    @Benchmark
+    public ZonedDateTime getStartOfTheYear() {
+        return DateTimeUtils.getStartOfTheYear(this.ts);
+    }
+
+    @Benchmark
+    public long plusHourRoundTrip() {
+        return DateTimeUtils.toTs(DateTimeUtils.fromTs(this.ts).plusHours(1));
+    }
+}
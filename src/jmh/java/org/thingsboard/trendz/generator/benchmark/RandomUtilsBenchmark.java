@@ -0,0 +1,48 @@
+package org.thingsboard.trendz.generator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.trendz.generator.utils.RandomUtils;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomUtilsBenchmark {
+
+    private final Random random = new Random(42);
+
+
+    @Benchmark
+    public double getRandomNumber() {
+        return RandomUtils.getRandomNumber(-10, 10);
+    }
+
+    @Benchmark
+    public double getRandomNumberWithRandom() {
+        return RandomUtils.getRandomNumber(this.random, -10, 10);
+    }
+
+    @Benchmark
+    public boolean getBooleanByProbability() {
+        return RandomUtils.getBooleanByProbability(0.3);
+    }
+
+    @Benchmark
+    public UUID getRandomUuid() {
+        return RandomUtils.getRandonUUID();
+    }
+}
@@ -0,0 +1,96 @@
+package org.thingsboard.trendz.generator.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.Timestamp;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelemetryBenchmark {
+
+    private static final long START_TS = 1672531200000L;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"8760", "35040"})
+    private int size;
+
+    private Telemetry<Double> telemetry;
+
+
+    @Setup
+    public void setup() {
+        this.telemetry = createTelemetry(this.size);
+    }
+
+    @Benchmark
+    public Telemetry<Double> add() {
+        return createTelemetry(this.size);
+    }
+
+    @Benchmark
+    public Telemetry<Double> addPoints() {
+        Telemetry<Double> result = new Telemetry<>("value");
+        for (int i = 0; i < this.size; i++) {
+            result.add(new Telemetry.Point<>(Timestamp.of(START_TS + i * HOUR), i * 0.5));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void batches(Blackhole blackhole) throws IOException {
+        Iterator<Telemetry.Batch<Double>> iterator = this.telemetry.batchIterator(BATCH_SIZE);
+        while (iterator.hasNext()) {
+            Telemetry.Batch<Double> batch = iterator.next();
+            try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(OutputStream.nullOutputStream())) {
+                batch.writeJson(generator, 2);
+            }
+            blackhole.consume(batch);
+        }
+    }
+
+    @Benchmark
+    public String toJson() {
+        return this.telemetry.toJson();
+    }
+
+    @Benchmark
+    public double lookupByTs() {
+        double sum = 0;
+        for (int i = 0; i < this.size; i++) {
+            sum += this.telemetry.getValueByTs(START_TS + i * HOUR);
+        }
+        return sum;
+    }
+
+
+    private static Telemetry<Double> createTelemetry(int size) {
+        Telemetry<Double> result = new Telemetry<>("value");
+        for (int i = 0; i < size; i++) {
+            result.add(START_TS + i * HOUR, i * 0.5);
+        }
+        return result;
+    }
+}
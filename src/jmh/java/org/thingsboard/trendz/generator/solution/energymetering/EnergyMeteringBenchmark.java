@@ -0,0 +1,62 @@
+package org.thingsboard.trendz.generator.solution.energymetering;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.solution.energymetering.configuration.ApartmentConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of one year of hourly energy consumption of an apartment, including consuming the lazy source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnergyMeteringBenchmark {
+
+    private static final long START_TS = 1672531200000L;
+    private static final long END_TS = 1704067200000L;
+
+    @Param({"0", "1", "2", "3"})
+    private int level;
+
+    private EnergyMeteringSolution solution;
+    private ApartmentConfiguration configuration;
+
+
+    @Setup
+    public void setup() {
+        this.solution = new EnergyMeteringSolution(null, null, null, null, null, null);
+        this.configuration = ApartmentConfiguration.builder()
+                .occupied(this.level != 0)
+                .level(this.level)
+                .startDate(START_TS)
+                .build();
+    }
+
+    @Benchmark
+    public long createTelemetryEnergyMeterConsumption() {
+        TelemetrySource<Long> source = this.solution.createTelemetryEnergyMeterConsumption(
+                this.configuration, false, true, START_TS, END_TS
+        );
+        long sum = 0;
+        for (Telemetry.Point<Long> point : source) {
+            sum += point.getValue();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package org.thingsboard.trendz.generator.solution.greenhouse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thingsboard.trendz.generator.model.ModelData;
+import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
+import org.thingsboard.trendz.generator.service.anomaly.DataGapAnomalyCreator;
+import org.thingsboard.trendz.generator.service.anomaly.SettingValueAnomalyCreator;
+import org.thingsboard.trendz.generator.service.anomaly.ShiftedDataAnomalyCreator;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation of all four greenhouses over one year, with the weather data read from {@code data/greenhouse_weather}.
+ * Has to be run from the project directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GreenhouseBenchmark {
+
+    private static final long START_TS = 1672531200000L;
+    private static final long END_TS = 1704067200000L;
+
+    private GreenhouseSolution solution;
+    private ZonedDateTime startYear;
+
+
+    @Setup
+    public void setup() {
+        AnomalyService anomalyService = new AnomalyService(List.of(
+                new DataGapAnomalyCreator(),
+                new SettingValueAnomalyCreator(),
+                new ShiftedDataAnomalyCreator()
+        ));
+        anomalyService.init();
+
+        this.solution = new GreenhouseSolution(null, null, anomalyService, null, null, null);
+        this.startYear = DateTimeUtils.getStartOfTheYear(START_TS);
+    }
+
+    @Benchmark
+    public ModelData makeData() {
+        return this.solution.makeData(false, this.startYear, true, START_TS, END_TS);
+    }
+}
@@ -6,6 +6,9 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.thingsboard.trendz.generator.exception.SolutionValidationException;
+import org.thingsboard.trendz.generator.service.export.TelemetryExporter;
+import org.thingsboard.trendz.generator.service.journal.GenerationJournal;
+import org.thingsboard.trendz.generator.service.rest.HttpMetrics;
 import org.thingsboard.trendz.generator.solution.SolutionTemplateGenerator;
 import org.thingsboard.trendz.generator.utils.RandomUtils;
 
@@ -19,6 +22,8 @@ public class SolutionTemplateGeneratorApplication implements CommandLineRunner {
 
     private final static String MODE_GENERATE = "generate";
     private final static String MODE_REMOVE = "remove";
+    private final static String MODE_RESUME = "resume";
+    private final static String MODE_EXPORT = "export";
 
     private final String mode;
     private final List<String> currentSolutions;
@@ -28,9 +33,15 @@ public class SolutionTemplateGeneratorApplication implements CommandLineRunner {
     private final boolean strictGeneration;
     private final boolean fullTelemetryGeneration;
     private final SolutionTemplateDispatcher solutionTemplateDispatcher;
+    private final HttpMetrics httpMetrics;
+    private final GenerationJournal generationJournal;
+    private final TelemetryExporter telemetryExporter;
 
     public SolutionTemplateGeneratorApplication(
             SolutionTemplateDispatcher solutionTemplateDispatcher,
+            HttpMetrics httpMetrics,
+            GenerationJournal generationJournal,
+            TelemetryExporter telemetryExporter,
             @Value("${generator.mode}") String mode,
             @Value("${generator.solutions}") List<String> currentSolutions,
             @Value("${generator.skipTelemetry}") boolean skipTelemetry,
@@ -40,6 +51,9 @@ public class SolutionTemplateGeneratorApplication implements CommandLineRunner {
             @Value("${generator.fullTelemetryGeneration}") boolean fullTelemetryGeneration
     ) {
         this.solutionTemplateDispatcher = solutionTemplateDispatcher;
+        this.httpMetrics = httpMetrics;
+        this.generationJournal = generationJournal;
+        this.telemetryExporter = telemetryExporter;
         this.mode = mode;
         this.currentSolutions = currentSolutions;
         this.skipTelemetry = skipTelemetry;
@@ -54,6 +68,8 @@ public class SolutionTemplateGeneratorApplication implements CommandLineRunner {
         setDefaultTimezone();
         boolean modeGenerate = MODE_GENERATE.equals(this.mode);
         boolean modeRemove = MODE_REMOVE.equals(this.mode);
+        boolean modeResume = MODE_RESUME.equals(this.mode);
+        boolean modeExport = MODE_EXPORT.equals(this.mode);
         if (endGenerationTimeMs < startGenerationTimeMs) {
             throw new IllegalArgumentException("Invalid generation time range");
         }
@@ -65,22 +81,44 @@ public class SolutionTemplateGeneratorApplication implements CommandLineRunner {
             if (solutionGenerator == null) {
                 log.error("Solution with name {} does not exist, skipping...", solutionName);
             } else {
-                if (modeGenerate) {
+                this.httpMetrics.reset();
+                if (modeGenerate || modeExport) {
                     RandomUtils.refreshRandom();
                     try {
                         if (this.strictGeneration) {
                             solutionGenerator.validate();
                         }
+                        if (modeExport) {
+                            // entities are created as usual, telemetry goes to the bulk-load files, so there is nothing to resume
+                            this.telemetryExporter.open(solutionName);
+                        } else {
+                            this.generationJournal.open(solutionName, false);
+                        }
                         solutionGenerator.generate(this.skipTelemetry, this.strictGeneration, fullTelemetryGeneration, startGenerationTimeMs, endGenerationTimeMs);
                         log.info("Current generator is finished: {}", solutionName);
                     } catch (SolutionValidationException e) {
                         log.error("Validation solution error: " + solutionGenerator.getSolutionName(), e.getCause());
+                    } finally {
+                        this.generationJournal.close();
+                        this.telemetryExporter.close();
+                    }
+                } else if (modeResume) {
+                    // the same seed reproduces the same data, entities and sent telemetry are skipped by the journal
+                    RandomUtils.refreshRandom();
+                    try {
+                        this.generationJournal.open(solutionName, true);
+                        solutionGenerator.generate(this.skipTelemetry, false, fullTelemetryGeneration, startGenerationTimeMs, endGenerationTimeMs);
+                        log.info("Current generator is resumed and finished: {}", solutionName);
+                    } finally {
+                        this.generationJournal.close();
                     }
                 } else if (modeRemove) {
                     solutionGenerator.remove();
+                    this.generationJournal.delete(solutionName);
                 } else {
                     throw new IllegalArgumentException("Unsupported mode: " + this.mode);
                 }
+                this.httpMetrics.logSummary(solutionName);
             }
         }
     }
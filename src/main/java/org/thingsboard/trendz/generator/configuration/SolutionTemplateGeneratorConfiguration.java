@@ -2,10 +2,18 @@ package org.thingsboard.trendz.generator.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -13,17 +21,86 @@ import org.springframework.web.client.RestTemplate;
 import org.thingsboard.trendz.generator.utils.JsonUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Configuration
 public class SolutionTemplateGeneratorConfiguration {
 
+    public static final String TELEMETRY_REST_TEMPLATE = "telemetryRestTemplate";
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            @Value("${tb.api.http.maxConnectionsPerRoute}") int maxConnectionsPerRoute,
+            @Value("${tb.api.http.maxConnectionsTotal}") int maxConnectionsTotal,
+            @Value("${tb.api.http.connectTimeout}") int connectTimeout,
+            @Value("${tb.api.http.readTimeout}") int readTimeout,
+            @Value("${tb.api.http.connectionRequestTimeout}") int connectionRequestTimeout,
+            @Value("${tb.api.http.keepAlive}") long keepAlive,
+            @Value("${tb.api.http.tcpNoDelay}") boolean tcpNoDelay,
+            @Value("${tb.api.http.socketBufferSize}") int socketBufferSize
+    ) {
+        log.info("HTTP connection pool: {} per route, {} total", maxConnectionsPerRoute, maxConnectionsTotal);
+
+        SocketConfig.Builder socketConfig = SocketConfig.custom()
+                .setTcpNoDelay(tcpNoDelay)
+                .setSoKeepAlive(true)
+                .setSoTimeout(readTimeout);
+        if (0 < socketBufferSize) {
+            socketConfig.setSndBufSize(socketBufferSize)
+                    .setRcvBufSize(socketBufferSize);
+        }
+
+        return HttpClients.custom()
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setMaxConnTotal(maxConnectionsTotal)
+                .setDefaultSocketConfig(socketConfig.build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(readTimeout)
+                        .setConnectionRequestTimeout(connectionRequestTimeout)
+                        .build()
+                )
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return 0 <= serverKeepAlive
+                            ? serverKeepAlive
+                            : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Buffers bodies, because TbRestRequestInterceptor reads the response body for logging.
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    @Primary
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return createRestTemplate(builder, () -> new BufferingClientHttpRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient)));
+    }
+
+    /**
+     * Device API calls authorized by the access token in the path, so no interceptors.
+     * Request bodies are streamed straight to the connection.
+     */
+    @Bean(TELEMETRY_REST_TEMPLATE)
+    public RestTemplate telemetryRestTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return createRestTemplate(builder, () -> {
+            HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+            factory.setBufferRequestBody(false);
+            return factory;
+        });
+    }
+
+
+    private static RestTemplate createRestTemplate(RestTemplateBuilder builder, Supplier<ClientHttpRequestFactory> requestFactory) {
         ObjectMapper objectMapper = JsonUtils.getObjectMapper();
 
         RestTemplate restTemplate = builder
-                .requestFactory(() -> new BufferingClientHttpRequestFactory(new HttpComponentsClientHttpRequestFactory()))
+                .requestFactory(requestFactory)
                 .build();
 
         restTemplate.getMessageConverters().add(0, new MappingJackson2HttpMessageConverter(objectMapper));
@@ -11,7 +11,11 @@ public class PushTelemetryException extends SolutionTemplateGeneratorException {
     private final String telemetryName;
 
     public PushTelemetryException(Telemetry<?> telemetry) {
-        super("Pushing telemetry failed, name: " + telemetry.getName());
-        this.telemetryName = telemetry.getName();
+        this(telemetry.getName());
+    }
+
+    public PushTelemetryException(String telemetryName) {
+        super("Pushing telemetry failed, name: " + telemetryName);
+        this.telemetryName = telemetryName;
     }
 }
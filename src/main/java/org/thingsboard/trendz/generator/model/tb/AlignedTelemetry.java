@@ -0,0 +1,269 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Several series of one device merged by timestamp, so that every timestamp is sent once
+ * with all the keys that have a value at it: {"ts": .., "values": {"k1": .., "k2": ..}}.
+ * Every source must be ordered by ts; the merge is lazy and keeps only the current batch in memory.
+ * Stored series are read through their primitive columns, only lazy sources are merged point by point.
+ */
+public class AlignedTelemetry {
+
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+
+    @Getter
+    private final List<String> names;
+    private final List<? extends TelemetrySource<?>> sources;
+
+    public AlignedTelemetry(List<? extends TelemetrySource<?>> sources) {
+        this.sources = sources;
+        this.names = sources.stream()
+                .map(TelemetrySource::getName)
+                .collect(Collectors.toList());
+    }
+
+
+    public String getName() {
+        return String.join(", ", this.names);
+    }
+
+    public Iterator<Batch> batchIterator(int batchSize) {
+        checkBatchSize(batchSize);
+        return batchIterator(() -> batchSize);
+    }
+
+    /**
+     * Batch size is asked before every batch, so it can be adjusted between them.
+     */
+    public Iterator<Batch> batchIterator(IntSupplier batchSize) {
+        Cursor[] cursors = this.sources.stream()
+                .map(AlignedTelemetry::cursorOf)
+                .toArray(Cursor[]::new);
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                for (Cursor cursor : cursors) {
+                    if (cursor.ts != Cursor.END) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Batch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int size = batchSize.getAsInt();
+                checkBatchSize(size);
+                Batch batch = new Batch(cursors, Math.min(size, INITIAL_BATCH_CAPACITY));
+                while (batch.size() < size && hasNext()) {
+                    long ts = Long.MAX_VALUE;
+                    for (Cursor cursor : cursors) {
+                        ts = Math.min(ts, cursor.ts);
+                    }
+                    batch.add(ts, cursors);
+                }
+                return batch;
+            }
+        };
+    }
+
+    private static Cursor cursorOf(TelemetrySource<?> source) {
+        return source.getStored()
+                .<Cursor>map(stored -> new StoredCursor(stored, source.getStoredFrom()))
+                .orElseGet(() -> new LazyCursor(source.iterator()));
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+    }
+
+
+    /**
+     * Position in one of the merged series, {@code ts} is the timestamp of the current point or {@link #END}.
+     */
+    private abstract static class Cursor {
+
+        static final long END = Long.MAX_VALUE;
+
+        long ts = END;
+
+        abstract void next();
+    }
+
+    /**
+     * Reads the columns of a stored series by index; the series must not change while it is merged.
+     */
+    private static class StoredCursor extends Cursor {
+
+        private final Telemetry<?> telemetry;
+        private int index;
+
+        StoredCursor(Telemetry<?> telemetry, int from) {
+            this.telemetry = telemetry;
+            this.index = from - 1;
+            next();
+        }
+
+        @Override
+        void next() {
+            this.index++;
+            this.ts = this.index < this.telemetry.size() ? this.telemetry.timestampColumn()[this.index] : END;
+        }
+    }
+
+    private static class LazyCursor extends Cursor {
+
+        private final Iterator<? extends Telemetry.Point<?>> iterator;
+        private Object value;
+
+        LazyCursor(Iterator<? extends Telemetry.Point<?>> iterator) {
+            this.iterator = iterator;
+            next();
+        }
+
+        @Override
+        void next() {
+            if (this.iterator.hasNext()) {
+                Telemetry.Point<?> point = this.iterator.next();
+                this.ts = point.getTs().get();
+                this.value = point.getValue();
+            } else {
+                this.ts = END;
+                this.value = null;
+            }
+        }
+    }
+
+
+    /**
+     * Points of a batch by columns: per key either the indexes into its stored series ({@code -1} where the key
+     * has no value) or the values taken from its lazy source ({@code null} where the key has no value).
+     */
+    public class Batch implements TelemetryPayload {
+
+        private final Telemetry<?>[] telemetries;
+        private long[] timestamps;
+        private final int[][] indexes;
+        private final Object[][] values;
+        private int size;
+
+        private Batch(Cursor[] cursors, int capacity) {
+            this.telemetries = new Telemetry<?>[cursors.length];
+            this.timestamps = new long[capacity];
+            this.indexes = new int[cursors.length][];
+            this.values = new Object[cursors.length][];
+            for (int key = 0; key < cursors.length; key++) {
+                if (cursors[key] instanceof StoredCursor) {
+                    this.telemetries[key] = ((StoredCursor) cursors[key]).telemetry;
+                    this.indexes[key] = new int[capacity];
+                } else {
+                    this.values[key] = new Object[capacity];
+                }
+            }
+        }
+
+        /**
+         * Takes the current points of the cursors at the timestamp and moves these cursors to their next points.
+         */
+        private void add(long ts, Cursor[] cursors) {
+            if (this.size == this.timestamps.length) {
+                resize(this.size * 2);
+            }
+            this.timestamps[this.size] = ts;
+            for (int key = 0; key < cursors.length; key++) {
+                Cursor cursor = cursors[key];
+                boolean present = cursor.ts == ts;
+                if (this.indexes[key] != null) {
+                    this.indexes[key][this.size] = present ? ((StoredCursor) cursor).index : -1;
+                } else if (present) {
+                    this.values[key][this.size] = ((LazyCursor) cursor).value;
+                }
+                if (present) {
+                    cursor.next();
+                }
+            }
+            this.size++;
+        }
+
+        private void resize(int capacity) {
+            this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+            for (int key = 0; key < this.indexes.length; key++) {
+                if (this.indexes[key] != null) {
+                    this.indexes[key] = Arrays.copyOf(this.indexes[key], capacity);
+                } else {
+                    this.values[key] = Arrays.copyOf(this.values[key], capacity);
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return AlignedTelemetry.this.getName();
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public long getLastTs() {
+            return this.timestamps[this.size - 1];
+        }
+
+        public long getTs(int index) {
+            return this.timestamps[index];
+        }
+
+        @Override
+        public void writeJson(JsonGenerator generator, int decimalPlaces) throws IOException {
+            generator.writeStartArray();
+            writePoints(generator, decimalPlaces, index -> {
+            });
+            generator.writeEndArray();
+        }
+
+        /**
+         * Writes the points one after another without the enclosing array, {@code pointWritten} gets the index
+         * of every written point, e.g. to find where it ends in the output.
+         */
+        public void writePoints(JsonGenerator generator, int decimalPlaces, IntConsumer pointWritten) throws IOException {
+            double scale = Telemetry.scaleOf(decimalPlaces);
+            for (int i = 0; i < this.size; i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("ts", this.timestamps[i]);
+                generator.writeObjectFieldStart("values");
+                for (int key = 0; key < this.telemetries.length; key++) {
+                    if (this.telemetries[key] != null) {
+                        int index = this.indexes[key][i];
+                        if (0 <= index) {
+                            this.telemetries[key].writeValue(generator, names.get(key), index, scale);
+                        }
+                    } else if (this.values[key][i] != null) {
+                        Telemetry.writeValue(generator, names.get(key), this.values[key][i], scale);
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+                pointWritten.accept(i);
+            }
+        }
+    }
+}
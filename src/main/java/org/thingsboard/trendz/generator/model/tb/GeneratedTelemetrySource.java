@@ -0,0 +1,69 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+import org.thingsboard.trendz.generator.utils.RandomUtils;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Telemetry computed point by point over [startDate, endDate) with a fixed step.
+ * The seed is taken from {@link RandomUtils} once, on creation, and every iteration replays it,
+ * so the values do not depend on when or how many times the source is consumed.
+ */
+@Getter
+@ToString
+public class GeneratedTelemetrySource<T> implements TelemetrySource<T> {
+
+    @FunctionalInterface
+    public interface ValueGenerator<T> {
+        T generate(ZonedDateTime date, Random random);
+    }
+
+    private final String name;
+    private final ZonedDateTime startDate;
+    private final ZonedDateTime endDate;
+    private final TemporalUnit step;
+    private final long seed;
+    @ToString.Exclude
+    private final ValueGenerator<T> generator;
+
+    public GeneratedTelemetrySource(String name, ZonedDateTime startDate, ZonedDateTime endDate, TemporalUnit step, ValueGenerator<T> generator) {
+        this.name = name;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.step = step;
+        this.seed = RandomUtils.getRandom().nextLong();
+        this.generator = generator;
+    }
+
+
+    @Override
+    public Iterator<Telemetry.Point<T>> iterator() {
+        return new Iterator<>() {
+            private final Random random = new Random(seed);
+            private ZonedDateTime iteratedDate = startDate;
+
+            @Override
+            public boolean hasNext() {
+                return this.iteratedDate.isBefore(endDate);
+            }
+
+            @Override
+            public Telemetry.Point<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T value = generator.generate(this.iteratedDate, this.random);
+                Telemetry.Point<T> point = new Telemetry.Point<>(Timestamp.of(DateTimeUtils.toTs(this.iteratedDate)), value);
+                this.iteratedDate = this.iteratedDate.plus(1, step);
+                return point;
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Off-heap storage of numeric series under a working directory. Every series is a file of (ts, value)
+ * records which is appended to and read back through memory-mapped windows, so the points never live
+ * on the Java heap. Points of a series must be appended in ascending ts order.
+ * Closing the store deletes its files together with the directory, so every iteration over its sources
+ * must be finished before; an iterator used after that fails instead of reading a deleted file.
+ */
+@Slf4j
+public class MappedTelemetryStore implements Closeable {
+
+    private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+    private static final int WINDOW_RECORDS = 64 * 1024;
+    private static final long WINDOW_SIZE = (long) RECORD_SIZE * WINDOW_RECORDS;
+
+    @Getter
+    private final Path directory;
+    private final Map<String, Series> seriesMap = new LinkedHashMap<>();
+
+
+    public MappedTelemetryStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Can not create telemetry store directory: " + directory, e);
+        }
+    }
+
+    public synchronized Series getSeries(String key) {
+        return this.seriesMap.computeIfAbsent(key, k -> new Series(this.directory.resolve(this.seriesMap.size() + ".bin")));
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Series series : this.seriesMap.values()) {
+            series.close();
+        }
+        this.seriesMap.clear();
+        try {
+            Files.deleteIfExists(this.directory);
+        } catch (IOException e) {
+            log.warn("Can not delete telemetry store directory: {}", this.directory, e);
+        }
+    }
+
+
+    public static class Series {
+
+        private final Path file;
+        private volatile FileChannel channel;
+        private MappedByteBuffer window;
+        private long size;
+        private long lastTs = Long.MIN_VALUE;
+
+        private Series(Path file) {
+            this.file = file;
+            try {
+                this.channel = FileChannel.open(file,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE
+                );
+            } catch (IOException e) {
+                throw new RuntimeException("Can not create telemetry store file: " + file, e);
+            }
+        }
+
+        public long size() {
+            return this.size;
+        }
+
+        public void append(long ts, double value) {
+            if (this.channel == null) {
+                throw new IllegalStateException("Telemetry store file is closed: " + this.file);
+            }
+            if (ts <= this.lastTs) {
+                throw new IllegalStateException("Telemetry points must be appended in ascending ts order: " + ts + " after " + this.lastTs);
+            }
+            if (this.window == null || !this.window.hasRemaining()) {
+                this.window = map(this.channel, FileChannel.MapMode.READ_WRITE, this.size, WINDOW_SIZE);
+            }
+            this.window.putLong(ts);
+            this.window.putDouble(value);
+            this.lastTs = ts;
+            this.size++;
+        }
+
+        public TelemetrySource<Double> toSource(String name) {
+            return new TelemetrySource<>() {
+                @Override
+                public String getName() {
+                    return name;
+                }
+
+                @Override
+                public Iterator<Telemetry.Point<Double>> iterator() {
+                    return new SeriesIterator(Series.this, Series.this.size);
+                }
+            };
+        }
+
+        /**
+         * The window is dropped before the file is deleted, mapped buffers of iterators are dropped by the iterators.
+         */
+        private void close() {
+            this.window = null;
+            try {
+                if (this.channel != null) {
+                    this.channel.close();
+                    this.channel = null;
+                }
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                log.warn("Can not delete telemetry store file: {}", this.file, e);
+            }
+        }
+    }
+
+    /**
+     * Maps the windows through the channel of the series, so no file is opened per window.
+     */
+    private static class SeriesIterator implements Iterator<Telemetry.Point<Double>> {
+
+        private final Series series;
+        private final long size;
+        private MappedByteBuffer window;
+        private long index;
+
+        private SeriesIterator(Series series, long size) {
+            this.series = series;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < this.size;
+        }
+
+        @Override
+        public Telemetry.Point<Double> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FileChannel channel = this.series.channel;
+            if (channel == null) {
+                this.window = null;
+                throw new IllegalStateException("Telemetry store file is closed: " + this.series.file);
+            }
+            if (this.window == null || !this.window.hasRemaining()) {
+                long records = Math.min(WINDOW_RECORDS, this.size - this.index);
+                this.window = map(channel, FileChannel.MapMode.READ_ONLY, this.index, records * RECORD_SIZE);
+            }
+            long ts = this.window.getLong();
+            double value = this.window.getDouble();
+            this.index++;
+            return new Telemetry.Point<>(Timestamp.of(ts), value);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long record, long size) {
+        try {
+            return channel.map(mode, record * RECORD_SIZE, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Can not map telemetry store file", e);
+        }
+    }
+}
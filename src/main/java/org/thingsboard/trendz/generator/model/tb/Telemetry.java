@@ -1,24 +1,36 @@
 package org.thingsboard.trendz.generator.model.tb;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.collect.Lists;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.ToString;
 import org.thingsboard.trendz.generator.utils.JsonUtils;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.SortedSet;
+import java.util.function.IntSupplier;
+import java.util.function.IntToDoubleFunction;
 
-@Getter
-@ToString
-@EqualsAndHashCode
+/**
+ * Time series stored as primitive columns: a sorted {@code long[]} of timestamps and a value column
+ * typed by the first added value ({@code int[]}, {@code long[]}, {@code double[]} or {@code Object[]}).
+ * Points added in ascending timestamp order are appended without any search, other points are inserted in place.
+ * Like the former {@code TreeSet} storage, a point with an already present timestamp is ignored.
+ * While the timestamps keep a fixed step (e.g. hourly generation) the series is dense and a timestamp is resolved
+ * to its index by arithmetic; once points are removed or inserted irregularly it falls back to binary search.
+ * {@link #getPoints()} is a live set view for code that works with {@link Point} objects.
+ */
 public class Telemetry<T> {
 
     @Data
@@ -39,61 +51,767 @@ public class Telemetry<T> {
         }
     }
 
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Batch<T> implements TelemetryPayload {
+
+        private final Telemetry<T> telemetry;
+        private final int from;
+        private final int to;
+
+        @Override
+        public String getName() {
+            return this.telemetry.getName();
+        }
+
+        @Override
+        public int size() {
+            return this.to - this.from;
+        }
+
+        @Override
+        public long getLastTs() {
+            return this.telemetry.getTs(this.to - 1);
+        }
+
+        @Override
+        public void writeJson(JsonGenerator generator, int decimalPlaces) throws IOException {
+            this.telemetry.writeJson(generator, this.from, this.to, decimalPlaces);
+        }
+    }
+
+    private enum ValueType {
+        INT, LONG, DOUBLE, OBJECT
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long[] EMPTY_TIMESTAMPS = {};
+
+    @Getter
     private final String name;
-    private final Set<Point<T>> points;
+    private final Set<Point<T>> pointView = new PointView();
+
+    private long[] timestamps = EMPTY_TIMESTAMPS;
+    private ValueType valueType;
+    private int[] intValues;
+    private long[] longValues;
+    private double[] doubleValues;
+    private Object[] objectValues;
+    private int size;
+    private long step;
+    private boolean dense = true;
 
 
     public Telemetry(Telemetry<T> that) {
         this.name = that.name;
-        this.points = that.points == null
-                ? null
-                : that.points.stream()
-                .map(Point::new)
-                .collect(Collectors.toSet());
+        this.valueType = that.valueType;
+        this.size = that.size;
+        this.step = that.step;
+        this.dense = that.dense;
+        this.timestamps = Arrays.copyOf(that.timestamps, that.size);
+        if (that.valueType != null) {
+            switch (that.valueType) {
+                case INT:
+                    this.intValues = Arrays.copyOf(that.intValues, that.size);
+                    break;
+                case LONG:
+                    this.longValues = Arrays.copyOf(that.longValues, that.size);
+                    break;
+                case DOUBLE:
+                    this.doubleValues = Arrays.copyOf(that.doubleValues, that.size);
+                    break;
+                default:
+                    this.objectValues = Arrays.copyOf(that.objectValues, that.size);
+            }
+        }
     }
 
     public Telemetry(String name) {
         this.name = name;
-        this.points = new TreeSet<>();
     }
 
     public Telemetry(String name, Set<Point<T>> points) {
         this.name = name;
-        this.points = new TreeSet<>(points);
+        if (points instanceof Telemetry.PointView) {
+            Telemetry<T> source = ((PointView) points).owner();
+            for (int i = 0; i < source.size; i++) {
+                append(source.timestamps[i], source.getValue(i));
+            }
+        } else if (points instanceof SortedSet && ((SortedSet<Point<T>>) points).comparator() == null) {
+            points.forEach(this::add);
+        } else {
+            List<Point<T>> sorted = new ArrayList<>(points);
+            sorted.sort(null);
+            sorted.forEach(this::add);
+        }
+    }
+
+
+    public Set<Point<T>> getPoints() {
+        return this.pointView;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public long getTs(int index) {
+        checkIndex(index);
+        return this.timestamps[index];
+    }
+
+    public T getValue(int index) {
+        checkIndex(index);
+        switch (this.valueType) {
+            case INT:
+                return (T) Integer.valueOf(this.intValues[index]);
+            case LONG:
+                return (T) Long.valueOf(this.longValues[index]);
+            case DOUBLE:
+                return (T) Double.valueOf(this.doubleValues[index]);
+            default:
+                return (T) this.objectValues[index];
+        }
+    }
+
+    public double getDoubleValue(int index) {
+        checkIndex(index);
+        switch (this.valueType) {
+            case INT:
+                return this.intValues[index];
+            case LONG:
+                return this.longValues[index];
+            case DOUBLE:
+                return this.doubleValues[index];
+            default:
+                return ((Number) this.objectValues[index]).doubleValue();
+        }
+    }
+
+    public boolean isNumeric() {
+        return this.valueType != null && this.valueType != ValueType.OBJECT;
+    }
+
+    public boolean isDense() {
+        return this.dense;
+    }
+
+    public int indexOf(long ts) {
+        if (this.dense && 1 < this.size) {
+            long offset = ts - this.timestamps[0];
+            if (offset < 0) {
+                return -1;
+            }
+            long index = offset / this.step;
+            if (this.size <= index) {
+                return -(this.size + 1);
+            }
+            return offset % this.step == 0
+                    ? (int) index
+                    : (int) -(index + 2);
+        }
+        return Arrays.binarySearch(this.timestamps, 0, this.size, ts);
+    }
+
+    public T getValueByTs(long ts) {
+        int index = indexOf(ts);
+        return index < 0 ? null : getValue(index);
+    }
+
+    /**
+     * Index of the first point with a timestamp not less than the given one, {@link #size()} if there is no such point.
+     */
+    public int ceilingIndex(long ts) {
+        int index = indexOf(ts);
+        return index < 0 ? -(index + 1) : index;
     }
 
 
     public void add(Point<T> point) {
-        this.points.add(point);
+        insert(point.getTs().get(), point.getValue());
     }
 
     public void add(long ts, T value) {
-        this.points.add(new Point<T>(Timestamp.of(ts), value));
+        insert(ts, value);
+    }
+
+    /**
+     * Replaces the value in place, converting it to the type of the stored one.
+     */
+    public void setDoubleValue(int index, double value) {
+        checkIndex(index);
+        switch (this.valueType) {
+            case INT:
+                this.intValues[index] = (int) value;
+                break;
+            case LONG:
+                this.longValues[index] = (long) value;
+                break;
+            case DOUBLE:
+                this.doubleValues[index] = value;
+                break;
+            default:
+                this.objectValues[index] = castNumber(this.objectValues[index], value);
+        }
+    }
+
+    public void removeRange(int from, int to) {
+        checkRange(from, to);
+        if (from == to) {
+            return;
+        }
+        int tail = this.size - to;
+        System.arraycopy(this.timestamps, to, this.timestamps, from, tail);
+        shiftValues(to, from, tail);
+        int newSize = this.size - (to - from);
+        if (this.valueType == ValueType.OBJECT) {
+            Arrays.fill(this.objectValues, newSize, this.size, null);
+        }
+        this.size = newSize;
+        if (from != 0 && tail != 0) {
+            this.dense = false;
+        }
+    }
+
+    public void trimToSize() {
+        if (this.timestamps.length == this.size) {
+            return;
+        }
+        resize(this.size);
+    }
+
+    public Batch<T> batch(int from, int to) {
+        checkRange(from, to);
+        return new Batch<>(this, from, to);
+    }
+
+    public int batchCount(int batchSize) {
+        checkBatchSize(batchSize);
+        return (this.size + batchSize - 1) / batchSize;
+    }
+
+    public Iterator<Batch<T>> batchIterator(int batchSize) {
+        checkBatchSize(batchSize);
+        return batchIterator(() -> batchSize);
     }
 
-    public List<Telemetry<T>> partition(int size) {
-        return Lists.partition(new ArrayList<>(this.points), size)
-                .stream()
-                .map(part -> new Telemetry<>(this.name, new TreeSet<>(part)))
-                .collect(Collectors.toList());
+    /**
+     * Batch size is asked before every batch, so it can be adjusted between them.
+     */
+    public Iterator<Batch<T>> batchIterator(IntSupplier batchSize) {
+        return batchIterator(0, batchSize);
+    }
+
+    /**
+     * Same as {@link #batchIterator(IntSupplier)}, but the points before the {@code start} index are skipped.
+     */
+    public Iterator<Batch<T>> batchIterator(int start, IntSupplier batchSize) {
+        checkRange(start, this.size);
+        return new Iterator<>() {
+            private int from = start;
+
+            @Override
+            public boolean hasNext() {
+                return this.from < Telemetry.this.size;
+            }
+
+            @Override
+            public Batch<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int size = batchSize.getAsInt();
+                checkBatchSize(size);
+                int to = (int) Math.min((long) this.from + size, Telemetry.this.size);
+                Batch<T> batch = new Batch<>(Telemetry.this, this.from, to);
+                this.from = to;
+                return batch;
+            }
+        };
     }
 
     public String toJson() {
-        ArrayNode nodePointList = JsonUtils.getObjectMapper().createArrayNode();
-        for (Point<T> point : this.points) {
-            ObjectNode valueNode = JsonUtils.getObjectMapper().createObjectNode();
-            if (point.getValue() instanceof Number) {
-                valueNode.put(this.name, Double.parseDouble(point.getValue().toString()));
-            } else {
-                valueNode.put(this.name, point.getValue().toString());
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(writer)) {
+            writeJson(generator, 0, this.size, -1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Json error during serializing telemetry: " + this.name, e);
+        }
+        return writer.toString();
+    }
+
+    public void writeJson(JsonGenerator generator, int from, int to, int decimalPlaces) throws IOException {
+        double scale = scaleOf(decimalPlaces);
+        generator.writeStartArray();
+        for (int i = from; i < to; i++) {
+            generator.writeStartObject();
+            generator.writeNumberField("ts", this.timestamps[i]);
+            generator.writeObjectFieldStart("values");
+            writeValue(generator, this.name, i, scale);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Telemetry)) {
+            return false;
+        }
+        Telemetry<?> that = (Telemetry<?>) o;
+        if (!Objects.equals(this.name, that.name) || this.size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (this.timestamps[i] != that.timestamps[i] || !Objects.equals(getValue(i), that.getValue(i))) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hashCode(this.name);
+        for (int i = 0; i < this.size; i++) {
+            result = 31 * result + Long.hashCode(this.timestamps[i]);
+            result = 31 * result + Objects.hashCode(getValue(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Telemetry(name=" + this.name + ", points=" + this.pointView + ")";
+    }
 
-            ObjectNode nodePoint = JsonUtils.getObjectMapper().createObjectNode();
-            nodePoint.put("ts", point.getTs().get());
-            nodePoint.set("values", valueNode);
-            nodePointList.add(nodePoint);
+
+    long[] timestampColumn() {
+        return this.timestamps;
+    }
+
+    IntToDoubleFunction doubleColumn() {
+        if (this.valueType == null) {
+            return index -> Double.NaN;
+        }
+        switch (this.valueType) {
+            case INT:
+                int[] intColumn = this.intValues;
+                return index -> intColumn[index];
+            case LONG:
+                long[] longColumn = this.longValues;
+                return index -> longColumn[index];
+            case DOUBLE:
+                double[] doubleColumn = this.doubleValues;
+                return index -> doubleColumn[index];
+            default:
+                Object[] objectColumn = this.objectValues;
+                return index -> ((Number) objectColumn[index]).doubleValue();
+        }
+    }
+
+    /**
+     * Writes the value at the index straight from its column, the same way as {@link #writeValue(JsonGenerator, String, Object, double)}.
+     */
+    void writeValue(JsonGenerator generator, String name, int index, double scale) throws IOException {
+        switch (this.valueType) {
+            case INT:
+                generator.writeNumberField(name, (double) this.intValues[index]);
+                break;
+            case LONG:
+                generator.writeNumberField(name, (double) this.longValues[index]);
+                break;
+            case DOUBLE:
+                generator.writeNumberField(name, round(this.doubleValues[index], scale));
+                break;
+            default:
+                writeValue(generator, name, this.objectValues[index], scale);
         }
+    }
+
+    static double scaleOf(int decimalPlaces) {
+        return decimalPlaces < 0 ? 0 : Math.pow(10, decimalPlaces);
+    }
+
+    static void writeValue(JsonGenerator generator, String name, Object value, double scale) throws IOException {
+        if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumberField(name, (double) ((Number) value).longValue());
+        } else if (value instanceof Double) {
+            generator.writeNumberField(name, round((Double) value, scale));
+        } else if (value instanceof Number) {
+            generator.writeNumberField(name, round(Double.parseDouble(value.toString()), scale));
+        } else {
+            generator.writeStringField(name, value.toString());
+        }
+    }
 
-        return nodePointList.toString();
+    /**
+     * Value as the server stores it when it is sent by {@link #writeValue}: a double for numbers, a string otherwise.
+     */
+    public static Object toStoredValue(Object value, int decimalPlaces) {
+        if (value instanceof Integer || value instanceof Long) {
+            return (double) ((Number) value).longValue();
+        } else if (value instanceof Double) {
+            return round((Double) value, scaleOf(decimalPlaces));
+        } else if (value instanceof Number) {
+            return round(Double.parseDouble(value.toString()), scaleOf(decimalPlaces));
+        } else {
+            return value.toString();
+        }
+    }
+
+    /**
+     * {@link #toStoredValue} of a point of a numeric series, read straight from its column.
+     */
+    public double getStoredValue(int index, int decimalPlaces) {
+        checkIndex(index);
+        switch (this.valueType) {
+            case INT:
+                return this.intValues[index];
+            case LONG:
+                return this.longValues[index];
+            case DOUBLE:
+                return round(this.doubleValues[index], scaleOf(decimalPlaces));
+            default:
+                return (Double) toStoredValue(this.objectValues[index], decimalPlaces);
+        }
+    }
+
+    /**
+     * The new value in the boxed type of the old one.
+     */
+    @SuppressWarnings("unchecked")
+    public static <N> N castNumber(N oldValue, double newValue) {
+        if (oldValue instanceof Byte) {
+            return (N) Byte.valueOf((byte) newValue);
+        }
+        if (oldValue instanceof Short) {
+            return (N) Short.valueOf((short) newValue);
+        }
+        if (oldValue instanceof Integer) {
+            return (N) Integer.valueOf((int) newValue);
+        }
+        if (oldValue instanceof Long) {
+            return (N) Long.valueOf((long) newValue);
+        }
+        if (oldValue instanceof Float) {
+            return (N) Float.valueOf((float) newValue);
+        }
+        if (oldValue instanceof Double) {
+            return (N) Double.valueOf(newValue);
+        }
+        throw new IllegalStateException("Value is not numeric: " + oldValue);
+    }
+
+    private static double round(double value, double scale) {
+        if (scale == 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        return Math.round(value * scale) / scale;
+    }
+
+    private boolean insert(long ts, T value) {
+        if (this.size == 0 || this.timestamps[this.size - 1] < ts) {
+            append(ts, value);
+            return true;
+        }
+        int index = indexOf(ts);
+        if (0 <= index) {
+            return false;
+        }
+        index = -(index + 1);
+        ensureCapacity(this.size + 1);
+        acceptValueType(value);
+        System.arraycopy(this.timestamps, index, this.timestamps, index + 1, this.size - index);
+        shiftValues(index, index + 1, this.size - index);
+        this.size++;
+        setAt(index, ts, value);
+        this.dense = false;
+        return true;
+    }
+
+    private void append(long ts, T value) {
+        ensureCapacity(this.size + 1);
+        acceptValueType(value);
+        if (this.size == 1) {
+            this.step = ts - this.timestamps[0];
+        } else if (1 < this.size && ts - this.timestamps[this.size - 1] != this.step) {
+            this.dense = false;
+        }
+        setAt(this.size++, ts, value);
+    }
+
+    private void removeAt(int index) {
+        int tail = this.size - index - 1;
+        System.arraycopy(this.timestamps, index + 1, this.timestamps, index, tail);
+        shiftValues(index + 1, index, tail);
+        this.size--;
+        if (this.valueType == ValueType.OBJECT) {
+            this.objectValues[this.size] = null;
+        }
+        if (index != this.size) {
+            this.dense = false;
+        }
+    }
+
+    private void refreshDensity() {
+        this.step = 1 < this.size ? this.timestamps[1] - this.timestamps[0] : 0;
+        this.dense = true;
+        for (int i = 2; i < this.size && this.dense; i++) {
+            this.dense = this.timestamps[i] - this.timestamps[i - 1] == this.step;
+        }
+    }
+
+    private void setAt(int index, long ts, T value) {
+        this.timestamps[index] = ts;
+        switch (this.valueType) {
+            case INT:
+                this.intValues[index] = (Integer) value;
+                break;
+            case LONG:
+                this.longValues[index] = (Long) value;
+                break;
+            case DOUBLE:
+                this.doubleValues[index] = (Double) value;
+                break;
+            default:
+                this.objectValues[index] = value;
+        }
+    }
+
+    private void shiftValues(int from, int to, int length) {
+        switch (this.valueType) {
+            case INT:
+                System.arraycopy(this.intValues, from, this.intValues, to, length);
+                break;
+            case LONG:
+                System.arraycopy(this.longValues, from, this.longValues, to, length);
+                break;
+            case DOUBLE:
+                System.arraycopy(this.doubleValues, from, this.doubleValues, to, length);
+                break;
+            default:
+                System.arraycopy(this.objectValues, from, this.objectValues, to, length);
+        }
+    }
+
+    private void acceptValueType(T value) {
+        ValueType type = valueTypeOf(value);
+        if (this.valueType == null) {
+            ensureType(type);
+        } else if (this.valueType != type && this.valueType != ValueType.OBJECT) {
+            Object[] boxed = new Object[this.timestamps.length];
+            for (int i = 0; i < this.size; i++) {
+                boxed[i] = getValue(i);
+            }
+            this.intValues = null;
+            this.longValues = null;
+            this.doubleValues = null;
+            this.objectValues = boxed;
+            this.valueType = ValueType.OBJECT;
+        }
+    }
+
+    private void ensureType(ValueType type) {
+        this.valueType = type;
+        int capacity = this.timestamps.length;
+        switch (type) {
+            case INT:
+                this.intValues = new int[capacity];
+                break;
+            case LONG:
+                this.longValues = new long[capacity];
+                break;
+            case DOUBLE:
+                this.doubleValues = new double[capacity];
+                break;
+            default:
+                this.objectValues = new Object[capacity];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.timestamps.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, this.timestamps.length + (this.timestamps.length >> 1)));
+        resize(newCapacity);
+    }
+
+    private void resize(int capacity) {
+        this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+        if (this.valueType == null) {
+            return;
+        }
+        switch (this.valueType) {
+            case INT:
+                this.intValues = Arrays.copyOf(this.intValues, capacity);
+                break;
+            case LONG:
+                this.longValues = Arrays.copyOf(this.longValues, capacity);
+                break;
+            case DOUBLE:
+                this.doubleValues = Arrays.copyOf(this.doubleValues, capacity);
+                break;
+            default:
+                this.objectValues = Arrays.copyOf(this.objectValues, capacity);
+        }
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || this.size <= index) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to < from || this.size < to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for size " + this.size);
+        }
+    }
+
+    private static ValueType valueTypeOf(Object value) {
+        if (value instanceof Integer) {
+            return ValueType.INT;
+        }
+        if (value instanceof Long) {
+            return ValueType.LONG;
+        }
+        if (value instanceof Double) {
+            return ValueType.DOUBLE;
+        }
+        return ValueType.OBJECT;
+    }
+
+
+    private class PointView extends AbstractSet<Point<T>> {
+
+        private Telemetry<T> owner() {
+            return Telemetry.this;
+        }
+
+        @Override
+        public int size() {
+            return Telemetry.this.size;
+        }
+
+        @Override
+        public boolean add(Point<T> point) {
+            return insert(point.getTs().get(), point.getValue());
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Point && 0 <= indexOf(((Point<?>) o).getTs().get());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Point)) {
+                return false;
+            }
+            int index = indexOf(((Point<?>) o).getTs().get());
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            long[] removed = collection.stream()
+                    .filter(Point.class::isInstance)
+                    .mapToLong(point -> ((Point<?>) point).getTs().get())
+                    .sorted()
+                    .toArray();
+            if (removed.length == 0) {
+                return false;
+            }
+
+            int target = 0;
+            for (int i = 0; i < Telemetry.this.size; i++) {
+                if (0 <= Arrays.binarySearch(removed, timestamps[i])) {
+                    continue;
+                }
+                if (target != i) {
+                    timestamps[target] = timestamps[i];
+                    shiftValues(i, target, 1);
+                }
+                target++;
+            }
+            if (valueType == ValueType.OBJECT) {
+                Arrays.fill(objectValues, target, Telemetry.this.size, null);
+            }
+            boolean changed = target != Telemetry.this.size;
+            Telemetry.this.size = target;
+            refreshDensity();
+            return changed;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Point<T>> collection) {
+            boolean changed = super.addAll(collection);
+            if (!dense) {
+                refreshDensity();
+            }
+            return changed;
+        }
+
+        @Override
+        public void clear() {
+            if (valueType == ValueType.OBJECT) {
+                Arrays.fill(objectValues, 0, Telemetry.this.size, null);
+            }
+            Telemetry.this.size = 0;
+            refreshDensity();
+        }
+
+        @Override
+        public Iterator<Point<T>> iterator() {
+            return new Iterator<>() {
+                private int cursor = 0;
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return this.cursor < Telemetry.this.size;
+                }
+
+                @Override
+                public Point<T> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    this.last = this.cursor++;
+                    return new Point<>(Timestamp.of(timestamps[this.last]), getValue(this.last));
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    removeAt(this.last);
+                    this.cursor = this.last;
+                    this.last = -1;
+                }
+            };
+        }
     }
 }
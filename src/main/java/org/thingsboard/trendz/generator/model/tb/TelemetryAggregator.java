@@ -0,0 +1,221 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregation operators over the primitive columns of numeric {@link Telemetry}.
+ * Every operator is a single pass over the stored values without creating {@link Telemetry.Point} objects;
+ * the list overloads process the series in parallel.
+ */
+public final class TelemetryAggregator {
+
+    public enum Aggregation {
+        MIN, MAX, SUM, AVG, COUNT
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Stats {
+
+        private static final Stats EMPTY = new Stats(0, Double.NaN, Double.NaN, 0);
+
+        private final long count;
+        private final double min;
+        private final double max;
+        private final double sum;
+
+        public double getMean() {
+            return this.count == 0 ? Double.NaN : this.sum / this.count;
+        }
+    }
+
+
+    private TelemetryAggregator() {
+    }
+
+
+    public static Stats stats(Telemetry<? extends Number> telemetry) {
+        return stats(telemetry, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Statistics of the points with {@code startTs <= ts < endTs}.
+     */
+    public static Stats stats(Telemetry<? extends Number> telemetry, long startTs, long endTs) {
+        long[] timestamps = telemetry.timestampColumn();
+        int from = lowerBound(timestamps, telemetry.size(), startTs);
+        int to = lowerBound(timestamps, telemetry.size(), endTs);
+        if (to <= from) {
+            return Stats.EMPTY;
+        }
+
+        IntToDoubleFunction values = telemetry.doubleColumn();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double value = values.applyAsDouble(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        return new Stats(to - from, min, max, sum);
+    }
+
+    public static List<Stats> stats(List<? extends Telemetry<? extends Number>> telemetryList) {
+        return telemetryList.parallelStream()
+                .map(TelemetryAggregator::stats)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Groups the points into calendar buckets of the given unit (hours, days, months or years in the zone)
+     * and returns one point per non-empty bucket, with the bucket start as its timestamp.
+     */
+    public static Telemetry<Double> downsample(Telemetry<? extends Number> telemetry, ChronoUnit unit, ZoneId zoneId, Aggregation aggregation) {
+        Telemetry<Double> result = new Telemetry<>(telemetry.getName());
+        long[] timestamps = telemetry.timestampColumn();
+        IntToDoubleFunction values = telemetry.doubleColumn();
+
+        long bucketStart = 0;
+        long bucketEnd = Long.MIN_VALUE;
+        long count = 0;
+        double accumulator = 0;
+        for (int i = 0; i < telemetry.size(); i++) {
+            long ts = timestamps[i];
+            if (bucketEnd <= ts) {
+                if (count != 0) {
+                    result.add(bucketStart, complete(aggregation, accumulator, count));
+                }
+                ZonedDateTime start = truncate(DateTimeUtils.fromTs(ts, zoneId), unit);
+                bucketStart = DateTimeUtils.toTs(start);
+                bucketEnd = DateTimeUtils.toTs(start.plus(1, unit));
+                count = 0;
+                accumulator = initial(aggregation);
+            }
+            accumulator = accumulate(aggregation, accumulator, values.applyAsDouble(i));
+            count++;
+        }
+        if (count != 0) {
+            result.add(bucketStart, complete(aggregation, accumulator, count));
+        }
+        result.trimToSize();
+        return result;
+    }
+
+    public static List<Telemetry<Double>> downsample(List<? extends Telemetry<? extends Number>> telemetryList, ChronoUnit unit, ZoneId zoneId, Aggregation aggregation) {
+        return telemetryList.parallelStream()
+                .map(telemetry -> downsample(telemetry, unit, zoneId, aggregation))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Percentiles in [0, 100] with linear interpolation between the closest ranks.
+     * The values are copied to a primitive array and sorted once for all requested percentiles.
+     */
+    public static double[] percentiles(Telemetry<? extends Number> telemetry, double... percentiles) {
+        for (double percentile : percentiles) {
+            if (percentile < 0 || 100 < percentile) {
+                throw new IllegalArgumentException("Percentile must be in [0, 100]: " + percentile);
+            }
+        }
+        double[] result = new double[percentiles.length];
+        int size = telemetry.size();
+        if (size == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        double[] sorted = toDoubleArray(telemetry);
+        Arrays.sort(sorted);
+        for (int i = 0; i < percentiles.length; i++) {
+            double rank = percentiles[i] / 100 * (size - 1);
+            int lower = (int) rank;
+            int upper = Math.min(lower + 1, size - 1);
+            result[i] = sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+        }
+        return result;
+    }
+
+    public static long[] toTsArray(Telemetry<?> telemetry) {
+        return Arrays.copyOf(telemetry.timestampColumn(), telemetry.size());
+    }
+
+    public static double[] toDoubleArray(Telemetry<? extends Number> telemetry) {
+        IntToDoubleFunction values = telemetry.doubleColumn();
+        double[] result = new double[telemetry.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.applyAsDouble(i);
+        }
+        return result;
+    }
+
+
+    private static int lowerBound(long[] timestamps, int size, long ts) {
+        int index = Arrays.binarySearch(timestamps, 0, size, ts);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private static ZonedDateTime truncate(ZonedDateTime date, ChronoUnit unit) {
+        switch (unit) {
+            case HOURS:
+            case DAYS:
+                return date.truncatedTo(unit);
+            case MONTHS:
+                return date.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+            case YEARS:
+                return date.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+            default:
+                throw new IllegalArgumentException("Unsupported downsampling unit: " + unit);
+        }
+    }
+
+    private static double initial(Aggregation aggregation) {
+        switch (aggregation) {
+            case MIN:
+                return Double.POSITIVE_INFINITY;
+            case MAX:
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return 0;
+        }
+    }
+
+    private static double accumulate(Aggregation aggregation, double accumulator, double value) {
+        switch (aggregation) {
+            case MIN:
+                return Math.min(accumulator, value);
+            case MAX:
+                return Math.max(accumulator, value);
+            case SUM:
+            case AVG:
+                return accumulator + value;
+            default:
+                return accumulator;
+        }
+    }
+
+    private static double complete(Aggregation aggregation, double accumulator, long count) {
+        switch (aggregation) {
+            case AVG:
+                return accumulator / count;
+            case COUNT:
+                return count;
+            default:
+                return accumulator;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public interface TelemetryPayload {
+
+    String getName();
+
+    int size();
+
+    /**
+     * Timestamp of the last point, the payload must not be empty.
+     */
+    long getLastTs();
+
+    void writeJson(JsonGenerator generator, int decimalPlaces) throws IOException;
+}
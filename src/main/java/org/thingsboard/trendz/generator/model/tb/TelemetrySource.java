@@ -0,0 +1,130 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily produced telemetry. Every call of {@link #iterator()} starts the series from the beginning
+ * and yields the same points, so a source can be consumed several times without being kept in memory.
+ */
+public interface TelemetrySource<T> extends Iterable<Telemetry.Point<T>> {
+
+    String getName();
+
+    /**
+     * The same series without the points up to the given timestamp inclusive, the source must be ordered by ts.
+     */
+    default TelemetrySource<T> after(long ts) {
+        TelemetrySource<T> source = this;
+        return of(getName(), () -> StreamSupport.stream(source.spliterator(), false)
+                .dropWhile(point -> point.getTs().get() <= ts)
+                .iterator()
+        );
+    }
+
+    default Telemetry<T> toTelemetry() {
+        Telemetry<T> result = new Telemetry<>(getName());
+        for (Telemetry.Point<T> point : this) {
+            result.add(point);
+        }
+        return result;
+    }
+
+    /**
+     * The stored series behind the source, so that its columns can be read directly; empty for lazily produced series.
+     * The source starts at {@link #getStoredFrom()} in it.
+     */
+    default Optional<Telemetry<T>> getStored() {
+        return Optional.empty();
+    }
+
+    /**
+     * Index of the first point of the source in {@link #getStored()}.
+     */
+    default int getStoredFrom() {
+        return 0;
+    }
+
+
+    static <T> TelemetrySource<T> of(Telemetry<T> telemetry) {
+        return ofStored(telemetry, 0);
+    }
+
+    static <T> TelemetrySource<T> of(String name, Iterable<Telemetry.Point<T>> points) {
+        return new TelemetrySource<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Iterator<Telemetry.Point<T>> iterator() {
+                return points.iterator();
+            }
+        };
+    }
+
+    /**
+     * The points of the stored series from the index on; {@link #after(long)} moves the index instead of filtering points.
+     */
+    private static <T> TelemetrySource<T> ofStored(Telemetry<T> telemetry, int from) {
+        return new TelemetrySource<>() {
+            @Override
+            public String getName() {
+                return telemetry.getName();
+            }
+
+            @Override
+            public Iterator<Telemetry.Point<T>> iterator() {
+                if (from == 0) {
+                    return telemetry.getPoints().iterator();
+                }
+                return IntStream.range(from, telemetry.size())
+                        .mapToObj(index -> new Telemetry.Point<>(Timestamp.of(telemetry.getTs(index)), telemetry.getValue(index)))
+                        .iterator();
+            }
+
+            @Override
+            public TelemetrySource<T> after(long ts) {
+                return ofStored(telemetry, Math.max(from, telemetry.ceilingIndex(ts + 1)));
+            }
+
+            @Override
+            public Telemetry<T> toTelemetry() {
+                if (from == 0) {
+                    return telemetry;
+                }
+                Telemetry<T> result = new Telemetry<>(telemetry);
+                result.removeRange(0, from);
+                return result;
+            }
+
+            @Override
+            public Optional<Telemetry<T>> getStored() {
+                return Optional.of(telemetry);
+            }
+
+            @Override
+            public int getStoredFrom() {
+                return from;
+            }
+        };
+    }
+
+    static <T> TelemetrySource<T> empty(String name) {
+        return new TelemetrySource<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Iterator<Telemetry.Point<T>> iterator() {
+                return Collections.emptyIterator();
+            }
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package org.thingsboard.trendz.generator.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -13,11 +14,15 @@ public class FileService {
 
     private final String userDir;
     private final String prefix;
+    private final Path workDirectory;
 
 
-    public FileService() {
+    public FileService(
+            @Value("${generator.workDirectory}") String workDirectory
+    ) {
         this.userDir = System.getProperty("user.dir");
         this.prefix = "/src/main/resources/files";
+        this.workDirectory = Path.of(workDirectory);
     }
 
     public String getFileContent(String solutionName, String fileName) throws IOException {
@@ -28,4 +33,9 @@ public class FileService {
     public Path getFilePath(String solutionName, String fileName) {
         return Path.of(userDir, this.prefix, solutionName, fileName);
     }
+
+    public Path createWorkDirectory(String solutionName) throws IOException {
+        Files.createDirectories(this.workDirectory);
+        return Files.createTempDirectory(this.workDirectory, solutionName + "-");
+    }
 }
@@ -1,13 +1,14 @@
 package org.thingsboard.trendz.generator.service;
 
 import com.github.sh0nk.matplotlib4j.Plot;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Longs;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.thingsboard.trendz.generator.model.tb.Telemetry;
-import org.thingsboard.trendz.generator.model.tb.Timestamp;
+import org.thingsboard.trendz.generator.model.tb.TelemetryAggregator;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -17,8 +18,8 @@ public class VisualizationService {
         try {
             Plot plt = Plot.create();
             for (Telemetry<? extends Number> telemetry : telemetryList) {
-                List<Long> ts = telemetry.getPoints().stream().map(Telemetry.Point::getTs).map(Timestamp::get).collect(Collectors.toList());
-                List<? extends Number> value = telemetry.getPoints().stream().map(Telemetry.Point::getValue).collect(Collectors.toList());
+                List<Long> ts = Longs.asList(TelemetryAggregator.toTsArray(telemetry));
+                List<Double> value = Doubles.asList(TelemetryAggregator.toDoubleArray(telemetry));
 
                 plt.plot()
                         .add(ts, value)
@@ -6,12 +6,19 @@ import org.springframework.stereotype.Service;
 import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
 import org.thingsboard.trendz.generator.model.anomaly.AnomalyType;
 import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+import org.thingsboard.trendz.generator.utils.RandomUtils;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,16 +36,89 @@ public class AnomalyService {
         }
     }
 
+    /**
+     * Applies all anomalies in one pass over their index ranges, which are found by timestamp lookups,
+     * so the cost depends on the affected windows and not on the series length.
+     * Values are rewritten in place, points of data gaps are removed at the end.
+     */
     public void applyAnomaly(Telemetry<? extends Number> telemetry, Set<AnomalyInfo> anomalyInfoList) {
-        if (anomalyInfoList == null) {
+        if (anomalyInfoList == null || anomalyInfoList.isEmpty() || telemetry.isEmpty()) {
             return;
         }
-        for (AnomalyInfo anomalyInfo : anomalyInfoList) {
-            AnomalyCreator creator = this.typeToCreatorMap.get(anomalyInfo.getType());
-            if (creator == null) {
-                throw new IllegalStateException("Anomaly creator type is not supported: " + anomalyInfo.getType());
+        List<AnomalyInfo> anomalies = new ArrayList<>(anomalyInfoList);
+        int count = anomalies.size();
+        ValueAnomalyCreator[] valueCreators = new ValueAnomalyCreator[count];
+        boolean[] gaps = new boolean[count];
+        int[] from = new int[count];
+        int[] to = new int[count];
+        for (int i = 0; i < count; i++) {
+            AnomalyInfo anomalyInfo = anomalies.get(i);
+            AnomalyCreator creator = getCreator(anomalyInfo);
+            if (creator instanceof ValueAnomalyCreator) {
+                valueCreators[i] = (ValueAnomalyCreator) creator;
+            } else {
+                gaps[i] = true;
             }
-            creator.create(telemetry, anomalyInfo);
+            from[i] = telemetry.ceilingIndex(DateTimeUtils.toTs(anomalyInfo.getStartDate()));
+            to[i] = Math.max(from[i], telemetry.ceilingIndex(DateTimeUtils.toTs(anomalyInfo.getEndDate())));
         }
+
+        Random random = RandomUtils.getRandom();
+        for (int[] range : mergeRanges(gaps, from, to, false)) {
+            for (int index = range[0]; index < range[1]; index++) {
+                double value = telemetry.getDoubleValue(index);
+                for (int i = 0; i < count; i++) {
+                    if (from[i] <= index && index < to[i] && valueCreators[i] != null) {
+                        value = valueCreators[i].createValue(value, anomalies.get(i), random);
+                    }
+                }
+                telemetry.setDoubleValue(index, value);
+            }
+        }
+
+        List<int[]> gapRanges = mergeRanges(gaps, from, to, true);
+        for (int i = gapRanges.size() - 1; 0 <= i; i--) {
+            telemetry.removeRange(gapRanges.get(i)[0], gapRanges.get(i)[1]);
+        }
+    }
+
+    public <T extends Number> TelemetrySource<T> applyAnomaly(TelemetrySource<T> source, Set<AnomalyInfo> anomalyInfoList) {
+        if (anomalyInfoList == null || anomalyInfoList.isEmpty()) {
+            return source;
+        }
+        List<AnomalyInfo> anomalies = new ArrayList<>(anomalyInfoList);
+        List<AnomalyCreator> creators = anomalies.stream()
+                .map(this::getCreator)
+                .collect(Collectors.toList());
+        return new AnomalyTelemetrySource<>(source, anomalies, creators);
+    }
+
+    private AnomalyCreator getCreator(AnomalyInfo anomalyInfo) {
+        AnomalyCreator creator = this.typeToCreatorMap.get(anomalyInfo.getType());
+        if (creator == null) {
+            throw new IllegalStateException("Anomaly creator type is not supported: " + anomalyInfo.getType());
+        }
+        return creator;
+    }
+
+    private static List<int[]> mergeRanges(boolean[] gaps, int[] from, int[] to, boolean gap) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < gaps.length; i++) {
+            if (gaps[i] == gap && from[i] < to[i]) {
+                ranges.add(new int[]{from[i], to[i]});
+            }
+        }
+        ranges.sort(Comparator.comparingInt(range -> range[0]));
+
+        List<int[]> merged = new ArrayList<>();
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
     }
 }
@@ -0,0 +1,94 @@
+package org.thingsboard.trendz.generator.service.anomaly;
+
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+import org.thingsboard.trendz.generator.utils.RandomUtils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+class AnomalyTelemetrySource<T extends Number> implements TelemetrySource<T> {
+
+    private final TelemetrySource<T> source;
+    private final List<AnomalyInfo> anomalies;
+    private final ValueAnomalyCreator[] valueCreators;
+    private final long[] startTs;
+    private final long[] endTs;
+    private final long seed;
+
+    AnomalyTelemetrySource(TelemetrySource<T> source, List<AnomalyInfo> anomalies, List<AnomalyCreator> creators) {
+        this.source = source;
+        this.anomalies = anomalies;
+        // null for the creators of gaps, their points are dropped
+        this.valueCreators = creators.stream()
+                .map(creator -> creator instanceof ValueAnomalyCreator ? (ValueAnomalyCreator) creator : null)
+                .toArray(ValueAnomalyCreator[]::new);
+        this.startTs = anomalies.stream().mapToLong(anomaly -> DateTimeUtils.toTs(anomaly.getStartDate())).toArray();
+        this.endTs = anomalies.stream().mapToLong(anomaly -> DateTimeUtils.toTs(anomaly.getEndDate())).toArray();
+        this.seed = RandomUtils.getRandom().nextLong();
+    }
+
+
+    @Override
+    public String getName() {
+        return this.source.getName();
+    }
+
+    @Override
+    public Iterator<Telemetry.Point<T>> iterator() {
+        Iterator<Telemetry.Point<T>> iterator = this.source.iterator();
+        Random random = new Random(this.seed);
+
+        return new Iterator<>() {
+            private Telemetry.Point<T> next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Telemetry.Point<T> next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                Telemetry.Point<T> result = this.next;
+                this.next = advance();
+                return result;
+            }
+
+            private Telemetry.Point<T> advance() {
+                while (iterator.hasNext()) {
+                    Telemetry.Point<T> point = apply(iterator.next(), random);
+                    if (point != null) {
+                        return point;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private Telemetry.Point<T> apply(Telemetry.Point<T> point, Random random) {
+        long ts = point.getTs().get();
+        T value = point.getValue();
+        boolean changed = false;
+        for (int i = 0; i < this.anomalies.size(); i++) {
+            if (ts < this.startTs[i] || this.endTs[i] <= ts) {
+                continue;
+            }
+            if (this.valueCreators[i] == null) {
+                return null;
+            }
+            value = this.valueCreators[i].createPointValue(value, this.anomalies.get(i), random);
+            changed = true;
+        }
+        return changed
+                ? new Telemetry.Point<>(point.getTs(), value)
+                : point;
+    }
+}
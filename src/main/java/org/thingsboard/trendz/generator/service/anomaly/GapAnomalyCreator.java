@@ -0,0 +1,7 @@
+package org.thingsboard.trendz.generator.service.anomaly;
+
+/**
+ * Removes the points inside the anomaly range, there are no values to create.
+ */
+public interface GapAnomalyCreator extends AnomalyCreator {
+}
@@ -0,0 +1,18 @@
+package org.thingsboard.trendz.generator.service.anomaly;
+
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+
+import java.util.Random;
+
+public interface ValueAnomalyCreator extends AnomalyCreator {
+
+    /**
+     * New value of a single point inside the anomaly range.
+     */
+    double createValue(double value, AnomalyInfo anomalyInfo, Random random);
+
+    default <T extends Number> T createPointValue(T value, AnomalyInfo anomalyInfo, Random random) {
+        return Telemetry.castNumber(value, createValue(value.doubleValue(), anomalyInfo, random));
+    }
+}
@@ -0,0 +1,354 @@
+package org.thingsboard.trendz.generator.service.export;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Writes telemetry to bulk-load files of the ThingsBoard time series storage instead of pushing it, one file per month
+ * (the default ts_kv partitioning): {@code postgres/ts_kv_<yyyy>_<MM>.csv} for {@code COPY} and
+ * {@code cassandra/ts_kv_cf_<yyyy>_<MM>.csv} for {@code cqlsh COPY}, with {@code load.sql} and {@code load.cql}
+ * which load all of them. Entity ids are the ids of the devices created by the provisioning; values are stored
+ * as the server stores pushed ones, numbers as doubles and everything else as strings.
+ */
+@Slf4j
+@Service
+public class TelemetryExporter {
+
+    public static final String POSTGRES = "postgres";
+    public static final String CASSANDRA = "cassandra";
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.POSTGRESQL_CSV;
+    private static final int FLUSH_CHARS = 1 << 20;
+
+    private final Path directory;
+    private final boolean postgres;
+    private final boolean cassandra;
+    private final int telemetryDecimalPlaces;
+    private final TbRestClient tbRestClient;
+
+    private final Map<String, MonthFile> files = new ConcurrentHashMap<>();
+    private final Set<List<Object>> cassandraPartitions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong points = new AtomicLong();
+    private volatile Path solutionDirectory;
+
+    @Autowired
+    public TelemetryExporter(
+            @Value("${generator.export.directory}") String directory,
+            @Value("${generator.export.formats}") List<String> formats,
+            @Value("${tb.api.telemetryDecimalPlaces}") int telemetryDecimalPlaces,
+            TbRestClient tbRestClient
+    ) {
+        for (String format : formats) {
+            if (!POSTGRES.equals(format) && !CASSANDRA.equals(format)) {
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+            }
+        }
+        this.directory = Path.of(directory);
+        this.postgres = formats.contains(POSTGRES);
+        this.cassandra = formats.contains(CASSANDRA);
+        this.telemetryDecimalPlaces = telemetryDecimalPlaces;
+        this.tbRestClient = tbRestClient;
+    }
+
+
+    public boolean isOpen() {
+        return this.solutionDirectory != null;
+    }
+
+    /**
+     * Starts the export of the solution, the files of its previous export are deleted.
+     */
+    public synchronized void open(String solutionName) {
+        close();
+        Path path = this.directory.resolve(solutionName);
+        try {
+            for (String format : List.of(POSTGRES, CASSANDRA)) {
+                Path formatDirectory = path.resolve(format);
+                Files.createDirectories(formatDirectory);
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(formatDirectory)) {
+                    for (Path file : stream) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not prepare export directory: " + path, e);
+        }
+        this.solutionDirectory = path;
+        log.info("Telemetry is exported to {}", path);
+    }
+
+    /**
+     * Closes the files and writes the load scripts.
+     */
+    public synchronized void close() {
+        if (this.solutionDirectory == null) {
+            return;
+        }
+        try {
+            for (MonthFile file : this.files.values()) {
+                file.close();
+            }
+            if (this.postgres) {
+                writePostgresScript();
+            }
+            if (this.cassandra) {
+                writeCassandraPartitions();
+                writeCassandraScript();
+            }
+            log.info("Telemetry export is finished: {} files, {} points, {}", this.files.size(), this.points.get(), this.solutionDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not finish telemetry export: " + this.solutionDirectory, e);
+        } finally {
+            this.files.clear();
+            this.cassandraPartitions.clear();
+            this.points.set(0);
+            this.solutionDirectory = null;
+        }
+    }
+
+    public void flush() {
+        try {
+            for (MonthFile file : this.files.values()) {
+                file.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not flush telemetry export", e);
+        }
+    }
+
+    public void export(String accessToken, List<? extends TelemetrySource<?>> sources) {
+        if (!isOpen()) {
+            throw new IllegalStateException("Telemetry export is not opened");
+        }
+        UUID deviceId = this.tbRestClient.getDeviceIdByAccessToken(accessToken)
+                .orElseThrow(() -> new IllegalStateException("Device of the access token is unknown, its credentials must be requested first"));
+        try {
+            for (TelemetrySource<?> source : sources) {
+                export(deviceId, source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not export telemetry: " + deviceId, e);
+        }
+    }
+
+
+    /**
+     * Stored numeric series are read through their columns from the first point of the source,
+     * other sources point by point.
+     */
+    private void export(UUID deviceId, TelemetrySource<?> source) throws IOException {
+        DeviceRows rows = new DeviceRows(deviceId, source.getName());
+        Telemetry<?> stored = source.getStored()
+                .filter(Telemetry::isNumeric)
+                .orElse(null);
+        if (stored != null) {
+            for (int i = source.getStoredFrom(); i < stored.size(); i++) {
+                rows.add(stored.getTs(i), stored.getStoredValue(i, this.telemetryDecimalPlaces), null);
+            }
+        } else {
+            for (Telemetry.Point<?> point : source) {
+                Object value = Telemetry.toStoredValue(point.getValue(), this.telemetryDecimalPlaces);
+                rows.add(point.getTs().get(),
+                        value instanceof Double ? (Double) value : null,
+                        value instanceof String ? (String) value : null
+                );
+            }
+        }
+        rows.finish();
+    }
+
+    private void append(YearMonth month, UUID deviceId, String key, StringBuilder postgresRows, StringBuilder cassandraRows) throws IOException {
+        if (this.postgres && postgresRows.length() != 0) {
+            getFile(POSTGRES, "ts_kv_" + suffixOf(month) + ".csv", month).append(postgresRows);
+            postgresRows.setLength(0);
+        }
+        if (this.cassandra && cassandraRows.length() != 0) {
+            getFile(CASSANDRA, "ts_kv_cf_" + suffixOf(month) + ".csv", month).append(cassandraRows);
+            cassandraRows.setLength(0);
+            this.cassandraPartitions.add(List.of(deviceId, key, startOf(month)));
+        }
+    }
+
+    private MonthFile getFile(String format, String fileName, YearMonth month) {
+        return this.files.computeIfAbsent(format + "/" + fileName, name -> new MonthFile(this.solutionDirectory.resolve(name), month));
+    }
+
+    private List<MonthFile> getFiles(String format) {
+        return new TreeMap<>(this.files).entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(format + "/"))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    private void writePostgresScript() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("-- Loads the exported telemetry into ThingsBoard PostgreSQL, run from this directory:");
+        lines.add("--   psql -v ON_ERROR_STOP=1 -d thingsboard -f load.sql");
+        lines.add("-- Keys are added to ts_kv_dictionary, missing monthly partitions of ts_kv are created, ts_kv_latest is updated.");
+        lines.add("CREATE TEMP TABLE ts_kv_import (entity_id uuid, key varchar(255), ts bigint, bool_v boolean, str_v varchar(10000000), long_v bigint, dbl_v double precision, json_v json);");
+        for (MonthFile file : getFiles(POSTGRES)) {
+            String partition = "ts_kv_" + suffixOf(file.getMonth());
+            lines.add("");
+            lines.add("\\copy ts_kv_import FROM '" + file.getPath().getFileName() + "' WITH (FORMAT csv)");
+            lines.add("INSERT INTO ts_kv_dictionary (key) SELECT DISTINCT key FROM ts_kv_import ON CONFLICT DO NOTHING;");
+            lines.add("DO $$ BEGIN");
+            lines.add("    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'ts_kv'::regclass) THEN");
+            lines.add(String.format(Locale.US, "        EXECUTE 'CREATE TABLE IF NOT EXISTS %s PARTITION OF ts_kv FOR VALUES FROM (%d) TO (%d)';",
+                    partition, startOf(file.getMonth()), startOf(file.getMonth().plusMonths(1))
+            ));
+            lines.add("    END IF;");
+            lines.add("END $$;");
+            lines.add("INSERT INTO ts_kv (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v)");
+            lines.add("SELECT i.entity_id, d.key_id, i.ts, i.bool_v, i.str_v, i.long_v, i.dbl_v, i.json_v FROM ts_kv_import i JOIN ts_kv_dictionary d ON d.key = i.key");
+            lines.add("ON CONFLICT DO NOTHING;");
+            lines.add("INSERT INTO ts_kv_latest (entity_id, key, ts, bool_v, str_v, long_v, dbl_v, json_v)");
+            lines.add("SELECT DISTINCT ON (i.entity_id, d.key_id) i.entity_id, d.key_id, i.ts, i.bool_v, i.str_v, i.long_v, i.dbl_v, i.json_v");
+            lines.add("FROM ts_kv_import i JOIN ts_kv_dictionary d ON d.key = i.key ORDER BY i.entity_id, d.key_id, i.ts DESC");
+            lines.add("ON CONFLICT (entity_id, key) DO UPDATE SET ts = excluded.ts, bool_v = excluded.bool_v, str_v = excluded.str_v,");
+            lines.add("    long_v = excluded.long_v, dbl_v = excluded.dbl_v, json_v = excluded.json_v WHERE ts_kv_latest.ts <= excluded.ts;");
+            lines.add("TRUNCATE ts_kv_import;");
+        }
+        Files.write(this.solutionDirectory.resolve(POSTGRES).resolve("load.sql"), lines, StandardCharsets.UTF_8);
+    }
+
+    private void writeCassandraPartitions() throws IOException {
+        Path path = this.solutionDirectory.resolve(CASSANDRA).resolve("ts_kv_partitions_cf.csv");
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (List<Object> partition : this.cassandraPartitions) {
+                CSV_FORMAT.printRecord(writer, EntityType.DEVICE, partition.get(0), partition.get(1), partition.get(2));
+            }
+        }
+    }
+
+    private void writeCassandraScript() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("-- Loads the exported telemetry into ThingsBoard Cassandra (MONTHS partitioning), run from this directory:");
+        lines.add("--   cqlsh -k thingsboard -f load.cql");
+        lines.add("COPY ts_kv_partitions_cf (entity_type, entity_id, key, partition) FROM 'ts_kv_partitions_cf.csv';");
+        for (MonthFile file : getFiles(CASSANDRA)) {
+            lines.add("COPY ts_kv_cf (entity_type, entity_id, key, partition, ts, bool_v, str_v, long_v, dbl_v, json_v) FROM '"
+                    + file.getPath().getFileName() + "';"
+            );
+        }
+        Files.write(this.solutionDirectory.resolve(CASSANDRA).resolve("load.cql"), lines, StandardCharsets.UTF_8);
+    }
+
+    private static long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static String suffixOf(YearMonth month) {
+        return String.format(Locale.US, "%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+
+    /**
+     * Rows of a month are collected in memory and appended to the month file by large pieces,
+     * so parallel uploads of different devices do not contend for the files on every point.
+     */
+    private class DeviceRows {
+
+        private final UUID deviceId;
+        private final String key;
+        private final StringBuilder postgresRows = new StringBuilder();
+        private final StringBuilder cassandraRows = new StringBuilder();
+        private YearMonth month;
+        private long monthStart;
+        private long monthEnd;
+
+        private DeviceRows(UUID deviceId, String key) {
+            this.deviceId = deviceId;
+            this.key = key;
+        }
+
+        private void add(long ts, Double doubleValue, String stringValue) throws IOException {
+            if (this.month == null || ts < this.monthStart || this.monthEnd <= ts) {
+                finish();
+                this.month = YearMonth.from(Instant.ofEpochMilli(ts).atZone(ZoneOffset.UTC));
+                this.monthStart = startOf(this.month);
+                this.monthEnd = startOf(this.month.plusMonths(1));
+            }
+            if (postgres) {
+                CSV_FORMAT.printRecord(this.postgresRows, this.deviceId, this.key, ts, null, stringValue, null, doubleValue, null);
+            }
+            if (cassandra) {
+                CSV_FORMAT.printRecord(this.cassandraRows, EntityType.DEVICE, this.deviceId, this.key, this.monthStart, ts, null, stringValue, null, doubleValue, null);
+            }
+            points.incrementAndGet();
+            if (FLUSH_CHARS <= this.postgresRows.length() + this.cassandraRows.length()) {
+                finish();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (this.month != null) {
+                append(this.month, this.deviceId, this.key, this.postgresRows, this.cassandraRows);
+            }
+        }
+    }
+
+    private static class MonthFile {
+
+        @Getter
+        private final Path path;
+        @Getter
+        private final YearMonth month;
+        private BufferedWriter writer;
+
+        private MonthFile(Path path, YearMonth month) {
+            this.path = path;
+            this.month = month;
+        }
+
+        private synchronized void append(CharSequence rows) throws IOException {
+            if (this.writer == null) {
+                this.writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8);
+            }
+            this.writer.append(rows);
+        }
+
+        private synchronized void flush() throws IOException {
+            if (this.writer != null) {
+                this.writer.flush();
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            if (this.writer != null) {
+                this.writer.close();
+                this.writer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package org.thingsboard.trendz.generator.service.journal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of a solution generation: created entity ids, device access tokens and the timestamp
+ * of the last telemetry point acknowledged by the server per device and key, one JSON object per line.
+ * Entries are forced to the disk after every {@code syncEvery} entries and at least every {@code syncInterval} ms,
+ * so a crash loses at most the last group. The {@code resume} mode reads the journal back, finds the entities
+ * by it and sends only the telemetry after the acknowledged timestamps.
+ * The journal holds device access tokens, so the file is readable and writable by its owner only.
+ */
+@Slf4j
+@Service
+public class GenerationJournal {
+
+    public static final long NOT_ACKNOWLEDGED = Long.MIN_VALUE;
+    private static final String FILE_PREFIX = "journal-";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    private final boolean enabled;
+    private final int syncEvery;
+    private final long syncInterval;
+    private final Path workDirectory;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, UUID> entities = new ConcurrentHashMap<>();
+    private final Map<UUID, String> accessTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> acknowledged = new ConcurrentHashMap<>();
+
+    private volatile FileChannel channel;
+    private ScheduledFuture<?> syncTask;
+    private int unsynced;
+
+    @Autowired
+    public GenerationJournal(
+            @Value("${generator.journal.enabled}") boolean enabled,
+            @Value("${generator.journal.syncEvery}") int syncEvery,
+            @Value("${generator.journal.syncInterval}") long syncInterval,
+            @Value("${generator.workDirectory}") String workDirectory
+    ) {
+        this.enabled = enabled;
+        this.syncEvery = syncEvery;
+        this.syncInterval = syncInterval;
+        this.workDirectory = Path.of(workDirectory);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        close();
+        this.scheduler.shutdownNow();
+    }
+
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Starts a new journal of the solution, or continues the existing one if {@code resume} is set.
+     */
+    public synchronized void open(String solutionName, boolean resume) {
+        if (!this.enabled) {
+            if (resume) {
+                throw new IllegalStateException("Resume requires the generation journal, see generator.journal.enabled");
+            }
+            return;
+        }
+        close();
+        Path file = getFile(solutionName);
+        try {
+            Files.createDirectories(this.workDirectory);
+            if (resume) {
+                if (!Files.exists(file)) {
+                    throw new IllegalStateException("There is no generation journal to resume: " + file);
+                }
+                this.channel = openFile(file, Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE));
+                restore(file);
+            } else {
+                this.channel = openFile(file, Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Can not open generation journal: " + file, e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        this.syncTask = this.scheduler.scheduleWithFixedDelay(this::sync, this.syncInterval, this.syncInterval, TimeUnit.MILLISECONDS);
+        log.info("Generation journal is opened: {}", file);
+    }
+
+    public synchronized void close() {
+        if (this.channel == null) {
+            return;
+        }
+        if (this.syncTask != null) {
+            this.syncTask.cancel(false);
+            this.syncTask = null;
+        }
+        try {
+            sync();
+            this.channel.close();
+        } catch (IOException e) {
+            log.warn("Can not close generation journal", e);
+        }
+        this.channel = null;
+        this.entities.clear();
+        this.accessTokens.clear();
+        this.acknowledged.clear();
+    }
+
+    public void delete(String solutionName) {
+        Path file = getFile(solutionName);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Can not delete generation journal: " + file, e);
+        }
+    }
+
+
+    public void recordEntity(EntityType entityType, String name, UUID id) {
+        if (isOpen()) {
+            this.entities.put(entityKey(entityType, name), id);
+            append(new Entry(EntryType.ENTITY, entityType, name, id, null, null, null));
+        }
+    }
+
+    public void recordAccessToken(UUID deviceId, String accessToken) {
+        if (isOpen() && !accessToken.equals(this.accessTokens.put(deviceId, accessToken))) {
+            append(new Entry(EntryType.CREDENTIALS, null, null, deviceId, accessToken, null, null));
+        }
+    }
+
+    public void acknowledge(String accessToken, String key, long ts) {
+        if (isOpen()) {
+            this.acknowledged.merge(ackKey(accessToken, key), ts, Math::max);
+            append(new Entry(EntryType.ACK, null, null, null, accessToken, key, ts));
+        }
+    }
+
+    public Optional<UUID> getEntityId(EntityType entityType, String name) {
+        return Optional.ofNullable(this.entities.get(entityKey(entityType, name)));
+    }
+
+    public Optional<String> getAccessToken(UUID deviceId) {
+        return Optional.ofNullable(this.accessTokens.get(deviceId));
+    }
+
+    /**
+     * Timestamp of the last point of the key sent to the device successfully, {@link #NOT_ACKNOWLEDGED} if there is none.
+     */
+    public long getAcknowledgedTs(String accessToken, String key) {
+        return this.acknowledged.getOrDefault(ackKey(accessToken, key), NOT_ACKNOWLEDGED);
+    }
+
+
+    /**
+     * A new file is created owner-only, the permissions of an existing one are reset as it may be left by an older version.
+     */
+    private FileChannel openFile(Path file, Set<OpenOption> options) throws IOException {
+        if (!Files.getFileStore(this.workDirectory).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return FileChannel.open(file, options);
+        }
+        FileChannel fileChannel = FileChannel.open(file, options, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        try {
+            Files.setPosixFilePermissions(file, OWNER_ONLY);
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+        return fileChannel;
+    }
+
+    private boolean isOpen() {
+        return this.channel != null;
+    }
+
+    private synchronized void append(Entry entry) {
+        if (this.channel == null) {
+            return;
+        }
+        byte[] line = (JsonUtils.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+            this.unsynced++;
+            if (this.syncEvery <= this.unsynced) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write generation journal", e);
+        }
+    }
+
+    private synchronized void sync() {
+        if (this.channel == null || this.unsynced == 0) {
+            return;
+        }
+        try {
+            this.channel.force(false);
+            this.unsynced = 0;
+        } catch (IOException e) {
+            log.warn("Can not sync generation journal", e);
+        }
+    }
+
+    /**
+     * Reads the entries and cuts off a partially written last line, so the next entries are appended after a complete one.
+     */
+    private void restore(Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        int count = 0;
+        int lineStart = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            String line = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+            if (line.isBlank()) {
+                continue;
+            }
+            apply(JsonUtils.fromJson(line, Entry.class));
+            count++;
+        }
+        if (lineStart < content.length) {
+            log.warn("Generation journal has an incomplete last entry, it is dropped: {} bytes", content.length - lineStart);
+        }
+        this.channel.truncate(lineStart);
+        this.channel.position(lineStart);
+        log.info("Generation journal is restored: {} entries, {} entities, {} devices, {} acknowledged keys",
+                count, this.entities.size(), this.accessTokens.size(), this.acknowledged.size()
+        );
+    }
+
+    private void apply(Entry entry) {
+        switch (entry.getType()) {
+            case ENTITY:
+                this.entities.put(entityKey(entry.getEntityType(), entry.getName()), entry.getId());
+                break;
+            case CREDENTIALS:
+                this.accessTokens.put(entry.getId(), entry.getToken());
+                break;
+            case ACK:
+                this.acknowledged.merge(ackKey(entry.getToken(), entry.getKey()), entry.getTs(), Math::max);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported journal entry type: " + entry.getType());
+        }
+    }
+
+    private Path getFile(String solutionName) {
+        return this.workDirectory.resolve(FILE_PREFIX + solutionName + ".jsonl");
+    }
+
+    private static String entityKey(EntityType entityType, String name) {
+        return entityType + " " + name;
+    }
+
+    private static String ackKey(String accessToken, String key) {
+        return accessToken + " " + key;
+    }
+
+
+    private enum EntryType {
+        ENTITY, CREDENTIALS, ACK
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class Entry {
+        private EntryType type;
+        private EntityType entityType;
+        private String name;
+        private UUID id;
+        private String token;
+        private String key;
+        private Long ts;
+    }
+}
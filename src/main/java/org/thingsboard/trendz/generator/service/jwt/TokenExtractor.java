@@ -23,4 +23,9 @@ public class TokenExtractor {
         Claim tenantIdClaim = claims.get(KEY_TENANT_ID);
         return UUID.fromString(tenantIdClaim.asString());
     }
+
+    public long getExpirationTime(AuthToken authToken) {
+        DecodedJWT jwt = JWT.decode(authToken.getToken());
+        return jwt.getExpiresAt().getTime();
+    }
 }
@@ -0,0 +1,126 @@
+package org.thingsboard.trendz.generator.service.jwt;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.trendz.generator.model.rest.AuthToken;
+import org.thingsboard.trendz.generator.model.rest.LoginRequest;
+import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the JWT of the API user. The expiration time is decoded once per login, and the token is refreshed
+ * in the background {@code tb.api.token.refreshAhead} ms before it expires. Callers block only when there is
+ * no valid token at all; concurrent callers then wait for the same login request.
+ */
+@Slf4j
+@Service
+public class TokenManager {
+
+    private final String tbApiUser;
+    private final String tbApiPass;
+    private final long refreshAhead;
+    private final TbRestClient tbRestClient;
+    private final TokenExtractor tokenExtractor;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<CachedToken>> refreshing = new AtomicReference<>();
+
+    private volatile CachedToken current;
+
+    @Autowired
+    public TokenManager(
+            @Value("${tb.api.username}") String tbApiUser,
+            @Value("${tb.api.password}") String tbApiPass,
+            @Value("${tb.api.token.refreshAhead}") long refreshAhead,
+            TbRestClient tbRestClient,
+            TokenExtractor tokenExtractor
+    ) {
+        this.tbApiUser = tbApiUser;
+        this.tbApiPass = tbApiPass;
+        this.refreshAhead = refreshAhead;
+        this.tbRestClient = tbRestClient;
+        this.tokenExtractor = tokenExtractor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.scheduler.shutdownNow();
+    }
+
+
+    public String getToken() {
+        CachedToken token = this.current;
+        long now = System.currentTimeMillis();
+        if (token != null && now < token.expirationTime) {
+            if (token.expirationTime - this.refreshAhead <= now) {
+                refresh();
+            }
+            return token.token;
+        }
+
+        try {
+            return refresh().join().token;
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Login request is failed!", e.getCause());
+        }
+    }
+
+
+    private CompletableFuture<CachedToken> refresh() {
+        CompletableFuture<CachedToken> future = new CompletableFuture<>();
+        CompletableFuture<CachedToken> inFlight = this.refreshing.compareAndExchange(null, future);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        this.scheduler.execute(() -> {
+            try {
+                CachedToken token = login();
+                this.current = token;
+                scheduleRefresh(token);
+                future.complete(token);
+            } catch (Throwable e) {
+                log.warn("Token refresh is failed", e);
+                future.completeExceptionally(e);
+            } finally {
+                this.refreshing.set(null);
+            }
+        });
+        return future;
+    }
+
+    private CachedToken login() {
+        AuthToken authToken = this.tbRestClient.login(new LoginRequest(this.tbApiUser, this.tbApiPass));
+        long expirationTime = this.tokenExtractor.getExpirationTime(authToken);
+        log.debug("Token is received, expires in {} s", TimeUnit.MILLISECONDS.toSeconds(expirationTime - System.currentTimeMillis()));
+        return new CachedToken(authToken.getToken(), expirationTime);
+    }
+
+    private void scheduleRefresh(CachedToken token) {
+        long delay = token.expirationTime - this.refreshAhead - System.currentTimeMillis();
+        if (0 < delay) {
+            this.scheduler.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    @AllArgsConstructor
+    private static class CachedToken {
+        private final String token;
+        private final long expirationTime;
+    }
+}
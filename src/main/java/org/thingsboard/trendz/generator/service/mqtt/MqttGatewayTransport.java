@@ -0,0 +1,464 @@
+package org.thingsboard.trendz.generator.service.mqtt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.trendz.generator.model.tb.AlignedTelemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.journal.GenerationJournal;
+import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Sends telemetry of all devices through one MQTT connection of a gateway device:
+ * {"Device A": [{"ts": .., "values": {..}}, ..], "Device B": [..]} to {@value #TOPIC}.
+ * Points of a device are packed into fragments of up to {@code maxPayloadBytes}, fragments of different devices
+ * share a message while it fits, so small devices do not cost a message each. At most {@code maxInFlight} messages
+ * wait for the broker acknowledgement. The journal acknowledgement of a device key set advances in send order:
+ * only up to the last fragment before which every fragment of the key set is delivered, so a later message that is
+ * delivered before an earlier failed one does not move the resume point past the lost points.
+ * Devices, relations and attributes are still created by {@link TbRestClient}.
+ */
+@Slf4j
+@Service
+public class MqttGatewayTransport {
+
+    static final String TOPIC = "v1/gateway/telemetry";
+    private static final int POINTS_PER_BATCH = 1024;
+
+    private final boolean enabled;
+    private final String host;
+    private final String gatewayToken;
+    private final String gatewayName;
+    private final int qos;
+    private final int maxInFlight;
+    private final int maxPayloadBytes;
+    private final int keepAlive;
+    private final int connectTimeout;
+    private final int telemetryDecimalPlaces;
+    private final TbRestClient tbRestClient;
+    private final GenerationJournal generationJournal;
+
+    private final Semaphore inFlight;
+    private final Map<String, byte[]> deviceNames = new ConcurrentHashMap<>();
+    private final Map<List<String>, Deque<Delivery>> deliveries = new HashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Message message;
+
+    private MqttAsyncClient client;
+
+    @Autowired
+    public MqttGatewayTransport(
+            @Value("${tb.mqtt.enabled}") boolean enabled,
+            @Value("${tb.mqtt.host}") String host,
+            @Value("${tb.mqtt.gatewayToken}") String gatewayToken,
+            @Value("${tb.mqtt.gatewayName}") String gatewayName,
+            @Value("${tb.mqtt.qos}") int qos,
+            @Value("${tb.mqtt.maxInFlight}") int maxInFlight,
+            @Value("${tb.mqtt.maxPayloadBytes}") int maxPayloadBytes,
+            @Value("${tb.mqtt.keepAlive}") int keepAlive,
+            @Value("${tb.mqtt.connectTimeout}") int connectTimeout,
+            @Value("${tb.api.telemetryDecimalPlaces}") int telemetryDecimalPlaces,
+            TbRestClient tbRestClient,
+            GenerationJournal generationJournal
+    ) {
+        if (qos < 0 || 2 < qos) {
+            throw new IllegalArgumentException("MQTT QoS must be 0, 1 or 2: " + qos);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("MQTT max in flight messages must be positive: " + maxInFlight);
+        }
+        if (maxPayloadBytes <= 2) {
+            throw new IllegalArgumentException("MQTT max payload size is too small: " + maxPayloadBytes);
+        }
+        this.enabled = enabled;
+        this.host = host;
+        this.gatewayToken = gatewayToken;
+        this.gatewayName = gatewayName;
+        this.qos = qos;
+        this.maxInFlight = maxInFlight;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.keepAlive = keepAlive;
+        this.connectTimeout = connectTimeout;
+        this.telemetryDecimalPlaces = telemetryDecimalPlaces;
+        this.tbRestClient = tbRestClient;
+        this.generationJournal = generationJournal;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.message = new Message(maxPayloadBytes);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (this.client == null) {
+            return;
+        }
+        try {
+            if (this.client.isConnected()) {
+                this.client.disconnect().waitForCompletion(TimeUnit.SECONDS.toMillis(this.connectTimeout));
+            }
+            this.client.close();
+        } catch (MqttException e) {
+            log.warn("Can not close MQTT connection", e);
+        }
+        this.client = null;
+    }
+
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Same keys and journal acknowledgements as {@link TbRestClient#pushTelemetry(String, List)},
+     * so a generation can be resumed by either transport.
+     */
+    public void pushTelemetry(String accessToken, List<? extends TelemetrySource<?>> sources) {
+        checkFailure();
+        byte[] deviceName = getDeviceName(accessToken);
+        String key = new AlignedTelemetry(sources).getName();
+        AlignedTelemetry telemetry = new AlignedTelemetry(sources.stream()
+                .map(source -> skipAcknowledged(accessToken, key, source))
+                .collect(Collectors.toList())
+        );
+
+        // whole batches are written into one buffer, the point boundaries are taken from the generator output position
+        PointBuffer buffer = new PointBuffer();
+        int[] pointEnds = new int[POINTS_PER_BATCH];
+        Fragment fragment = new Fragment(accessToken, key, deviceName, this.maxPayloadBytes - 2);
+        try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(buffer)) {
+            generator.setRootValueSeparator(null);
+            Iterator<AlignedTelemetry.Batch> batches = telemetry.batchIterator(POINTS_PER_BATCH);
+            while (batches.hasNext()) {
+                AlignedTelemetry.Batch batch = batches.next();
+                buffer.reset();
+                batch.writePoints(generator, this.telemetryDecimalPlaces, index -> pointEnds[index] = buffer.size() + generator.getOutputBuffered());
+                generator.flush();
+                int start = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    fragment = addPoint(fragment, buffer.array(), start, pointEnds[i] - start, batch.getTs(i));
+                    start = pointEnds[i];
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not serialize telemetry: " + key, e);
+        }
+        if (!fragment.isEmpty()) {
+            publish(fragment);
+        }
+    }
+
+    /**
+     * Sends the partially filled message, waits until all messages are delivered and rethrows the first failure.
+     */
+    public void flush() {
+        synchronized (this.message) {
+            if (!this.message.isEmpty()) {
+                send(this.message.take());
+            }
+        }
+        try {
+            this.inFlight.acquire(this.maxInFlight);
+            this.inFlight.release(this.maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for MQTT deliveries", e);
+        }
+
+        Throwable error = this.failure.getAndSet(null);
+        if (error != null) {
+            throw error instanceof RuntimeException
+                    ? (RuntimeException) error
+                    : new IllegalStateException("MQTT telemetry delivery is failed", error);
+        }
+    }
+
+
+    private Fragment addPoint(Fragment fragment, byte[] bytes, int offset, int length, long ts) {
+        if (fragment.add(bytes, offset, length, ts)) {
+            return fragment;
+        }
+        if (!fragment.isEmpty()) {
+            publish(fragment);
+            fragment = fragment.next();
+        }
+        if (!fragment.add(bytes, offset, length, ts)) {
+            throw new IllegalStateException("Telemetry point of " + fragment.key + " does not fit into MQTT payload of " + this.maxPayloadBytes + " bytes");
+        }
+        return fragment;
+    }
+
+    private void publish(Fragment fragment) {
+        synchronized (this.message) {
+            synchronized (this.deliveries) {
+                this.deliveries.computeIfAbsent(List.of(fragment.accessToken, fragment.key), k -> new ArrayDeque<>())
+                        .addLast(fragment.delivery);
+            }
+            if (!this.message.add(fragment)) {
+                send(this.message.take());
+                this.message.add(fragment);
+            }
+        }
+    }
+
+    private void send(PendingMessage pending) {
+        checkFailure();
+        try {
+            this.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for MQTT in flight window", e);
+        }
+        try {
+            getClient().publish(TOPIC, pending.payload, this.qos, false, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    acknowledgeDelivered(pending.fragments);
+                    inFlight.release();
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable exception) {
+                    log.error("MQTT telemetry message is not delivered: {} bytes", pending.payload.length, exception);
+                    failure.compareAndSet(null, exception);
+                    inFlight.release();
+                }
+            });
+        } catch (MqttException | RuntimeException e) {
+            this.inFlight.release();
+            IllegalStateException exception = new IllegalStateException("Can not publish MQTT telemetry message", e);
+            this.failure.compareAndSet(null, exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * A failed fragment is never delivered, so it stays at the head of its queue and stops the acknowledgements of its key set.
+     */
+    private void acknowledgeDelivered(List<Fragment> fragments) {
+        synchronized (this.deliveries) {
+            for (Fragment fragment : fragments) {
+                fragment.delivery.delivered = true;
+                List<String> deliveryKey = List.of(fragment.accessToken, fragment.key);
+                Deque<Delivery> queue = this.deliveries.get(deliveryKey);
+                Delivery lastDelivered = null;
+                while (!queue.isEmpty() && queue.peekFirst().delivered) {
+                    lastDelivered = queue.pollFirst();
+                }
+                if (queue.isEmpty()) {
+                    this.deliveries.remove(deliveryKey);
+                }
+                if (lastDelivered != null) {
+                    this.generationJournal.acknowledge(fragment.accessToken, fragment.key, lastDelivered.lastTs);
+                }
+            }
+        }
+    }
+
+    private void checkFailure() {
+        Throwable error = this.failure.get();
+        if (error != null) {
+            throw new IllegalStateException("Skipped after a failed MQTT telemetry delivery", error);
+        }
+    }
+
+    synchronized MqttAsyncClient getClient() throws MqttException {
+        if (this.client != null) {
+            return this.client;
+        }
+        String token = this.gatewayToken.isBlank()
+                ? getGatewayToken()
+                : this.gatewayToken;
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setUserName(token);
+        options.setCleanSession(true);
+        options.setAutomaticReconnect(true);
+        options.setMaxInflight(this.maxInFlight);
+        options.setKeepAliveInterval(this.keepAlive);
+        options.setConnectionTimeout(this.connectTimeout);
+
+        MqttAsyncClient mqttClient = new MqttAsyncClient(this.host, "solution-template-generator-" + UUID.randomUUID(), new MemoryPersistence());
+        mqttClient.connect(options).waitForCompletion(TimeUnit.SECONDS.toMillis(this.connectTimeout));
+        log.info("MQTT gateway is connected: {}", this.host);
+        this.client = mqttClient;
+        return mqttClient;
+    }
+
+    private String getGatewayToken() {
+        Device gateway = this.tbRestClient.createGatewayIfNotExists(this.gatewayName);
+        return this.tbRestClient.getDeviceCredentials(gateway.getUuidId()).getCredentialsId();
+    }
+
+    private byte[] getDeviceName(String accessToken) {
+        return this.deviceNames.computeIfAbsent(accessToken, token -> {
+            UUID deviceId = this.tbRestClient.getDeviceIdByAccessToken(token)
+                    .orElseThrow(() -> new IllegalStateException("Device of the access token is unknown, its credentials must be requested first"));
+            String name = this.tbRestClient.getDeviceById(deviceId)
+                    .map(Device::getName)
+                    .orElseThrow(() -> new IllegalStateException("Device is not found: " + deviceId));
+            try {
+                return JsonUtils.getObjectMapper().writeValueAsBytes(name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> TelemetrySource<T> skipAcknowledged(String accessToken, String key, TelemetrySource<T> source) {
+        long acknowledgedTs = this.generationJournal.getAcknowledgedTs(accessToken, key);
+        return acknowledgedTs == GenerationJournal.NOT_ACKNOWLEDGED
+                ? source
+                : source.after(acknowledgedTs);
+    }
+
+
+    /**
+     * "Device name": [points] of one device and key set.
+     */
+    private static class Fragment {
+
+        private final String accessToken;
+        private final String key;
+        private final byte[] deviceName;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxBytes;
+        private final Delivery delivery = new Delivery();
+        private boolean empty = true;
+
+        private Fragment(String accessToken, String key, byte[] deviceName, int maxBytes) {
+            this.accessToken = accessToken;
+            this.key = key;
+            this.deviceName = deviceName;
+            this.maxBytes = maxBytes;
+            this.bytes.writeBytes(deviceName);
+            this.bytes.write(':');
+            this.bytes.write('[');
+        }
+
+        private Fragment next() {
+            return new Fragment(this.accessToken, this.key, this.deviceName, this.maxBytes);
+        }
+
+        private boolean isEmpty() {
+            return this.empty;
+        }
+
+        private int size() {
+            return this.bytes.size() + 1;
+        }
+
+        private boolean add(byte[] point, int offset, int length, long ts) {
+            if (this.maxBytes < size() + length + (this.empty ? 0 : 1)) {
+                return false;
+            }
+            if (!this.empty) {
+                this.bytes.write(',');
+            }
+            this.bytes.write(point, offset, length);
+            this.empty = false;
+            this.delivery.lastTs = ts;
+            return true;
+        }
+
+        private void writeTo(ByteArrayOutputStream out) {
+            out.writeBytes(this.bytes.toByteArray());
+            out.write(']');
+        }
+    }
+
+    /**
+     * Fragments of several devices joined into one JSON object.
+     */
+    private static class Message {
+
+        private final int maxBytes;
+        private final List<Fragment> fragments = new ArrayList<>();
+        private int size = 2;
+
+        private Message(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private boolean isEmpty() {
+            return this.fragments.isEmpty();
+        }
+
+        private boolean add(Fragment fragment) {
+            int added = fragment.size() + (isEmpty() ? 0 : 1);
+            if (!isEmpty() && this.maxBytes < this.size + added) {
+                return false;
+            }
+            this.fragments.add(fragment);
+            this.size += added;
+            return true;
+        }
+
+        private PendingMessage take() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(this.size);
+            out.write('{');
+            for (int i = 0; i < this.fragments.size(); i++) {
+                if (0 < i) {
+                    out.write(',');
+                }
+                this.fragments.get(i).writeTo(out);
+            }
+            out.write('}');
+            PendingMessage pending = new PendingMessage(out.toByteArray(), new ArrayList<>(this.fragments));
+            this.fragments.clear();
+            this.size = 2;
+            return pending;
+        }
+    }
+
+    /**
+     * Gives the written bytes without copying them.
+     */
+    private static class PointBuffer extends ByteArrayOutputStream {
+
+        private byte[] array() {
+            return this.buf;
+        }
+    }
+
+    /**
+     * Last timestamp of a published fragment, kept until the fragments published before it are delivered.
+     */
+    private static class Delivery {
+        private long lastTs;
+        private boolean delivered;
+    }
+
+    @AllArgsConstructor
+    private static class PendingMessage {
+        private final byte[] payload;
+        private final List<Fragment> fragments;
+    }
+}
@@ -0,0 +1,40 @@
+package org.thingsboard.trendz.generator.service.provisioning;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks of {@link ProvisioningGraph}s. The pool size is the global limit of concurrent provisioning requests,
+ * shared by all graphs.
+ */
+@Service
+public class ProvisioningExecutor {
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public ProvisioningExecutor(@Value("${tb.api.provisioning.threads}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "provisioning-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+
+    public ProvisioningGraph newGraph() {
+        return new ProvisioningGraph(this.executor);
+    }
+}
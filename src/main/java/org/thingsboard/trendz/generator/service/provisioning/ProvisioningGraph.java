@@ -0,0 +1,108 @@
+package org.thingsboard.trendz.generator.service.provisioning;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Provisioning steps with their dependencies: a task starts as soon as the tasks it depends on are finished,
+ * so the total time is bounded by the longest chain of dependent requests instead of the sum of all of them.
+ * After the first failure the tasks which have not started yet are skipped, {@link #await()} rethrows that failure.
+ * {@link #cancel()} stops the graph when the caller fails before awaiting it.
+ */
+@Slf4j
+public class ProvisioningGraph {
+
+    private final Executor executor;
+    private final Queue<CompletableFuture<?>> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ProvisioningGraph(Executor executor) {
+        this.executor = executor;
+    }
+
+
+    public <T> CompletableFuture<T> submit(Supplier<T> action) {
+        return register(CompletableFuture.supplyAsync(() -> execute(action), this.executor));
+    }
+
+    public <A, T> CompletableFuture<T> submit(CompletableFuture<A> dependency, Function<A, T> action) {
+        return register(dependency.thenApplyAsync(a -> execute(() -> action.apply(a)), this.executor));
+    }
+
+    public <A, B, T> CompletableFuture<T> submit(CompletableFuture<A> first, CompletableFuture<B> second, BiFunction<A, B, T> action) {
+        return register(first.thenCombineAsync(second, (a, b) -> execute(() -> action.apply(a, b)), this.executor));
+    }
+
+    public CompletableFuture<Void> run(Runnable action, CompletableFuture<?>... dependencies) {
+        return register(CompletableFuture.allOf(dependencies).thenRunAsync(() -> execute(() -> {
+            action.run();
+            return null;
+        }), this.executor));
+    }
+
+    public void await() {
+        int count = 0;
+        int failedCount = 0;
+        CompletableFuture<?> task;
+        while ((task = this.tasks.poll()) != null) {
+            count++;
+            try {
+                task.join();
+            } catch (CompletionException | CancellationException e) {
+                failedCount++;
+            }
+        }
+
+        Throwable error = this.failure.get();
+        if (error != null) {
+            log.error("Provisioning tasks failed or skipped: {}/{}", failedCount, count);
+            throw error instanceof RuntimeException
+                    ? (RuntimeException) error
+                    : new IllegalStateException("Provisioning task is failed", error);
+        }
+        log.debug("Provisioning tasks are finished: {}", count);
+    }
+
+    /**
+     * Skips the tasks which have not started yet and waits for the running ones without rethrowing their failures.
+     */
+    public void cancel() {
+        this.failure.compareAndSet(null, new CancellationException("Provisioning is cancelled"));
+        CompletableFuture<?> task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.join();
+            } catch (CompletionException | CancellationException e) {
+                log.debug("Provisioning task is not finished", e);
+            }
+        }
+    }
+
+
+    private <T> T execute(Supplier<T> action) {
+        if (this.failure.get() != null) {
+            throw new CancellationException("Skipped after a failure of another provisioning task");
+        }
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            this.failure.compareAndSet(null, e);
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> register(CompletableFuture<T> task) {
+        this.tasks.add(task);
+        return task;
+    }
+}
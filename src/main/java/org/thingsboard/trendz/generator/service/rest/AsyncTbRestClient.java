@@ -0,0 +1,299 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+import org.thingsboard.server.common.data.Customer;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.relation.EntityRelation;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.trendz.generator.model.tb.Attribute;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.jwt.TokenManager;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Non-blocking sibling of {@link TbRestClient} on top of {@link HttpClient}, for the calls that solutions make
+ * in bulk: entity creation, credentials, relations and attributes.
+ * A few threads handle all responses; the number of requests in flight is bounded by {@code tb.api.async.maxInFlight},
+ * the rest wait in a queue without blocking anybody. The JWT is taken when a request leaves the queue, so queued requests
+ * do not carry an expired token. Failed requests complete with the same exceptions as RestTemplate throws.
+ * Created entities and credentials go to the metadata cache and the generation journal like those of {@link TbRestClient};
+ * telemetry goes through {@link TelemetryUploader}, so it is journaled and sent by MQTT or exported the same way.
+ * The pool and the HttpClient are started by the first request.
+ */
+@Slf4j
+@Service
+public class AsyncTbRestClient {
+
+    private final String baseURL;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final int threads;
+    private final TbRestClient tbRestClient;
+    private final TelemetryUploader telemetryUploader;
+    private final TokenManager tokenManager;
+    private final HttpMetrics httpMetrics;
+    private final Semaphore inFlight;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private ExecutorService executor;
+    private HttpClient httpClient;
+
+    @Autowired
+    public AsyncTbRestClient(
+            @Value("${tb.api.host}") String tbApiHost,
+            @Value("${tb.api.http.connectTimeout}") long connectTimeout,
+            @Value("${tb.api.http.readTimeout}") long readTimeout,
+            @Value("${tb.api.async.threads}") int threads,
+            @Value("${tb.api.async.maxInFlight}") int maxInFlight,
+            TbRestClient tbRestClient,
+            TelemetryUploader telemetryUploader,
+            TokenManager tokenManager,
+            HttpMetrics httpMetrics
+    ) {
+        this.baseURL = tbApiHost;
+        this.connectTimeout = Duration.ofMillis(connectTimeout);
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.threads = threads;
+        this.tbRestClient = tbRestClient;
+        this.telemetryUploader = telemetryUploader;
+        this.tokenManager = tokenManager;
+        this.httpMetrics = httpMetrics;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+
+    public CompletableFuture<Customer> createCustomer(String name) {
+        var customer = new Customer();
+        customer.setTitle(name);
+        return post("/api/customer", customer, Customer.class)
+                .thenApply(this.tbRestClient::registerCustomer);
+    }
+
+    public CompletableFuture<Asset> createAsset(String name, String type, Set<Attribute<?>> attributes) {
+        var asset = new Asset();
+        asset.setName(name);
+        asset.setType(type);
+        return post("/api/asset", asset, Asset.class)
+                .thenCompose(assetAdded -> nonNull(attributes) && !attributes.isEmpty()
+                        ? setEntityAttributes(assetAdded.getUuidId(), EntityType.ASSET, Attribute.Scope.SERVER_SCOPE, attributes).thenApply(v -> assetAdded)
+                        : CompletableFuture.completedFuture(assetAdded)
+                )
+                .thenApply(this.tbRestClient::registerAsset);
+    }
+
+    public CompletableFuture<Device> createDevice(String name, String type, Set<Attribute<?>> attributes) {
+        return createDevice(name, type, null, attributes);
+    }
+
+    public CompletableFuture<Device> createDevice(String name, String type, EntityId ownerId, Set<Attribute<?>> attributes) {
+        var device = new Device();
+        device.setName(name);
+        device.setType(type);
+        device.setOwnerId(ownerId);
+        return post("/api/device", device, Device.class)
+                .thenCompose(deviceAdded -> nonNull(attributes) && !attributes.isEmpty()
+                        ? setEntityAttributes(deviceAdded.getUuidId(), EntityType.DEVICE, Attribute.Scope.SERVER_SCOPE, attributes).thenApply(v -> deviceAdded)
+                        : CompletableFuture.completedFuture(deviceAdded)
+                )
+                .thenApply(this.tbRestClient::registerDevice);
+    }
+
+    /**
+     * The lookup is done by {@link TbRestClient} and is local when the journal or the metadata cache has the device.
+     */
+    public CompletableFuture<Device> createDeviceIfNotExists(String name, String type, EntityId ownerId, Set<Attribute<?>> attributes) {
+        return this.tbRestClient.findExistingDevice(name, type)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> createDevice(name, type, ownerId, attributes));
+    }
+
+    public CompletableFuture<DeviceCredentials> getDeviceCredentials(UUID id) {
+        return this.tbRestClient.findKnownCredentials(id)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> send(request("/api/device/" + id + "/credentials").GET(), DeviceCredentials.class)
+                        .thenApply(this.tbRestClient::registerCredentials)
+                );
+    }
+
+    public CompletableFuture<EntityRelation> createRelation(String relationType, EntityId idFrom, EntityId idTo) {
+        EntityRelation relation = new EntityRelation();
+        relation.setFrom(idFrom);
+        relation.setTo(idTo);
+        relation.setType(relationType);
+        return post("/api/relation", relation, EntityRelation.class);
+    }
+
+    public CompletableFuture<Void> setEntityAttributes(UUID entityId, EntityType entityType, Attribute.Scope scope, Set<Attribute<?>> attributes) {
+        String path = "/api/plugins/telemetry/" + entityType + "/" + entityId + "/" + scope;
+        return post(path, TbRestClient.makeAttributesNode(attributes), null);
+    }
+
+    /**
+     * Submits the telemetry to {@link TelemetryUploader}, the future completes when it is sent.
+     * Submitting blocks while the uploader has {@code tb.api.upload.maxInFlight} unfinished uploads.
+     */
+    public CompletableFuture<Void> pushTelemetry(String accessToken, Telemetry<?>... telemetries) {
+        return this.telemetryUploader.pushTelemetry(accessToken, telemetries);
+    }
+
+    public CompletableFuture<Void> pushTelemetry(String accessToken, TelemetrySource<?>... sources) {
+        return this.telemetryUploader.pushTelemetry(accessToken, sources);
+    }
+
+
+    private <T> CompletableFuture<T> post(String path, Object body, Class<T> responseType) {
+        HttpRequest.Builder request = request(path)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString(JsonUtils.toJson(body)));
+        return send(request, responseType);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(this.baseURL + path))
+                .timeout(this.readTimeout);
+    }
+
+    private <T> CompletableFuture<T> send(HttpRequest.Builder request, Class<T> responseType) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.waiting.add(() -> sendNow(request, responseType, result));
+        drain();
+        return result;
+    }
+
+    private <T> void sendNow(HttpRequest.Builder requestBuilder, Class<T> responseType, CompletableFuture<T> result) {
+        HttpRequest request;
+        CompletableFuture<HttpResponse<byte[]>> sent;
+        long startTime = System.nanoTime();
+        try {
+            request = requestBuilder
+                    .setHeader(TbRestRequestInterceptor.JWT_TOKEN_HEADER_PARAM, "Bearer " + this.tokenManager.getToken())
+                    .build();
+            sent = getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            this.inFlight.release();
+            drain();
+            result.completeExceptionally(e);
+            return;
+        }
+        sent.whenComplete((response, error) -> {
+            this.inFlight.release();
+            this.httpMetrics.record(request.method(), request.uri().getPath(),
+                    error == null ? response.statusCode() : -1,
+                    request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L),
+                    error == null ? response.body().length : HttpMetrics.UNKNOWN_SIZE,
+                    System.nanoTime() - startTime
+            );
+            drain();
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            try {
+                result.complete(readResponse(request, response, responseType));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void drain() {
+        while (!this.waiting.isEmpty() && this.inFlight.tryAcquire()) {
+            Runnable task = this.waiting.poll();
+            if (task == null) {
+                this.inFlight.release();
+            } else {
+                task.run();
+            }
+        }
+    }
+
+    private synchronized HttpClient getHttpClient() {
+        if (this.httpClient == null) {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "async-rest-client-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(this.connectTimeout)
+                    .executor(this.executor)
+                    .build();
+            log.info("Async REST client is started: {} threads", this.threads);
+        }
+        return this.httpClient;
+    }
+
+    private static <T> T readResponse(HttpRequest request, HttpResponse<byte[]> response, Class<T> responseType) {
+        int statusCode = response.statusCode();
+        if (statusCode < 200 || 300 <= statusCode) {
+            throw createException(request, response);
+        }
+        if (responseType == null || response.body().length == 0) {
+            return null;
+        }
+        try {
+            return JsonUtils.getObjectMapper().readValue(response.body(), responseType);
+        } catch (IOException e) {
+            throw new IllegalStateException("Json error during deserializing, class:" + responseType.getName(), e);
+        }
+    }
+
+    private static RuntimeException createException(HttpRequest request, HttpResponse<byte[]> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        String message = response.statusCode() + " on " + request.method() + " " + request.uri().getPath();
+        HttpStatus status = HttpStatus.resolve(response.statusCode());
+        if (status == null) {
+            return new UnknownHttpStatusCodeException(message, response.statusCode(), "", headers, response.body(), StandardCharsets.UTF_8);
+        }
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(message, status, status.getReasonPhrase(), headers, response.body(), StandardCharsets.UTF_8);
+        }
+        if (status.is5xxServerError()) {
+            return HttpServerErrorException.create(message, status, status.getReasonPhrase(), headers, response.body(), StandardCharsets.UTF_8);
+        }
+        return new UnknownHttpStatusCodeException(message, response.statusCode(), status.getReasonPhrase(), headers, response.body(), StandardCharsets.UTF_8);
+    }
+}
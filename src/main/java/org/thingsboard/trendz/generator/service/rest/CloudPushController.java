@@ -0,0 +1,143 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD controller of the telemetry push rate in cloud mode, shared by all uploads.
+ * While the smoothed request latency stays under the target, the batch size grows and the delay between
+ * requests shrinks by a fixed step; on HTTP 429/5xx or a latency above the target (or a sudden spike)
+ * the batch size is halved and the delay doubled. Batches are also limited by serialized size,
+ * using the average number of bytes per point observed so far.
+ */
+@Slf4j
+@Service
+public class CloudPushController {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_SPIKE_FACTOR = 3;
+    private static final long DELAY_STEP_MS = 10;
+    private static final int DECREASE_COOLDOWN_BATCHES = 5;
+    private static final int LOG_STATE_EVERY_BATCHES = 100;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final long minDelay;
+    private final long maxDelay;
+    private final long targetLatencyNanos;
+    private final int suppressErrorCount;
+
+    private int batchSize;
+    private long delay;
+    private double latencyNanos = Double.NaN;
+    private double bytesPerPoint = Double.NaN;
+    private int cooldown;
+    private long sentBatches;
+    private long sentPoints;
+    private long sentBytes;
+    private long failures;
+    private long backoffs;
+
+    public CloudPushController(
+            @Value("${tb.api.cloudPush.initialBatchSize}") int initialBatchSize,
+            @Value("${tb.api.cloudPush.minBatchSize}") int minBatchSize,
+            @Value("${tb.api.cloudPush.maxBatchSize}") int maxBatchSize,
+            @Value("${tb.api.cloudPush.maxBatchBytes}") long maxBatchBytes,
+            @Value("${tb.api.cloudPush.initialDelay}") long initialDelay,
+            @Value("${tb.api.cloudPush.minDelay}") long minDelay,
+            @Value("${tb.api.cloudPush.maxDelay}") long maxDelay,
+            @Value("${tb.api.cloudPush.targetLatency}") long targetLatency,
+            @Value("${tb.api.cloudPush.suppressErrorCount}") int suppressErrorCount
+    ) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize || minDelay < 0 || maxDelay < minDelay) {
+            throw new IllegalArgumentException("Invalid cloud push limits: batch size [" + minBatchSize + ", " + maxBatchSize + "], "
+                    + "delay [" + minDelay + ", " + maxDelay + "]");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+        this.suppressErrorCount = suppressErrorCount;
+        this.batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, initialBatchSize));
+        this.delay = Math.max(minDelay, Math.min(maxDelay, initialDelay));
+    }
+
+
+    public int getSuppressErrorCount() {
+        return this.suppressErrorCount;
+    }
+
+    public synchronized int getBatchSize() {
+        if (Double.isNaN(this.bytesPerPoint)) {
+            return this.batchSize;
+        }
+        int bytesLimited = (int) Math.min(Integer.MAX_VALUE, this.maxBatchBytes / this.bytesPerPoint);
+        return Math.max(this.minBatchSize, Math.min(this.batchSize, bytesLimited));
+    }
+
+    public synchronized long getDelay() {
+        return this.delay;
+    }
+
+    public synchronized void onSuccess(int points, long bytes, long latencyNanos) {
+        this.sentBatches++;
+        this.sentPoints += points;
+        this.sentBytes += bytes;
+        if (0 < points) {
+            this.bytesPerPoint = smooth(this.bytesPerPoint, (double) bytes / points);
+        }
+        boolean spike = !Double.isNaN(this.latencyNanos) && LATENCY_SPIKE_FACTOR * this.latencyNanos < latencyNanos;
+        this.latencyNanos = smooth(this.latencyNanos, latencyNanos);
+
+        if (0 < this.cooldown) {
+            this.cooldown--;
+        } else if (spike || this.targetLatencyNanos < this.latencyNanos) {
+            decrease(spike ? "latency spike" : "latency above target");
+        } else {
+            this.batchSize = Math.min(this.maxBatchSize, this.batchSize + this.minBatchSize);
+            this.delay = Math.max(this.minDelay, this.delay - DELAY_STEP_MS);
+        }
+
+        if (this.sentBatches % LOG_STATE_EVERY_BATCHES == 0) {
+            log.info("Cloud push state: {}", getState());
+        }
+    }
+
+    public synchronized void onFailure(int statusCode) {
+        this.failures++;
+        if (statusCode == 429 || 500 <= statusCode) {
+            decrease("HTTP " + statusCode);
+        }
+    }
+
+    public synchronized String getState() {
+        return String.format(
+                "batch size = %d, delay = %d ms, latency = %.1f ms, bytes per point = %.1f, " +
+                        "sent batches = %d, sent points = %d, sent bytes = %d, failures = %d, backoffs = %d",
+                getBatchSize(), this.delay, this.latencyNanos / 1_000_000, this.bytesPerPoint,
+                this.sentBatches, this.sentPoints, this.sentBytes, this.failures, this.backoffs
+        );
+    }
+
+
+    private void decrease(String reason) {
+        this.backoffs++;
+        this.batchSize = Math.max(this.minBatchSize, (int) (this.batchSize * DECREASE_FACTOR));
+        this.delay = Math.min(this.maxDelay, Math.max(DELAY_STEP_MS, this.delay * 2));
+        this.cooldown = DECREASE_COOLDOWN_BATCHES;
+        log.info("Cloud push backs off ({}): {}", reason, getState());
+    }
+
+    private static double smooth(double average, double value) {
+        return Double.isNaN(average)
+                ? value
+                : average + SMOOTHING * (value - average);
+    }
+}
@@ -0,0 +1,194 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds entities to entity groups (PE) and assigns them to customers (CE) off the creation path.
+ * Group members are collected per group and sent by {@code groupChunkSize} ids in one request, customer assignments
+ * run in parallel on a bounded pool. {@link #flush()} sends the rest, waits for all requests and rethrows the first failure,
+ * {@link #cancelAll()} drops the rest when the solution is failed.
+ */
+@Slf4j
+@Service
+public class EntityAssigner {
+
+    private final TbRestClient tbRestClient;
+    private final int groupChunkSize;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final Map<UUID, Set<UUID>> groupMembers = new HashMap<>();
+    private final Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+
+    @Autowired
+    public EntityAssigner(
+            TbRestClient tbRestClient,
+            @Value("${tb.api.assign.groupChunkSize}") int groupChunkSize,
+            @Value("${tb.api.assign.threads}") int threads,
+            @Value("${tb.api.assign.maxInFlight}") int maxInFlight
+    ) {
+        if (groupChunkSize <= 0) {
+            throw new IllegalArgumentException("Group chunk size must be positive: " + groupChunkSize);
+        }
+        this.tbRestClient = tbRestClient;
+        this.groupChunkSize = groupChunkSize;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "entity-assigner-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+
+    public void addToGroup(UUID entityGroupId, UUID entityId) {
+        Set<UUID> chunk = null;
+        synchronized (this.groupMembers) {
+            Set<UUID> members = this.groupMembers.computeIfAbsent(entityGroupId, id -> new LinkedHashSet<>());
+            members.add(entityId);
+            if (this.groupChunkSize <= members.size()) {
+                chunk = members;
+                this.groupMembers.remove(entityGroupId);
+            }
+        }
+        if (chunk != null) {
+            submitGroupChunk(entityGroupId, chunk);
+        }
+    }
+
+    public void assignAssetToCustomer(UUID customerId, UUID assetId) {
+        submit(() -> this.tbRestClient.assignAssetToCustomer(customerId, assetId));
+    }
+
+    public void assignDeviceToCustomer(UUID customerId, UUID deviceId) {
+        submit(() -> this.tbRestClient.assignDeviceToCustomer(customerId, deviceId));
+    }
+
+    public void flush() {
+        Map<UUID, Set<UUID>> groups;
+        synchronized (this.groupMembers) {
+            groups = new HashMap<>(this.groupMembers);
+            this.groupMembers.clear();
+        }
+        groups.forEach(this::submitGroupChunk);
+
+        Result result = drain();
+        if (result.failure != null) {
+            log.error("Entity group and customer assignments failed: {}/{}", result.failedCount, result.count);
+            throw result.failure;
+        }
+        log.debug("Entity group and customer assignments are finished: {}", result.count);
+    }
+
+    /**
+     * Drops the collected group members, skips the requests which have not started yet and waits for the running ones,
+     * so nothing is left for the next solution. Failures are only logged, the solution is failed already.
+     */
+    public void cancelAll() {
+        synchronized (this.groupMembers) {
+            this.groupMembers.clear();
+        }
+        this.cancelled = true;
+        try {
+            Result result = drain();
+            if (0 < result.count) {
+                log.warn("Entity group and customer assignments are cancelled: {}, failed: {}", result.count, result.failedCount, result.failure);
+            }
+        } finally {
+            this.cancelled = false;
+        }
+    }
+
+
+    private Result drain() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        CompletableFuture<Void> future;
+        while ((future = this.pending.poll()) != null) {
+            futures.add(future);
+        }
+
+        Result result = new Result(futures.size());
+        for (CompletableFuture<Void> request : futures) {
+            try {
+                request.join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof CancellationException)) {
+                    result.fail(e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : e
+                    );
+                }
+            }
+        }
+        return result;
+    }
+
+    private void submitGroupChunk(UUID entityGroupId, Set<UUID> entityIds) {
+        submit(() -> this.tbRestClient.addEntitiesToTheGroup(entityGroupId, entityIds));
+    }
+
+    private void submit(Runnable request) {
+        try {
+            this.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for assignment request slot", e);
+        }
+
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            if (this.cancelled) {
+                throw new CancellationException("Assignment request is cancelled");
+            }
+            request.run();
+        }, this.executor);
+        future.whenComplete((result, error) -> this.inFlight.release());
+        this.pending.add(future);
+    }
+
+
+    private static class Result {
+
+        private final int count;
+        private int failedCount;
+        private RuntimeException failure;
+
+        private Result(int count) {
+            this.count = count;
+        }
+
+        private void fail(RuntimeException e) {
+            this.failedCount++;
+            if (this.failure == null) {
+                this.failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.Customer;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tenant customers, assets and devices by name, prefetched once by {@link TbRestClient} and then kept up to date
+ * by its create/delete calls, and credentials of the devices requested so far by device id.
+ * The entities can be saved to the work directory on shutdown and restored by the next run, if it is not older than {@code maxAge}
+ * and the tenant has the same {@link Fingerprint}s; the credentials are kept in memory only.
+ */
+@Slf4j
+@Service
+public class EntityMetadataCache {
+
+    private static final String FILE_PREFIX = "entity-metadata-";
+
+    private final boolean enabled;
+    private final boolean persist;
+    private final long maxAge;
+    private final Path workDirectory;
+
+    private final Map<String, Customer> customers = new ConcurrentHashMap<>();
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
+    private final Map<UUID, DeviceCredentials> credentials = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private List<Runnable> updatesWhileLoading;
+    private volatile String key;
+
+    public EntityMetadataCache(
+            @Value("${tb.api.metadataCache.enabled}") boolean enabled,
+            @Value("${tb.api.metadataCache.persist}") boolean persist,
+            @Value("${tb.api.metadataCache.maxAge}") long maxAge,
+            @Value("${generator.workDirectory}") String workDirectory
+    ) {
+        this.enabled = enabled;
+        this.persist = persist;
+        this.maxAge = maxAge;
+        this.workDirectory = Path.of(workDirectory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (this.persist && isLoaded()) {
+            save();
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public boolean isLoaded() {
+        return this.key != null;
+    }
+
+    /**
+     * Starts recording the updates, so that the entities created or deleted while the tenant is fetched
+     * are applied again over the fetched ones by {@link #load}.
+     */
+    public void startLoading() {
+        synchronized (this.lock) {
+            this.updatesWhileLoading = new ArrayList<>();
+        }
+    }
+
+    public void stopLoading() {
+        synchronized (this.lock) {
+            this.updatesWhileLoading = null;
+        }
+    }
+
+    /**
+     * Replaces the entities, the credentials requested so far stay.
+     */
+    public void load(String key, Collection<Customer> customers, Collection<Asset> assets, Collection<Device> devices) {
+        synchronized (this.lock) {
+            this.customers.clear();
+            this.assets.clear();
+            this.devices.clear();
+            customers.forEach(customer -> this.customers.put(customer.getTitle(), customer));
+            assets.forEach(asset -> this.assets.put(asset.getName(), asset));
+            devices.forEach(device -> this.devices.put(device.getName(), device));
+            if (this.updatesWhileLoading != null) {
+                this.updatesWhileLoading.forEach(Runnable::run);
+                this.updatesWhileLoading = null;
+            }
+            this.key = key;
+        }
+    }
+
+    /**
+     * Loads the saved snapshot if it belongs to the same server and tenant, is fresh enough and matches the tenant entities.
+     */
+    public boolean restore(String key, Fingerprint customerFingerprint, Fingerprint assetFingerprint, Fingerprint deviceFingerprint) {
+        if (!this.persist) {
+            return false;
+        }
+        Path file = getFile(key);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            Snapshot snapshot = JsonUtils.getObjectMapper().readValue(file.toFile(), Snapshot.class);
+            long age = System.currentTimeMillis() - snapshot.getSavedAt();
+            if (!key.equals(snapshot.getKey()) || this.maxAge < age) {
+                log.info("Entity metadata snapshot is outdated: {}", file);
+                return false;
+            }
+            boolean matches = customerFingerprint.equals(Fingerprint.of(snapshot.getCustomers(), Customer::getCreatedTime))
+                    && assetFingerprint.equals(Fingerprint.of(snapshot.getAssets(), Asset::getCreatedTime))
+                    && deviceFingerprint.equals(Fingerprint.of(snapshot.getDevices(), Device::getCreatedTime));
+            if (!matches) {
+                log.info("Entity metadata snapshot does not match the tenant entities: {}", file);
+                return false;
+            }
+            load(key, snapshot.getCustomers(), snapshot.getAssets(), snapshot.getDevices());
+            log.info("Entity metadata is restored from {}, age = {} s", file, TimeUnit.MILLISECONDS.toSeconds(age));
+            return true;
+        } catch (IOException e) {
+            log.warn("Can not read entity metadata snapshot: " + file, e);
+            return false;
+        }
+    }
+
+
+    public Optional<Customer> getCustomer(String title) {
+        return Optional.ofNullable(this.customers.get(title));
+    }
+
+    public Optional<Asset> getAsset(String name) {
+        return Optional.ofNullable(this.assets.get(name));
+    }
+
+    public Optional<Device> getDevice(String name) {
+        return Optional.ofNullable(this.devices.get(name));
+    }
+
+    public Optional<DeviceCredentials> getCredentials(UUID deviceId) {
+        return Optional.ofNullable(this.credentials.get(deviceId));
+    }
+
+    public void putCustomer(Customer customer) {
+        update(() -> this.customers.put(customer.getTitle(), customer));
+    }
+
+    public void putAsset(Asset asset) {
+        update(() -> this.assets.put(asset.getName(), asset));
+    }
+
+    public void putDevice(Device device) {
+        update(() -> this.devices.put(device.getName(), device));
+    }
+
+    public void putCredentials(DeviceCredentials deviceCredentials) {
+        update(() -> this.credentials.put(deviceCredentials.getDeviceId().getId(), deviceCredentials));
+    }
+
+    public void removeCustomer(UUID customerId) {
+        update(() -> this.customers.values().removeIf(customer -> customer.getUuidId().equals(customerId)));
+    }
+
+    public void removeAsset(UUID assetId) {
+        update(() -> this.assets.values().removeIf(asset -> asset.getUuidId().equals(assetId)));
+    }
+
+    public void removeDevice(UUID deviceId) {
+        update(() -> {
+            this.devices.values().removeIf(device -> device.getUuidId().equals(deviceId));
+            this.credentials.remove(deviceId);
+        });
+    }
+
+
+    private void update(Runnable update) {
+        synchronized (this.lock) {
+            update.run();
+            if (this.updatesWhileLoading != null) {
+                this.updatesWhileLoading.add(update);
+            }
+        }
+    }
+
+
+    private void save() {
+        Path file = getFile(this.key);
+        Snapshot snapshot = new Snapshot(
+                this.key,
+                System.currentTimeMillis(),
+                new ArrayList<>(this.customers.values()),
+                new ArrayList<>(this.assets.values()),
+                new ArrayList<>(this.devices.values())
+        );
+        try {
+            Files.createDirectories(this.workDirectory);
+            Path temporary = Files.createTempFile(this.workDirectory, FILE_PREFIX, ".tmp");
+            JsonUtils.getObjectMapper().writeValue(temporary.toFile(), snapshot);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Entity metadata is saved to {}", file);
+        } catch (IOException e) {
+            log.warn("Can not save entity metadata snapshot: " + file, e);
+        }
+    }
+
+    private Path getFile(String key) {
+        UUID name = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+        return this.workDirectory.resolve(FILE_PREFIX + name + ".json");
+    }
+
+
+    /**
+     * Number of entities of a type and the creation time of the newest one: creating an entity changes the time,
+     * deleting one without creating another changes the number.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Fingerprint {
+        private final long count;
+        private final long lastCreatedTime;
+
+        static <T> Fingerprint of(Collection<T> entities, ToLongFunction<T> createdTime) {
+            return new Fingerprint(entities.size(), entities.stream()
+                    .mapToLong(createdTime)
+                    .max()
+                    .orElse(0)
+            );
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class Snapshot {
+        private String key;
+        private long savedAt;
+        private List<Customer> customers;
+        private List<Asset> assets;
+        private List<Device> devices;
+    }
+}
@@ -0,0 +1,167 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Request count, latency histogram, body sizes, status codes and retries per endpoint template,
+ * e.g. {@code POST /api/v1/{token}/telemetry}. Recording is a few lock-free counter updates;
+ * the summary is logged after every solution run.
+ */
+@Slf4j
+@Service
+public class HttpMetrics {
+
+    private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+    private static final String DEVICE_API_PREFIX = "/api/v1/";
+    static final long UNKNOWN_SIZE = -1;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+
+    public void record(String method, String path, int statusCode, long requestBytes, long responseBytes, long latencyNanos) {
+        getStats(method, path).record(statusCode, requestBytes, responseBytes, latencyNanos);
+    }
+
+    public void recordRetry(String method, String path) {
+        getStats(method, path).retries.increment();
+    }
+
+    public void logSummary(String title) {
+        if (this.endpoints.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, EndpointStats>> entries = new ArrayList<>(this.endpoints.entrySet());
+        entries.sort(Comparator.comparing((Map.Entry<String, EndpointStats> entry) -> entry.getValue().totalNanos.sum()).reversed());
+
+        String format = "%-60s %8s %8s %9s %9s %9s %9s %11s %11s  %s%n";
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(format, "endpoint", "count", "retries", "p50, ms", "p95, ms", "p99, ms", "max, ms", "sent, KB", "received, KB", "statuses"));
+        for (Map.Entry<String, EndpointStats> entry : entries) {
+            EndpointStats stats = entry.getValue();
+            table.append(String.format(format,
+                    entry.getKey(),
+                    stats.count.sum(),
+                    stats.retries.sum(),
+                    formatMillis(stats.percentile(0.5)),
+                    formatMillis(stats.percentile(0.95)),
+                    formatMillis(stats.percentile(0.99)),
+                    formatMillis(stats.maxNanos.get()),
+                    stats.requestBytes.sum() / 1024,
+                    stats.responseBytes.sum() / 1024,
+                    stats.formatStatuses()
+            ));
+        }
+        log.info("HTTP requests of {}:\n{}", title, table);
+    }
+
+    public void reset() {
+        this.endpoints.clear();
+    }
+
+
+    static String toTemplate(String method, String path) {
+        StringJoiner template = new StringJoiner("/");
+        String[] segments = path.split("/", -1);
+        boolean deviceApi = path.startsWith(DEVICE_API_PREFIX);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (deviceApi && i == 3) {
+                template.add("{token}");
+            } else if (UUID_PATTERN.matcher(segment).matches()) {
+                template.add("{id}");
+            } else if (NUMBER_PATTERN.matcher(segment).matches()) {
+                template.add("{n}");
+            } else {
+                template.add(segment);
+            }
+        }
+        return method + " " + template;
+    }
+
+    private EndpointStats getStats(String method, String path) {
+        return this.endpoints.computeIfAbsent(toTemplate(method, path), key -> new EndpointStats());
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+
+    /**
+     * Latencies are kept in buckets growing by the power of 2 from 1 microsecond,
+     * so percentiles are accurate up to a factor of 2 and take constant memory.
+     */
+    private static class EndpointStats {
+
+        private static final int BUCKETS = 40;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(int statusCode, long requestBytes, long responseBytes, long latencyNanos) {
+            this.count.increment();
+            if (requestBytes != UNKNOWN_SIZE) {
+                this.requestBytes.add(requestBytes);
+            }
+            if (responseBytes != UNKNOWN_SIZE) {
+                this.responseBytes.add(responseBytes);
+            }
+            this.totalNanos.add(latencyNanos);
+            this.maxNanos.accumulate(latencyNanos);
+            this.latencyBuckets.incrementAndGet(bucketOf(latencyNanos));
+            this.statuses.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        }
+
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += this.latencyBuckets.get(i);
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.latencyBuckets.get(i);
+                if (0 < seen && rank <= seen) {
+                    return Math.min(upperBoundOf(i), this.maxNanos.get());
+                }
+            }
+            return this.maxNanos.get();
+        }
+
+        String formatStatuses() {
+            StringJoiner joiner = new StringJoiner(", ");
+            new TreeMap<>(this.statuses).forEach((code, counter) -> joiner.add((code < 0 ? "error" : code.toString()) + ": " + counter.sum()));
+            return joiner.toString();
+        }
+
+        private static int bucketOf(long latencyNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+            return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        private static long upperBoundOf(int bucket) {
+            return TimeUnit.MICROSECONDS.toNanos(1L << bucket);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import org.thingsboard.trendz.generator.model.rest.PageData;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the elements of all pages. The first page is loaded on creation; once the number of pages is known,
+ * up to {@code prefetchPages} next pages are loaded in the background while the current one is consumed.
+ */
+class PageIterator<T> implements Iterator<T> {
+
+    private final IntFunction<PageData<T>> pageLoader;
+    private final Executor executor;
+    private final int prefetchPages;
+    private final Deque<CompletableFuture<PageData<T>>> pages = new ArrayDeque<>();
+
+    private Iterator<T> current;
+    private int currentPage;
+    private int totalPages;
+    private int nextPage;
+
+    PageIterator(IntFunction<PageData<T>> pageLoader, Executor executor, int prefetchPages) {
+        if (prefetchPages <= 0) {
+            throw new IllegalArgumentException("Prefetch pages must be positive: " + prefetchPages);
+        }
+        this.pageLoader = pageLoader;
+        this.executor = executor;
+        this.prefetchPages = prefetchPages;
+
+        PageData<T> firstPage = pageLoader.apply(0);
+        this.current = firstPage.getData().iterator();
+        this.totalPages = firstPage.hasNext() ? Math.max(2, firstPage.getTotalPages()) : 1;
+        this.nextPage = 1;
+        requestPages();
+    }
+
+    static <T> Stream<T> stream(IntFunction<PageData<T>> pageLoader, Executor executor, int prefetchPages) {
+        PageIterator<T> iterator = new PageIterator<>(pageLoader, executor, prefetchPages);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::cancel);
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        while (!this.current.hasNext()) {
+            CompletableFuture<PageData<T>> future = this.pages.poll();
+            if (future == null) {
+                return false;
+            }
+            PageData<T> page = join(future);
+            this.currentPage++;
+            if (page.hasNext() && this.totalPages <= this.currentPage + 1) {
+                this.totalPages = this.currentPage + 2;
+            }
+            requestPages();
+            this.current = page.getData().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.current.next();
+    }
+
+    void cancel() {
+        this.pages.forEach(page -> page.cancel(false));
+        this.pages.clear();
+        this.current = Collections.emptyIterator();
+    }
+
+
+    private void requestPages() {
+        while (this.pages.size() < this.prefetchPages && this.nextPage < this.totalPages) {
+            int page = this.nextPage++;
+            this.pages.add(CompletableFuture.supplyAsync(() -> this.pageLoader.apply(page), this.executor));
+        }
+    }
+
+    private static <T> PageData<T> join(CompletableFuture<PageData<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Optional gzip Content-Encoding of request bodies. Deflaters are pooled and reset after every request,
+ * so that compression does not allocate native zlib state per batch.
+ */
+@Slf4j
+@Service
+public class RequestCompressor {
+
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final boolean enabled;
+    private final int level;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    public RequestCompressor(
+            @Value("${tb.api.gzip.enabled}") boolean enabled,
+            @Value("${tb.api.gzip.level}") int level
+    ) {
+        if (level < Deflater.BEST_SPEED || Deflater.BEST_COMPRESSION < level) {
+            throw new IllegalArgumentException("Gzip level must be from 1 to 9: " + level);
+        }
+        this.enabled = enabled;
+        this.level = level;
+        if (enabled) {
+            log.info("Requests are compressed with gzip, level = {}", level);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Deflater deflater;
+        while ((deflater = this.deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Has to be called before the body is written: streaming requests send the headers first.
+     */
+    public void setContentEncoding(HttpHeaders headers) {
+        if (this.enabled) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+    }
+
+    /**
+     * Returns the stream to write the body to; it has to be closed to finish the body.
+     * If the compression is disabled, the body is returned as is.
+     */
+    public OutputStream compress(OutputStream body) throws IOException {
+        if (!this.enabled) {
+            return body;
+        }
+        Deflater deflater = this.deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(this.level, true);
+        }
+        return new GzipOutputStream(body, deflater);
+    }
+
+
+    /**
+     * Same format as {@link java.util.zip.GZIPOutputStream}, but with an external deflater that is returned to the pool on close.
+     */
+    private class GzipOutputStream extends DeflaterOutputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean closed;
+
+        GzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, BUFFER_SIZE);
+            out.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            this.crc.update(buffer, offset, length);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (this.def.finished()) {
+                return;
+            }
+            super.finish();
+            writeInt((int) this.crc.getValue());
+            writeInt((int) this.def.getBytesRead());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                super.close();
+            } finally {
+                this.def.reset();
+                RequestCompressor.this.deflaters.add(this.def);
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            this.out.write(value & 0xff);
+            this.out.write((value >> 8) & 0xff);
+            this.out.write((value >> 16) & 0xff);
+            this.out.write((value >> 24) & 0xff);
+        }
+    }
+}
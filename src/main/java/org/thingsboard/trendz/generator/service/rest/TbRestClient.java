@@ -1,30 +1,56 @@
 package org.thingsboard.trendz.generator.service.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.CountingOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.thingsboard.server.common.data.BaseData;
 import org.thingsboard.server.common.data.Customer;
 import org.thingsboard.server.common.data.Dashboard;
 import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.asset.Asset;
 import org.thingsboard.server.common.data.group.EntityGroup;
+import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.query.ComplexFilterPredicate;
+import org.thingsboard.server.common.data.query.EntityDataPageLink;
+import org.thingsboard.server.common.data.query.EntityDataQuery;
+import org.thingsboard.server.common.data.query.EntityKey;
+import org.thingsboard.server.common.data.query.EntityKeyType;
+import org.thingsboard.server.common.data.query.EntityKeyValueType;
+import org.thingsboard.server.common.data.query.EntityTypeFilter;
+import org.thingsboard.server.common.data.query.FilterPredicateValue;
+import org.thingsboard.server.common.data.query.KeyFilter;
+import org.thingsboard.server.common.data.query.KeyFilterPredicate;
+import org.thingsboard.server.common.data.query.StringFilterPredicate;
 import org.thingsboard.server.common.data.relation.EntityRelation;
 import org.thingsboard.server.common.data.rule.RuleChain;
 import org.thingsboard.server.common.data.rule.RuleChainMetaData;
 import org.thingsboard.server.common.data.security.Authority;
 import org.thingsboard.server.common.data.security.DeviceCredentials;
+import org.thingsboard.server.common.data.security.DeviceCredentialsType;
+import org.thingsboard.trendz.generator.configuration.SolutionTemplateGeneratorConfiguration;
 import org.thingsboard.trendz.generator.exception.CustomerEmailIsUsedException;
 import org.thingsboard.trendz.generator.exception.PushTelemetryException;
 import org.thingsboard.trendz.generator.model.rest.ActivationAuthToken;
@@ -32,18 +58,28 @@ import org.thingsboard.trendz.generator.model.rest.ActivationRequest;
 import org.thingsboard.trendz.generator.model.rest.AuthToken;
 import org.thingsboard.trendz.generator.model.rest.LoginRequest;
 import org.thingsboard.trendz.generator.model.rest.PageData;
+import org.thingsboard.trendz.generator.model.tb.AlignedTelemetry;
 import org.thingsboard.trendz.generator.model.tb.Attribute;
 import org.thingsboard.trendz.generator.model.tb.CustomerUser;
 import org.thingsboard.trendz.generator.model.tb.CustomerUserAdditionalInfo;
 import org.thingsboard.trendz.generator.model.tb.RelationType;
 import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetryPayload;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.journal.GenerationJournal;
 import org.thingsboard.trendz.generator.service.jwt.TokenExtractor;
 import org.thingsboard.trendz.generator.utils.JsonUtils;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -51,7 +87,15 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -61,15 +105,25 @@ import static java.util.Objects.nonNull;
 public class TbRestClient {
 
     public static final String LOGIN_PATH = "/api/auth/login";
-    private static final int PUSH_TELEMETRY_DELAY = 100;
-    private static final int PUSH_TELEMETRY_BATCH_SIZE = 100;
-    private static final int PUSH_TELEMETRY_SUPPRESS_ERROR_COUNT = 10;
+    private static final int PUSH_TELEMETRY_SOURCE_CHUNK_SIZE = 10_000;
+    private static final int ENTITY_QUERY_BATCH_SIZE = 100;
 
     private final String baseURL;
     private final boolean pe;
     private final boolean cloud;
+    private final int telemetryDecimalPlaces;
     private final RestTemplate restTemplate;
+    private final RestTemplate telemetryRestTemplate;
     private final TokenExtractor tokenExtractor;
+    private final CloudPushController cloudPushController;
+    private final RequestCompressor requestCompressor;
+    private final HttpMetrics httpMetrics;
+    private final EntityMetadataCache entityMetadataCache;
+    private final GenerationJournal generationJournal;
+    private final int pageSize;
+    private final int prefetchPages;
+    private final ExecutorService fetchExecutor;
+    private final Map<String, UUID> accessTokenDeviceIds = new ConcurrentHashMap<>();
 
     private UUID tenantId;
 
@@ -78,14 +132,45 @@ public class TbRestClient {
             @Value("${tb.api.host}") String tbApiHost,
             @Value("${tb.api.pe}") boolean pe,
             @Value("${tb.api.cloud}") boolean cloud,
+            @Value("${tb.api.telemetryDecimalPlaces}") int telemetryDecimalPlaces,
+            @Value("${tb.api.fetchThreads}") int fetchThreads,
+            @Value("${tb.api.pageSize}") int pageSize,
+            @Value("${tb.api.prefetchPages}") int prefetchPages,
             RestTemplate restTemplate,
-            TokenExtractor tokenExtractor
+            @Qualifier(SolutionTemplateGeneratorConfiguration.TELEMETRY_REST_TEMPLATE) RestTemplate telemetryRestTemplate,
+            TokenExtractor tokenExtractor,
+            CloudPushController cloudPushController,
+            RequestCompressor requestCompressor,
+            HttpMetrics httpMetrics,
+            EntityMetadataCache entityMetadataCache,
+            GenerationJournal generationJournal
     ) {
         this.baseURL = tbApiHost;
         this.pe = pe;
         this.cloud = cloud;
+        this.telemetryDecimalPlaces = telemetryDecimalPlaces;
         this.restTemplate = restTemplate;
+        this.telemetryRestTemplate = telemetryRestTemplate;
         this.tokenExtractor = tokenExtractor;
+        this.cloudPushController = cloudPushController;
+        this.requestCompressor = requestCompressor;
+        this.httpMetrics = httpMetrics;
+        this.entityMetadataCache = entityMetadataCache;
+        this.generationJournal = generationJournal;
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "rest-fetcher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.fetchExecutor.shutdownNow();
     }
 
 
@@ -239,6 +324,69 @@ public class TbRestClient {
         return getAllEntities("/api/tenant/devices", reference, new HashMap<>());
     }
 
+    /**
+     * Same as {@link #getAllCustomers()}, but the pages are loaded while the stream is consumed.
+     * Entities must not be created or deleted meanwhile, otherwise the pages shift. The stream has to be closed.
+     */
+    public Stream<Customer> streamAllCustomers() {
+        var reference = new ParameterizedTypeReference<PageData<Customer>>() {
+        };
+
+        return streamAllEntities("/api/customers", reference, new HashMap<>());
+    }
+
+    /**
+     * Same as {@link #getAllAssets()}, but the pages are loaded while the stream is consumed.
+     * Entities must not be created or deleted meanwhile, otherwise the pages shift. The stream has to be closed.
+     */
+    public Stream<Asset> streamAllAssets() {
+        var reference = new ParameterizedTypeReference<PageData<Asset>>() {
+        };
+
+        return streamAllEntities("/api/tenant/assets", reference, new HashMap<>());
+    }
+
+    /**
+     * Same as {@link #getAllDevices()}, but the pages are loaded while the stream is consumed.
+     * Entities must not be created or deleted meanwhile, otherwise the pages shift. The stream has to be closed.
+     */
+    public Stream<Device> streamAllDevices() {
+        var reference = new ParameterizedTypeReference<PageData<Device>>() {
+        };
+
+        return streamAllEntities("/api/tenant/devices", reference, new HashMap<>());
+    }
+
+    /**
+     * Finds the assets with the given names by the entity query API, without loading all tenant assets.
+     * Only the id, name, type and creation time of the returned assets are filled.
+     */
+    public Set<Asset> findAssetsByNames(Collection<String> names) {
+        return findEntitiesByNames(EntityType.ASSET, names)
+                .stream()
+                .map(entity -> {
+                    Asset asset = makeAsset(entity.getId(), entity.getName(), entity.getType());
+                    asset.setCreatedTime(entity.getCreatedTime());
+                    return asset;
+                })
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Finds the devices with the given names by the entity query API, without loading all tenant devices.
+     * Only the id, name, type and creation time of the returned devices are filled.
+     */
+    public Set<Device> findDevicesByNames(Collection<String> names) {
+        return findEntitiesByNames(EntityType.DEVICE, names)
+                .stream()
+                .map(entity -> {
+                    Device device = makeDevice(entity.getId(), entity.getName(), entity.getType());
+                    device.setCreatedTime(entity.getCreatedTime());
+                    return device;
+                })
+                .collect(Collectors.toSet());
+    }
+
     public Set<Dashboard> getAllTenantDashboards() {
         var reference = new ParameterizedTypeReference<PageData<Dashboard>>() {
         };
@@ -256,11 +404,15 @@ public class TbRestClient {
     public Customer createCustomer(String name) {
         var customer = new Customer();
         customer.setTitle(name);
-        return restTemplate.postForEntity(baseURL + "/api/customer", customer, Customer.class).getBody();
+        return registerCustomer(restTemplate.postForEntity(baseURL + "/api/customer", customer, Customer.class).getBody());
     }
 
     public Customer createCustomerIfNotExists(String name) {
-        var customerOpt = getCustomerByTitle(name);
+        var journalCustomer = this.generationJournal.getEntityId(EntityType.CUSTOMER, name);
+        if (journalCustomer.isPresent()) {
+            return makeCustomer(journalCustomer.get(), name);
+        }
+        var customerOpt = findCustomer(name);
         return customerOpt.orElseGet(() -> createCustomer(name));
     }
 
@@ -274,15 +426,18 @@ public class TbRestClient {
             if (nonNull(attributes) && !attributes.isEmpty()) {
                 setEntityAttributes(assetAdded.getUuidId(), EntityType.ASSET, Attribute.Scope.SERVER_SCOPE, attributes);
             }
-
-            return assetAdded;
+            return registerAsset(assetAdded);
         } catch (Exception e) {
             throw new RuntimeException("", e);
         }
     }
 
     public Asset createAssetIfNotExists(String name, String type, Set<Attribute<?>> attributes) {
-        final var assetOpt = getAssetByName(name);
+        var journalAsset = this.generationJournal.getEntityId(EntityType.ASSET, name);
+        if (journalAsset.isPresent()) {
+            return makeAsset(journalAsset.get(), name, type);
+        }
+        final var assetOpt = findAsset(name);
         return assetOpt.orElseGet(() -> createAsset(name, type, attributes));
     }
 
@@ -296,15 +451,28 @@ public class TbRestClient {
             if (nonNull(attributes) && !attributes.isEmpty()) {
                 setEntityAttributes(deviceAdded.getUuidId(), EntityType.DEVICE, Attribute.Scope.SERVER_SCOPE, attributes);
             }
-            return deviceAdded;
+            return registerDevice(deviceAdded);
         } catch (Exception e) {
             throw new RuntimeException("", e);
         }
     }
 
     public Device createDeviceIfNotExists(String name, String type, Set<Attribute<?>> attributes) {
-        var deviceOpt = getDeviceByName(name);
-        return deviceOpt.orElseGet(() -> createDevice(name, type, attributes));
+        return findExistingDevice(name, type).orElseGet(() -> createDevice(name, type, attributes));
+    }
+
+    public Device createGatewayIfNotExists(String name) {
+        return findDevice(name).orElseGet(() -> {
+            var device = new Device();
+            device.setName(name);
+            device.setType("gateway");
+            device.setAdditionalInfo(JsonUtils.getObjectMapper().createObjectNode().put("gateway", true));
+            var gateway = restTemplate.postForEntity(baseURL + "/api/device", device, Device.class).getBody();
+            if (this.entityMetadataCache.isEnabled()) {
+                this.entityMetadataCache.putDevice(gateway);
+            }
+            return gateway;
+        });
     }
 
     public Dashboard createDashboard(String title) {
@@ -327,7 +495,7 @@ public class TbRestClient {
         Customer customer = new Customer();
         customer.setTitle(name);
         customer.setOwnerId(ownerId);
-        return restTemplate.postForEntity(baseURL + "/api/customer", customer, Customer.class).getBody();
+        return registerCustomer(restTemplate.postForEntity(baseURL + "/api/customer", customer, Customer.class).getBody());
     }
 
     public Asset createAsset(String name, String type, EntityId ownerId, Set<Attribute<?>> attributes) {
@@ -341,15 +509,18 @@ public class TbRestClient {
             if (nonNull(attributes) && !attributes.isEmpty()) {
                 setEntityAttributes(assetAdded.getUuidId(), EntityType.ASSET, Attribute.Scope.SERVER_SCOPE, attributes);
             }
-
-            return assetAdded;
+            return registerAsset(assetAdded);
         } catch (Exception e) {
             throw new RuntimeException("", e);
         }
     }
 
     public Asset createAssetIfNotExists(String name, String type, EntityId ownerId, Set<Attribute<?>> attributes) {
-        final var assetOpt = getAssetByName(name);
+        var journalAsset = this.generationJournal.getEntityId(EntityType.ASSET, name);
+        if (journalAsset.isPresent()) {
+            return makeAsset(journalAsset.get(), name, type);
+        }
+        final var assetOpt = findAsset(name);
         return assetOpt.orElseGet(() -> createAsset(name, type, ownerId, attributes));
     }
 
@@ -364,15 +535,14 @@ public class TbRestClient {
             if (nonNull(attributes) && !attributes.isEmpty()) {
                 setEntityAttributes(deviceAdded.getUuidId(), EntityType.DEVICE, Attribute.Scope.SERVER_SCOPE, attributes);
             }
-            return deviceAdded;
+            return registerDevice(deviceAdded);
         } catch (Exception e) {
             throw new RuntimeException("", e);
         }
     }
 
     public Device createDeviceIfNotExists(String name, String type, EntityId ownerId, Set<Attribute<?>> attributes) {
-        var deviceOpt = getDeviceByName(name);
-        return deviceOpt.orElseGet(() -> createDevice(name, type, ownerId, attributes));
+        return findExistingDevice(name, type).orElseGet(() -> createDevice(name, type, ownerId, attributes));
     }
 
     public Dashboard createDashboard(String title, EntityId ownerId) {
@@ -394,14 +564,17 @@ public class TbRestClient {
 
     public void deleteCustomer(UUID customerId) {
         restTemplate.delete(baseURL + "/api/customer/" + customerId);
+        this.entityMetadataCache.removeCustomer(customerId);
     }
 
     public void deleteAsset(UUID assetId) {
         restTemplate.delete(baseURL + "/api/asset/" + assetId);
+        this.entityMetadataCache.removeAsset(assetId);
     }
 
     public void deleteDevice(UUID deviceId) {
         restTemplate.delete(baseURL + "/api/device/" + deviceId);
+        this.entityMetadataCache.removeDevice(deviceId);
     }
 
     public void deleteDashboard(UUID dashboardId) {
@@ -462,47 +635,92 @@ public class TbRestClient {
 
 
     public DeviceCredentials getDeviceCredentials(UUID id) {
-        return restTemplate.getForEntity(baseURL + "/api/device/" + id.toString() + "/credentials", DeviceCredentials.class).getBody();
+        return findKnownCredentials(id).orElseGet(() -> registerCredentials(fetchDeviceCredentials(id)));
+    }
+
+    /**
+     * Device of the access token returned by {@link #getDeviceCredentials(UUID)} earlier.
+     */
+    public Optional<UUID> getDeviceIdByAccessToken(String accessToken) {
+        return Optional.ofNullable(this.accessTokenDeviceIds.get(accessToken));
     }
 
     public <T> void pushTelemetry(String accessToken, Telemetry<T> telemetry) {
-        if (telemetry.getPoints().isEmpty()) {
+        int start = firstUnacknowledgedIndex(accessToken, telemetry);
+        if (start == telemetry.size()) {
             return;
         }
         if (this.cloud) {
-            log.info("Pushing telemetry '{}' to the cloud, batch size = {}, send delay = {}, suppress error count = {}",
-                    telemetry.getName(),
-                    PUSH_TELEMETRY_BATCH_SIZE,
-                    PUSH_TELEMETRY_DELAY,
-                    PUSH_TELEMETRY_SUPPRESS_ERROR_COUNT
-            );
+            logCloudPush(telemetry.getName());
+
+            Iterator<Telemetry.Batch<T>> batches = telemetry.batchIterator(start, this.cloudPushController::getBatchSize);
+            for (int i = 0; batches.hasNext(); i++) {
+                Telemetry.Batch<T> batch = batches.next();
+                pushCloudBatch(accessToken, batch);
+                log.info("Batch is sent ({}, points {}/{})", i + 1, batch.getTo(), telemetry.size());
+            }
+        } else {
+            pushTelemetry0(accessToken, telemetry.batch(start, telemetry.size()));
+        }
+    }
 
-            List<Telemetry<T>> partitions = telemetry.partition(PUSH_TELEMETRY_BATCH_SIZE);
-            int errorCount = 0;
+    public <T> void pushTelemetry(String accessToken, TelemetrySource<T> telemetrySource) {
+        TelemetrySource<T> source = skipAcknowledged(accessToken, telemetrySource.getName(), telemetrySource);
+        if (this.cloud) {
+            logCloudPush(source.getName());
+        }
+        Telemetry<T> chunk = new Telemetry<>(source.getName());
+        int chunkSize = sourceChunkSize();
+        int chunkNumber = 0;
+        for (Telemetry.Point<T> point : source) {
+            chunk.add(point);
+            if (chunkSize <= chunk.size()) {
+                pushTelemetryChunk(accessToken, chunk, ++chunkNumber);
+                chunk.getPoints().clear();
+                chunkSize = sourceChunkSize();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            pushTelemetryChunk(accessToken, chunk, ++chunkNumber);
+        }
+    }
 
-            for (int i = 0; i < partitions.size(); i++) {
-                try {
-                    if (PUSH_TELEMETRY_SUPPRESS_ERROR_COUNT <= errorCount) {
-                        break;
-                    }
+    public void pushTelemetry(String accessToken, Telemetry<?>... telemetries) {
+        if (telemetries.length == 1) {
+            pushTelemetry(accessToken, telemetries[0]);
+            return;
+        }
+        pushTelemetry(accessToken, Arrays.stream(telemetries)
+                .map(TelemetrySource::of)
+                .collect(Collectors.toList())
+        );
+    }
 
-                    TimeUnit.MILLISECONDS.sleep(PUSH_TELEMETRY_DELAY);
-                    pushTelemetry0(accessToken, partitions.get(i));
+    public void pushTelemetry(String accessToken, TelemetrySource<?>... sources) {
+        if (sources.length == 1) {
+            pushTelemetry(accessToken, sources[0]);
+            return;
+        }
+        pushTelemetry(accessToken, List.of(sources));
+    }
 
-                    errorCount = 0;
-                    log.info("Batch is sent ({}/{})", i + 1, partitions.size());
-                } catch (Exception e) {
-                    log.error("Error during pushing telemetry to the cloud, error count = " + errorCount + ", retry...", e);
-                    errorCount++;
-                    i--;
-                }
-            }
-            if (PUSH_TELEMETRY_SUPPRESS_ERROR_COUNT <= errorCount) {
-                throw new PushTelemetryException(telemetry);
+    public void pushTelemetry(String accessToken, List<? extends TelemetrySource<?>> sources) {
+        String name = new AlignedTelemetry(sources).getName();
+        AlignedTelemetry telemetry = new AlignedTelemetry(sources.stream()
+                .map(source -> skipAcknowledged(accessToken, name, source))
+                .collect(Collectors.toList())
+        );
+        if (this.cloud) {
+            logCloudPush(telemetry.getName());
+        }
+        Iterator<AlignedTelemetry.Batch> batches = telemetry.batchIterator(this::sourceChunkSize);
+        for (int i = 0; batches.hasNext(); i++) {
+            if (this.cloud) {
+                pushCloudBatch(accessToken, batches.next());
+                log.info("Batch is sent ({})", i + 1);
+            } else {
+                pushTelemetry0(accessToken, batches.next());
             }
-
-        } else {
-            pushTelemetry0(accessToken, telemetry);
         }
     }
 
@@ -512,6 +730,11 @@ public class TbRestClient {
         params.put("entityType", entityType);
         params.put("scope", scope);
 
+        ObjectNode node = makeAttributesNode(attributes);
+        restTemplate.postForEntity(baseURL + "/api/plugins/telemetry/{entityType}/{entityId}/{scope}", node, Object.class, params).getBody();
+    }
+
+    static ObjectNode makeAttributesNode(Set<Attribute<?>> attributes) {
         ObjectNode node = JsonUtils.getObjectMapper().createObjectNode();
         for (Attribute<?> attribute : attributes) {
             Object value = attribute.getValue();
@@ -531,8 +754,7 @@ public class TbRestClient {
                 node.put(attribute.getKey(), value.toString());
             }
         }
-
-        restTemplate.postForEntity(baseURL + "/api/plugins/telemetry/{entityType}/{entityId}/{scope}", node, Object.class, params).getBody();
+        return node;
     }
 
 
@@ -573,7 +795,21 @@ public class TbRestClient {
 
     public RuleChainMetaData saveRuleChainMetadata(RuleChainMetaData metaData) {
         try {
-            return restTemplate.postForEntity(baseURL + "/api/ruleChain/metadata", metaData, RuleChainMetaData.class).getBody();
+            if (!this.requestCompressor.isEnabled()) {
+                return restTemplate.postForEntity(baseURL + "/api/ruleChain/metadata", metaData, RuleChainMetaData.class).getBody();
+            }
+            return restTemplate.execute(baseURL + "/api/ruleChain/metadata", HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        this.requestCompressor.setContentEncoding(request.getHeaders());
+                        writeBody(request, outputStream -> {
+                            try (OutputStream body = this.requestCompressor.compress(outputStream)) {
+                                JsonUtils.getObjectMapper().writeValue(body, metaData);
+                            }
+                        });
+                    },
+                    restTemplate.responseEntityExtractor(RuleChainMetaData.class)
+            ).getBody();
         } catch (Exception e) {
             String metadataJson = JsonUtils.makeNodeFromPojo(metaData).toPrettyString();
             throw new IllegalStateException("Error during rule chain saving: " + e.getMessage() + "\n\n " + metadataJson, e);
@@ -687,35 +923,277 @@ public class TbRestClient {
         return getAllEntities("/api/tenant/dashboards", reference, customParams);
     }
 
+    private static Customer makeCustomer(UUID id, String title) {
+        Customer customer = new Customer(new CustomerId(id));
+        customer.setTitle(title);
+        return customer;
+    }
+
+    private static Asset makeAsset(UUID id, String name, String type) {
+        Asset asset = new Asset(new AssetId(id));
+        asset.setName(name);
+        asset.setType(type);
+        return asset;
+    }
+
+    private static Device makeDevice(UUID id, String name, String type) {
+        Device device = new Device(new DeviceId(id));
+        device.setName(name);
+        device.setType(type);
+        return device;
+    }
+
+    private static DeviceCredentials makeAccessTokenCredentials(UUID deviceId, String accessToken) {
+        DeviceCredentials deviceCredentials = new DeviceCredentials();
+        deviceCredentials.setDeviceId(new DeviceId(deviceId));
+        deviceCredentials.setCredentialsType(DeviceCredentialsType.ACCESS_TOKEN);
+        deviceCredentials.setCredentialsId(accessToken);
+        return deviceCredentials;
+    }
+
+    /**
+     * Puts a created entity into the metadata cache and the generation journal; also used by {@link AsyncTbRestClient}.
+     */
+    Customer registerCustomer(Customer customer) {
+        if (this.entityMetadataCache.isEnabled()) {
+            this.entityMetadataCache.putCustomer(customer);
+        }
+        this.generationJournal.recordEntity(EntityType.CUSTOMER, customer.getTitle(), customer.getUuidId());
+        return customer;
+    }
+
+    Asset registerAsset(Asset asset) {
+        if (this.entityMetadataCache.isEnabled()) {
+            this.entityMetadataCache.putAsset(asset);
+        }
+        this.generationJournal.recordEntity(EntityType.ASSET, asset.getName(), asset.getUuidId());
+        return asset;
+    }
+
+    Device registerDevice(Device device) {
+        if (this.entityMetadataCache.isEnabled()) {
+            this.entityMetadataCache.putDevice(device);
+        }
+        this.generationJournal.recordEntity(EntityType.DEVICE, device.getName(), device.getUuidId());
+        return device;
+    }
+
+    DeviceCredentials registerCredentials(DeviceCredentials deviceCredentials) {
+        UUID deviceId = deviceCredentials.getDeviceId().getId();
+        if (this.entityMetadataCache.isEnabled()) {
+            this.entityMetadataCache.putCredentials(deviceCredentials);
+        }
+        this.accessTokenDeviceIds.put(deviceCredentials.getCredentialsId(), deviceId);
+        this.generationJournal.recordAccessToken(deviceId, deviceCredentials.getCredentialsId());
+        return deviceCredentials;
+    }
+
+    /**
+     * Device of the journal or of the tenant, the create-if-not-exists lookup.
+     */
+    Optional<Device> findExistingDevice(String name, String type) {
+        var journalDevice = this.generationJournal.getEntityId(EntityType.DEVICE, name);
+        if (journalDevice.isPresent()) {
+            return Optional.of(makeDevice(journalDevice.get(), name, type));
+        }
+        return findDevice(name);
+    }
+
+    /**
+     * Credentials known without a request: the journal has them from the interrupted run, or the cache has them.
+     * Credentials are cached as they are requested, the prefetch does not load them for the whole tenant.
+     */
+    Optional<DeviceCredentials> findKnownCredentials(UUID id) {
+        var journalAccessToken = this.generationJournal.getAccessToken(id);
+        if (journalAccessToken.isPresent()) {
+            this.accessTokenDeviceIds.put(journalAccessToken.get(), id);
+            return Optional.of(makeAccessTokenCredentials(id, journalAccessToken.get()));
+        }
+        if (!this.entityMetadataCache.isEnabled()) {
+            return Optional.empty();
+        }
+        return this.entityMetadataCache.getCredentials(id).map(this::registerCredentials);
+    }
+
+    private DeviceCredentials fetchDeviceCredentials(UUID id) {
+        return restTemplate.getForEntity(baseURL + "/api/device/" + id.toString() + "/credentials", DeviceCredentials.class).getBody();
+    }
+
+    /**
+     * Lookups of the create-if-not-exists calls, which may check many names, so they prefetch the tenant entities
+     * when the cache is enabled. The public getters always ask the server.
+     */
+    private Optional<Customer> findCustomer(String title) {
+        return this.entityMetadataCache.isEnabled()
+                ? getEntityMetadataCache().getCustomer(title)
+                : getCustomerByTitle(title);
+    }
+
+    private Optional<Asset> findAsset(String name) {
+        return this.entityMetadataCache.isEnabled()
+                ? getEntityMetadataCache().getAsset(name)
+                : getAssetByName(name);
+    }
+
+    private Optional<Device> findDevice(String name) {
+        return this.entityMetadataCache.isEnabled()
+                ? getEntityMetadataCache().getDevice(name)
+                : getDeviceByName(name);
+    }
+
+    private EntityMetadataCache getEntityMetadataCache() {
+        if (!this.entityMetadataCache.isLoaded()) {
+            prefetchEntityMetadata();
+        }
+        return this.entityMetadataCache;
+    }
+
+    private synchronized void prefetchEntityMetadata() {
+        if (this.entityMetadataCache.isLoaded()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        var customerReference = new ParameterizedTypeReference<PageData<Customer>>() {
+        };
+        var assetReference = new ParameterizedTypeReference<PageData<Asset>>() {
+        };
+        var deviceReference = new ParameterizedTypeReference<PageData<Device>>() {
+        };
+
+        this.entityMetadataCache.startLoading();
+        try {
+            var customerFingerprint = getFingerprint("/api/customers", customerReference);
+            var assetFingerprint = getFingerprint("/api/tenant/assets", assetReference);
+            var deviceFingerprint = getFingerprint("/api/tenant/devices", deviceReference);
+            String key = this.baseURL + " " + this.tenantId;
+            if (this.entityMetadataCache.restore(key, customerFingerprint, assetFingerprint, deviceFingerprint)) {
+                return;
+            }
+
+            List<Customer> customers = new ArrayList<>(getAllEntities("/api/customers", customerReference, new HashMap<>()));
+            List<Asset> assets = new ArrayList<>(getAllEntities("/api/tenant/assets", assetReference, new HashMap<>()));
+            List<Device> devices = new ArrayList<>(getAllEntities("/api/tenant/devices", deviceReference, new HashMap<>()));
+
+            this.entityMetadataCache.load(key, customers, assets, devices);
+            log.info("Entity metadata is prefetched in {} ms: customers = {}, assets = {}, devices = {}",
+                    System.currentTimeMillis() - startTime, customers.size(), assets.size(), devices.size()
+            );
+        } finally {
+            this.entityMetadataCache.stopLoading();
+        }
+    }
+
+    /**
+     * A single page with the newest entity gives both the number of entities and the last creation time.
+     */
+    private <T extends BaseData<?>> EntityMetadataCache.Fingerprint getFingerprint(String request, ParameterizedTypeReference<PageData<T>> type) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("sortProperty", "createdTime");
+        params.put("sortOrder", "DESC");
+        PageData<T> page = getPage(request, type, params, 0, 1);
+        long lastCreatedTime = page.getData().isEmpty() ? 0 : page.getData().get(0).getCreatedTime();
+        return new EntityMetadataCache.Fingerprint(page.getTotalElements(), lastCreatedTime);
+    }
+
+    /**
+     * Names are split into batches, each batch is a single query with the names OR-ed in the key filter,
+     * so the number of requests depends on the number of names and not on the number of tenant entities.
+     */
+    private List<EntityFields> findEntitiesByNames(EntityType entityType, Collection<String> names) {
+        List<String> distinctNames = names.stream().distinct().collect(Collectors.toList());
+        List<CompletableFuture<List<EntityFields>>> futures = new ArrayList<>();
+        for (int from = 0; from < distinctNames.size(); from += ENTITY_QUERY_BATCH_SIZE) {
+            List<String> batch = distinctNames.subList(from, Math.min(from + ENTITY_QUERY_BATCH_SIZE, distinctNames.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> queryEntitiesByNames(entityType, batch), this.fetchExecutor));
+        }
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+    }
+
+    private List<EntityFields> queryEntitiesByNames(EntityType entityType, List<String> names) {
+        EntityTypeFilter entityFilter = new EntityTypeFilter();
+        entityFilter.setEntityType(entityType);
+
+        List<KeyFilterPredicate> predicates = names.stream()
+                .map(name -> {
+                    StringFilterPredicate predicate = new StringFilterPredicate();
+                    predicate.setOperation(StringFilterPredicate.StringOperation.EQUAL);
+                    predicate.setValue(new FilterPredicateValue<>(name));
+                    predicate.setIgnoreCase(false);
+                    return predicate;
+                })
+                .collect(Collectors.toList());
+
+        ComplexFilterPredicate namePredicate = new ComplexFilterPredicate();
+        namePredicate.setOperation(ComplexFilterPredicate.ComplexOperation.OR);
+        namePredicate.setPredicates(predicates);
+
+        KeyFilter nameFilter = new KeyFilter();
+        nameFilter.setKey(new EntityKey(EntityKeyType.ENTITY_FIELD, "name"));
+        nameFilter.setValueType(EntityKeyValueType.STRING);
+        nameFilter.setPredicate(namePredicate);
+
+        List<EntityKey> entityFields = List.of(
+                new EntityKey(EntityKeyType.ENTITY_FIELD, "name"),
+                new EntityKey(EntityKeyType.ENTITY_FIELD, "type"),
+                new EntityKey(EntityKeyType.ENTITY_FIELD, "createdTime")
+        );
+
+        List<EntityFields> result = new ArrayList<>();
+        int pageIndex = 0;
+        boolean hasNext = true;
+        while (hasNext) {
+            EntityDataPageLink pageLink = new EntityDataPageLink(this.pageSize, pageIndex++, null, null);
+            EntityDataQuery query = new EntityDataQuery(entityFilter, pageLink, entityFields, List.of(), List.of(nameFilter));
+            JsonNode page = restTemplate.postForEntity(baseURL + "/api/entitiesQuery/find", query, JsonNode.class).getBody();
+            if (isNull(page)) {
+                break;
+            }
+            for (JsonNode entity : page.path("data")) {
+                JsonNode fields = entity.path("latest").path(EntityKeyType.ENTITY_FIELD.name());
+                result.add(new EntityFields(
+                        UUID.fromString(entity.path("entityId").path("id").asText()),
+                        fields.path("name").path("value").asText(),
+                        fields.path("type").path("value").asText(),
+                        fields.path("createdTime").path("value").asLong()
+                ));
+            }
+            hasNext = page.path("hasNext").asBoolean(false);
+        }
+        return result;
+    }
+
     private <T> Set<T> getAllEntities(String request,
                                       ParameterizedTypeReference<PageData<T>> type,
                                       Map<String, Object> customParams) {
-        Set<T> result = new HashSet<>();
-        var pageSize = 100;
-        var pageIndex = 0;
-        var hasNextPage = true;
-        PageData<T> page;
+        try (Stream<T> entities = streamAllEntities(request, type, customParams)) {
+            return entities.collect(Collectors.toSet());
+        }
+    }
 
+    private <T> Stream<T> streamAllEntities(String request,
+                                            ParameterizedTypeReference<PageData<T>> type,
+                                            Map<String, Object> customParams) {
+        return PageIterator.stream(
+                pageIndex -> getPage(request, type, customParams, pageIndex, this.pageSize),
+                this.fetchExecutor,
+                this.prefetchPages
+        );
+    }
+
+    private <T> PageData<T> getPage(String request,
+                                    ParameterizedTypeReference<PageData<T>> type,
+                                    Map<String, Object> customParams,
+                                    int pageIndex,
+                                    int pageSize) {
+        Map<String, Object> params = new HashMap<>(customParams);
+        params.put("page", pageIndex);
+        params.put("pageSize", pageSize);
         try {
-            while (hasNextPage) {
-                customParams.put("page", pageIndex);
-                customParams.put("pageSize", pageSize);
-
-                var urlParams = generateUrlParams(customParams);
-                page = restTemplate.exchange(
-                        baseURL + request + urlParams,
-                        HttpMethod.GET,
-                        null,
-                        type
-                ).getBody();
-
-                if (isNull(page)) break;
-
-                hasNextPage = page.hasNext();
-                customParams.put("page", pageIndex++);
-                result.addAll(page.getData());
-            }
-            return result;
+            PageData<T> page = restTemplate.exchange(baseURL + request + generateUrlParams(params), HttpMethod.GET, null, type).getBody();
+            return isNull(page) ? new PageData<>() : page;
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException("Can not generate url params", e);
         }
@@ -738,9 +1216,122 @@ public class TbRestClient {
         return queryString.toString();
     }
 
-    private void pushTelemetry0(String accessToken, Telemetry<?> telemetry) {
-        final String json = telemetry.toJson();
-        restTemplate.postForEntity(baseURL + "/api/v1/" + accessToken + "/telemetry", json, String.class).getBody();
+    private void logCloudPush(String telemetryName) {
+        log.info("Pushing telemetry '{}' to the cloud, {}, suppress error count = {}",
+                telemetryName,
+                this.cloudPushController.getState(),
+                this.cloudPushController.getSuppressErrorCount()
+        );
+    }
+
+    private int sourceChunkSize() {
+        return this.cloud
+                ? this.cloudPushController.getBatchSize()
+                : PUSH_TELEMETRY_SOURCE_CHUNK_SIZE;
+    }
+
+    /**
+     * Points up to the timestamp acknowledged by the generation journal were sent by the interrupted run.
+     */
+    private int firstUnacknowledgedIndex(String accessToken, Telemetry<?> telemetry) {
+        long acknowledgedTs = this.generationJournal.getAcknowledgedTs(accessToken, telemetry.getName());
+        return acknowledgedTs == GenerationJournal.NOT_ACKNOWLEDGED
+                ? 0
+                : telemetry.ceilingIndex(acknowledgedTs + 1);
     }
 
+    private <T> TelemetrySource<T> skipAcknowledged(String accessToken, String key, TelemetrySource<T> source) {
+        long acknowledgedTs = this.generationJournal.getAcknowledgedTs(accessToken, key);
+        return acknowledgedTs == GenerationJournal.NOT_ACKNOWLEDGED
+                ? source
+                : source.after(acknowledgedTs);
+    }
+
+    private void pushTelemetryChunk(String accessToken, Telemetry<?> chunk, int chunkNumber) {
+        if (this.cloud) {
+            pushCloudBatch(accessToken, chunk.batch(0, chunk.size()));
+            log.info("Batch is sent ({})", chunkNumber);
+        } else {
+            pushTelemetry0(accessToken, chunk.batch(0, chunk.size()));
+        }
+    }
+
+    private void pushCloudBatch(String accessToken, TelemetryPayload batch) {
+        int errorCount = 0;
+        while (true) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(this.cloudPushController.getDelay());
+                long startTime = System.nanoTime();
+                long bytes = pushTelemetry0(accessToken, batch);
+                this.cloudPushController.onSuccess(batch.size(), bytes, System.nanoTime() - startTime);
+                return;
+            } catch (Exception e) {
+                this.cloudPushController.onFailure(e instanceof HttpStatusCodeException
+                        ? ((HttpStatusCodeException) e).getRawStatusCode()
+                        : -1
+                );
+                log.error("Error during pushing telemetry to the cloud, error count = " + errorCount + ", retry...", e);
+                errorCount++;
+                this.httpMetrics.recordRetry(HttpMethod.POST.name(), "/api/v1/" + accessToken + "/telemetry");
+                if (this.cloudPushController.getSuppressErrorCount() <= errorCount) {
+                    throw new PushTelemetryException(batch.getName());
+                }
+            }
+        }
+    }
+
+    private long pushTelemetry0(String accessToken, TelemetryPayload batch) {
+        String path = "/api/v1/" + accessToken + "/telemetry";
+        AtomicLong bytes = new AtomicLong(HttpMetrics.UNKNOWN_SIZE);
+        AtomicInteger statusCode = new AtomicInteger(-1);
+        long startTime = System.nanoTime();
+        try {
+            executeTelemetryRequest(path, batch, bytes, statusCode);
+        } catch (HttpStatusCodeException e) {
+            statusCode.set(e.getRawStatusCode());
+            throw e;
+        } finally {
+            this.httpMetrics.record(HttpMethod.POST.name(), path, statusCode.get(), bytes.get(), HttpMetrics.UNKNOWN_SIZE, System.nanoTime() - startTime);
+        }
+        this.generationJournal.acknowledge(accessToken, batch.getName(), batch.getLastTs());
+        return bytes.get();
+    }
+
+    private void executeTelemetryRequest(String path, TelemetryPayload batch, AtomicLong bytes, AtomicInteger statusCode) {
+        telemetryRestTemplate.execute(baseURL + path, HttpMethod.POST,
+                request -> {
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    this.requestCompressor.setContentEncoding(request.getHeaders());
+                    writeBody(request, outputStream -> {
+                        CountingOutputStream body = new CountingOutputStream(outputStream);
+                        try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(this.requestCompressor.compress(body))) {
+                            batch.writeJson(generator, this.telemetryDecimalPlaces);
+                        }
+                        bytes.set(body.getCount());
+                    });
+                },
+                response -> {
+                    statusCode.set(response.getRawStatusCode());
+                    return null;
+                }
+        );
+    }
+
+    private static void writeBody(ClientHttpRequest request, StreamingHttpOutputMessage.Body body) throws IOException {
+        if (request instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) request).setBody(body);
+        } else {
+            body.writeTo(request.getBody());
+        }
+    }
+
+
+    @Getter
+    @AllArgsConstructor
+    private static class EntityFields {
+        private final UUID id;
+        private final String name;
+        private final String type;
+        private final long createdTime;
+    }
 }
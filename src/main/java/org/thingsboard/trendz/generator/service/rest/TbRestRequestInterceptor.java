@@ -1,10 +1,7 @@
 package org.thingsboard.trendz.generator.service.rest;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.interfaces.DecodedJWT;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -13,36 +10,29 @@ import org.springframework.http.client.support.HttpRequestWrapper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
-import org.thingsboard.trendz.generator.model.rest.AuthToken;
-import org.thingsboard.trendz.generator.model.rest.LoginRequest;
+import org.thingsboard.trendz.generator.service.jwt.TokenManager;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.Date;
 
 
 @Slf4j
 @Service
 public class TbRestRequestInterceptor implements ClientHttpRequestInterceptor {
 
-    private static final String JWT_TOKEN_HEADER_PARAM = "X-Authorization";
-    private final String tbApiUser;
-    private final String tbApiPass;
-    private final TbRestClient tbRestClient;
-
-    private AuthToken authToken;
+    static final String JWT_TOKEN_HEADER_PARAM = "X-Authorization";
+    private final TokenManager tokenManager;
+    private final HttpMetrics httpMetrics;
 
 
     public TbRestRequestInterceptor(
-            @Value("${tb.api.username}") String tbApiUser,
-            @Value("${tb.api.password}") String tbApiPass,
-            @Autowired TbRestClient tbRestClient,
-            @Autowired RestTemplate restTemplate
+            @Autowired TokenManager tokenManager,
+            @Autowired RestTemplate restTemplate,
+            @Autowired HttpMetrics httpMetrics
     ) {
-        this.tbApiUser = tbApiUser;
-        this.tbApiPass = tbApiPass;
-        this.tbRestClient = tbRestClient;
+        this.tokenManager = tokenManager;
+        this.httpMetrics = httpMetrics;
         restTemplate.setInterceptors(Collections.singletonList(this));
     }
 
@@ -51,31 +41,30 @@ public class TbRestRequestInterceptor implements ClientHttpRequestInterceptor {
         if (TbRestClient.LOGIN_PATH.equals(request.getURI().getPath())) {
             return execution.execute(request, body);
         }
-        var token = "Bearer " + gainToken();
+        var token = "Bearer " + this.tokenManager.getToken();
 
         HttpRequest wrapper = new HttpRequestWrapper(request);
         wrapper.getHeaders().set(JWT_TOKEN_HEADER_PARAM, token);
 
-        logRequestDetails(request, body);
-        var response = execution.execute(wrapper, body);
-        logResponseDetails(response);
-        return response;
-    }
-
-
-    private String gainToken() {
-        if (this.authToken == null) {
-            this.authToken = tbRestClient.login(new LoginRequest(this.tbApiUser, this.tbApiPass));
-        } else if (isTokenExpired(this.authToken)) {
-            this.authToken = tbRestClient.login(new LoginRequest(this.tbApiUser, this.tbApiPass));
+        if (log.isDebugEnabled()) {
+            logRequestDetails(request, body);
         }
-        return this.authToken.getToken();
+        long startTime = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(wrapper, body);
+        } catch (IOException | RuntimeException e) {
+            this.httpMetrics.record(request.getMethodValue(), request.getURI().getPath(), -1, body.length, HttpMetrics.UNKNOWN_SIZE, System.nanoTime() - startTime);
+            throw e;
+        }
+        this.httpMetrics.record(request.getMethodValue(), request.getURI().getPath(), response.getRawStatusCode(), body.length,
+                response.getHeaders().getContentLength(), System.nanoTime() - startTime);
+        if (log.isDebugEnabled()) {
+            logResponseDetails(response);
+        }
+        return response;
     }
 
-    private boolean isTokenExpired(AuthToken authToken) {
-        DecodedJWT jwt = JWT.decode(authToken.getToken());
-        return jwt.getExpiresAt().before(new Date());
-    }
 
     private void logRequestDetails(HttpRequest request, byte[] body) {
         log.debug("Request URI     : {}", request.getURI());
@@ -0,0 +1,228 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.export.TelemetryExporter;
+import org.thingsboard.trendz.generator.service.mqtt.MqttGatewayTransport;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes telemetry in the background so that solutions can keep creating entities meanwhile.
+ * Uploads of the same device run one after another in submission order, uploads of different devices run in parallel.
+ * Submitting blocks while {@code maxInFlight} uploads are not finished yet, {@link #awaitAll()} waits for the rest
+ * and rethrows the first failure, {@link #cancelAll()} skips the rest when the solution is failed.
+ * With {@code tb.mqtt.enabled} the telemetry goes through {@link MqttGatewayTransport},
+ * in the export mode it is written to files by {@link TelemetryExporter}.
+ */
+@Slf4j
+@Service
+public class TelemetryUploader {
+
+    private final TbRestClient tbRestClient;
+    private final MqttGatewayTransport mqttGatewayTransport;
+    private final TelemetryExporter telemetryExporter;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final Map<String, CompletableFuture<Void>> deviceTails = new ConcurrentHashMap<>();
+    private final Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+
+    @Autowired
+    public TelemetryUploader(
+            TbRestClient tbRestClient,
+            MqttGatewayTransport mqttGatewayTransport,
+            TelemetryExporter telemetryExporter,
+            @Value("${tb.api.upload.threads}") int threads,
+            @Value("${tb.api.upload.maxInFlight}") int maxInFlight,
+            @Value("${tb.api.upload.virtualThreads}") boolean virtualThreads
+    ) {
+        this.tbRestClient = tbRestClient;
+        this.mqttGatewayTransport = mqttGatewayTransport;
+        this.telemetryExporter = telemetryExporter;
+        this.executor = createExecutor(threads, virtualThreads);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+
+    /**
+     * The returned future completes when the upload is finished; its failure is also rethrown by {@link #awaitAll()}.
+     */
+    public CompletableFuture<Void> pushTelemetry(String accessToken, Telemetry<?>... telemetries) {
+        if (isRestTransport()) {
+            return submit(accessToken, () -> this.tbRestClient.pushTelemetry(accessToken, telemetries));
+        }
+        return submitSources(accessToken, Arrays.stream(telemetries)
+                .map(TelemetrySource::of)
+                .collect(Collectors.toList())
+        );
+    }
+
+    public CompletableFuture<Void> pushTelemetry(String accessToken, TelemetrySource<?>... sources) {
+        if (isRestTransport()) {
+            return submit(accessToken, () -> this.tbRestClient.pushTelemetry(accessToken, sources));
+        }
+        return submitSources(accessToken, List.of(sources));
+    }
+
+    public void awaitAll() {
+        Result result = drain();
+        if (result.failure != null) {
+            log.error("Telemetry uploads failed: {}/{}", result.failedCount, result.count);
+            throw result.failure;
+        }
+        log.info("Telemetry uploads are finished: {}", result.count);
+    }
+
+    /**
+     * Skips the uploads which have not started yet and waits for the running ones, so that nothing reads the telemetry
+     * of a failed solution or writes its journal and export files after it is finished. Failures are only logged,
+     * the solution is failed already.
+     */
+    public void cancelAll() {
+        this.cancelled = true;
+        try {
+            Result result = drain();
+            if (0 < result.count) {
+                log.warn("Telemetry uploads are cancelled: {}, failed: {}", result.count, result.failedCount, result.failure);
+            }
+        } finally {
+            this.cancelled = false;
+        }
+    }
+
+
+    private Result drain() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        CompletableFuture<Void> future;
+        while ((future = this.pending.poll()) != null) {
+            futures.add(future);
+        }
+
+        Result result = new Result(futures.size());
+        for (CompletableFuture<Void> upload : futures) {
+            try {
+                upload.join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof CancellationException)) {
+                    result.fail(e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : e
+                    );
+                }
+            }
+        }
+        this.deviceTails.clear();
+
+        if (!isRestTransport()) {
+            try {
+                if (this.telemetryExporter.isOpen()) {
+                    this.telemetryExporter.flush();
+                } else {
+                    this.mqttGatewayTransport.flush();
+                }
+            } catch (RuntimeException e) {
+                result.fail(e);
+            }
+        }
+        return result;
+    }
+
+    private boolean isRestTransport() {
+        return !this.telemetryExporter.isOpen() && !this.mqttGatewayTransport.isEnabled();
+    }
+
+    private CompletableFuture<Void> submitSources(String accessToken, List<? extends TelemetrySource<?>> sources) {
+        if (this.telemetryExporter.isOpen()) {
+            return submit(accessToken, () -> this.telemetryExporter.export(accessToken, sources));
+        }
+        return submit(accessToken, () -> this.mqttGatewayTransport.pushTelemetry(accessToken, sources));
+    }
+
+    private CompletableFuture<Void> submit(String accessToken, Runnable upload) {
+        try {
+            this.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for telemetry upload slot", e);
+        }
+
+        Runnable task = () -> {
+            if (this.cancelled) {
+                throw new CancellationException("Telemetry upload is cancelled");
+            }
+            upload.run();
+        };
+        CompletableFuture<Void> future = this.deviceTails.compute(accessToken, (token, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, this.executor)
+                : tail.handle((result, error) -> null).thenRunAsync(task, this.executor)
+        );
+        future.whenComplete((result, error) -> this.inFlight.release());
+        this.pending.add(future);
+        return future;
+    }
+
+    private static ExecutorService createExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                log.info("Telemetry uploader uses virtual threads");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not supported by the current JVM, using {} platform threads", threads);
+            }
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-uploader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+
+    private static class Result {
+
+        private final int count;
+        private int failedCount;
+        private RuntimeException failure;
+
+        private Result(int count) {
+            this.count = count;
+        }
+
+        private void fail(RuntimeException e) {
+            this.failedCount++;
+            if (this.failure == null) {
+                this.failure = e;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.thingsboard.trendz.generator.solution.electricity_load;
 
+import com.google.common.collect.Iterators;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -20,11 +21,16 @@ import org.thingsboard.trendz.generator.model.ModelEntity;
 import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
 import org.thingsboard.trendz.generator.model.tb.CustomerData;
 import org.thingsboard.trendz.generator.model.tb.CustomerUser;
+import org.thingsboard.trendz.generator.model.tb.MappedTelemetryStore;
 import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
 import org.thingsboard.trendz.generator.model.tb.Timestamp;
 import org.thingsboard.trendz.generator.service.FileService;
 import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
+import org.thingsboard.trendz.generator.service.rest.AsyncTbRestClient;
+import org.thingsboard.trendz.generator.service.rest.EntityAssigner;
 import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.service.rest.TelemetryUploader;
 import org.thingsboard.trendz.generator.solution.SolutionTemplateGenerator;
 import org.thingsboard.trendz.generator.solution.electricity_load.model.ElectricityLoadDiagrams20112014;
 import org.thingsboard.trendz.generator.utils.DateTimeUtils;
@@ -34,13 +40,16 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,21 +68,31 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final String DATE_FIELD = "Date";
-    private static final int DEVICE_LIMIT = 10;
+    private static final int SHIFT_YEARS = 12;
+    private static final int SHORT_TELEMETRY_END_YEAR = 2025;
 
     private final TbRestClient tbRestClient;
     private final FileService fileService;
     private final AnomalyService anomalyService;
+    private final TelemetryUploader telemetryUploader;
+    private final EntityAssigner entityAssigner;
+    private final AsyncTbRestClient asyncTbRestClient;
 
     @Autowired
     public ElectricityLoadSolution(
             TbRestClient tbRestClient,
             FileService fileService,
-            AnomalyService anomalyService
+            AnomalyService anomalyService,
+            TelemetryUploader telemetryUploader,
+            EntityAssigner entityAssigner,
+            AsyncTbRestClient asyncTbRestClient
     ) {
         this.tbRestClient = tbRestClient;
         this.fileService = fileService;
         this.anomalyService = anomalyService;
+        this.telemetryUploader = telemetryUploader;
+        this.entityAssigner = entityAssigner;
+        this.asyncTbRestClient = asyncTbRestClient;
     }
 
 
@@ -90,7 +109,7 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
             validateCustomerData();
 
             if (!tbRestClient.isPe()) {
-                ModelData data = makeData(true, 0L, 0L);
+                ModelData data = makeData(null, true, 0L, 0L);
                 validateData(data);
             }
 
@@ -106,10 +125,16 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
             long startGenerationTime, long endGenerationTime
     ) {
         log.info("Electricity Load Solution - start generation");
-        try {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.fileService.createWorkDirectory(getSolutionName()))) {
             CustomerData customerData = createCustomerData(strictGeneration);
-            ModelData data = makeData(skipTelemetry, startGenerationTime, endGenerationTime);
-            applyData(data, customerData, strictGeneration);
+            ModelData data = makeData(store, skipTelemetry, startGenerationTime, endGenerationTime);
+            try {
+                applyData(data, customerData, strictGeneration);
+            } finally {
+                this.entityAssigner.cancelAll();
+                // uploads read the store, it is deleted on close
+                this.telemetryUploader.cancelAll();
+            }
 
             log.info("Electricity Load Solution - generation is completed!");
         } catch (Exception e) {
@@ -124,7 +149,7 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
             deleteCustomerData();
 
             if (!tbRestClient.isPe()) {
-                ModelData data = makeData(true, 0L, 0L);
+                ModelData data = makeData(null, true, 0L, 0L);
                 deleteData(data);
             }
 
@@ -163,50 +188,43 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
     }
 
 
-    private ModelData makeData(boolean skipTelemetry, long startGenerationTime, long endGenerationTime) {
+    private ModelData makeData(MappedTelemetryStore store, boolean skipTelemetry, long startGenerationTime, long endGenerationTime) {
         Path filePath = this.fileService.getFilePath(getSolutionName(), "LD2011_2014.txt");
 
-        Map<String, Telemetry<Double>> telemetryMap;
+        Map<String, TelemetrySource<Double>> telemetryMap;
         if (skipTelemetry) {
             Set<String> allDevicesNames = getAllDevicesNames(filePath);
             telemetryMap = allDevicesNames.stream()
-                    .map(deviceName -> Map.entry(deviceName, new Telemetry<Double>("skip")))
+                    .map(deviceName -> Map.entry(deviceName, TelemetrySource.<Double>empty("skip")))
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         } else {
             log.info("Parsing telemetry...");
-            telemetryMap = loadTelemetry(filePath, startGenerationTime, endGenerationTime);
+            telemetryMap = loadTelemetry(store, filePath, startGenerationTime, endGenerationTime);
             log.info("Telemetry was parsed");
         }
 
         Set<AnomalyInfo> anomalyInfoSet = MySortedSet.of();
+        long shortTelemetryEndTs = DateTimeUtils.toTs(ZonedDateTime.of(SHORT_TELEMETRY_END_YEAR, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault()));
 
         log.info("Preprocessing the telemetry");
         Set<ModelEntity> devices = telemetryMap.keySet().stream()
                 .flatMap(deviceName -> {
-                    Telemetry<Double> originalTelemetry = telemetryMap.get(deviceName);
-                    this.anomalyService.applyAnomaly(originalTelemetry, anomalyInfoSet);
+                    TelemetrySource<Double> originalTelemetry = this.anomalyService.applyAnomaly(telemetryMap.get(deviceName), anomalyInfoSet);
 
-                    Telemetry<Double> fullTelemetry = originalTelemetry.getPoints().stream()
-                            .map(point -> {
+                    TelemetrySource<Double> fullTelemetry = TelemetrySource.of(originalTelemetry.getName(), () -> Iterators.transform(
+                            originalTelemetry.iterator(),
+                            point -> {
                                 Timestamp oldTs = point.getTs();
-                                Timestamp newTs = Timestamp.of(DateTimeUtils.toTs(DateTimeUtils.fromTs(oldTs.get()).plusYears(12)));
+                                Timestamp newTs = Timestamp.of(DateTimeUtils.toTs(DateTimeUtils.fromTs(oldTs.get()).plusYears(SHIFT_YEARS)));
 
                                 return new Telemetry.Point<>(newTs, point.getValue());
-                            })
-                            .collect(Collectors.collectingAndThen(
-                                    Collectors.toCollection(TreeSet::new),
-                                    set -> new Telemetry<>(originalTelemetry.getName(), set)
-                            ));
-
-                    Telemetry<Double> shortTelemetry = fullTelemetry.getPoints().stream()
-                            .filter(point -> {
-                                ZonedDateTime date = DateTimeUtils.fromTs(point.getTs());
-                                return date.getYear() < 2025;
-                            })
-                            .collect(Collectors.collectingAndThen(
-                                    Collectors.toCollection(TreeSet::new),
-                                    set -> new Telemetry<>(originalTelemetry.getName(), set)
-                            ));
+                            }
+                    ));
+
+                    TelemetrySource<Double> shortTelemetry = TelemetrySource.of(originalTelemetry.getName(), () -> Iterators.filter(
+                            fullTelemetry.iterator(),
+                            point -> point.getTs().get() < shortTelemetryEndTs
+                    ));
 
                     return Stream.of(
                             new ElectricityLoadDiagrams20112014(deviceName, "", fullTelemetry),
@@ -241,11 +259,29 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
                 .map(item -> (ElectricityLoadDiagrams20112014) item)
                 .collect(Collectors.toCollection(TreeSet::new));
 
-        int iterator = 1;
+        // devices and credentials are requested all at once, the telemetry is submitted in the meter order
+        Map<ElectricityLoadDiagrams20112014, CompletableFuture<DeviceCredentials>> meterCredentials = new LinkedHashMap<>();
         for (ElectricityLoadDiagrams20112014 meter : meters) {
+            meterCredentials.put(meter, createMeter(meter, ownerId, strictGeneration));
+        }
+        CompletableFuture.allOf(meterCredentials.values().toArray(CompletableFuture[]::new)).join();
+
+        int iterator = 1;
+        for (Map.Entry<ElectricityLoadDiagrams20112014, CompletableFuture<DeviceCredentials>> entry : meterCredentials.entrySet()) {
+            ElectricityLoadDiagrams20112014 meter = entry.getKey();
+            DeviceCredentials deviceCredentials = entry.getValue().join();
+            UUID deviceId = deviceCredentials.getDeviceId().getId();
+            if (tbRestClient.isPe()) {
+                entityAssigner.addToGroup(deviceGroupId, deviceId);
+            } else {
+                entityAssigner.assignDeviceToCustomer(ownerId, deviceId);
+            }
             log.info("Pushing telemetry for device {}/{}: {}", iterator++, meters.size(), meter.getSystemName());
-            Device consumerDevice = createMeter(meter, ownerId, deviceGroupId, strictGeneration);
+            asyncTbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), meter.getConsumption());
         }
+
+        this.entityAssigner.flush();
+        this.telemetryUploader.awaitAll();
     }
 
     private void validateData(ModelData data) {
@@ -257,10 +293,7 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        Set<Device> badDevices = this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
-                .collect(Collectors.toSet());
+        Set<Device> badDevices = this.tbRestClient.findDevicesByNames(devices);
 
         if (!badDevices.isEmpty()) {
             log.error("There are devices that already exists: {}", badDevices);
@@ -277,44 +310,29 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
+        this.tbRestClient.findDevicesByNames(devices)
                 .forEach(device -> this.tbRestClient.deleteDevice(device.getUuidId()));
     }
 
 
-    private Device createMeter(ElectricityLoadDiagrams20112014 meter, UUID ownerId, UUID deviceGroupId, boolean strictGeneration) {
-        Device device;
-
-        if (tbRestClient.isPe()) {
-            device = strictGeneration
-                    ? tbRestClient.createDevice(meter.getSystemName(), meter.entityType(), new CustomerId(ownerId), null)
-                    : tbRestClient.createDeviceIfNotExists(meter.getSystemName(), meter.entityType(), new CustomerId(ownerId), null);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
-        } else {
-            device = strictGeneration
-                    ? tbRestClient.createDevice(meter.getSystemName(), meter.entityType(), null)
-                    : tbRestClient.createDeviceIfNotExists(meter.getSystemName(), meter.entityType(), null);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
-        }
-
-        DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), meter.getConsumption());
-        return device;
+    private CompletableFuture<DeviceCredentials> createMeter(ElectricityLoadDiagrams20112014 meter, UUID ownerId, boolean strictGeneration) {
+        CustomerId customerId = tbRestClient.isPe() ? new CustomerId(ownerId) : null;
+        CompletableFuture<Device> device = strictGeneration
+                ? asyncTbRestClient.createDevice(meter.getSystemName(), meter.entityType(), customerId, null)
+                : asyncTbRestClient.createDeviceIfNotExists(meter.getSystemName(), meter.entityType(), customerId, null);
+        return device.thenCompose(created -> asyncTbRestClient.getDeviceCredentials(created.getUuidId()));
     }
 
-    private Map<String, Telemetry<Double>> loadTelemetry(Path filePath, long startGenerationTime, long endGenerationTime) {
+    private Map<String, TelemetrySource<Double>> loadTelemetry(MappedTelemetryStore store, Path filePath, long startGenerationTime, long endGenerationTime) {
         log.info("Start telemetry parsing from the file: {}", filePath);
         CSVFormat format = getFormat();
         try (
                 FileReader reader = new FileReader(filePath.toFile());
                 CSVParser parser = format.parse(reader);
         ) {
-            Map<String, Telemetry<Double>> consumptionMap = parser.getHeaderMap().keySet().stream()
+            Map<String, MappedTelemetryStore.Series> consumptionMap = parser.getHeaderMap().keySet().stream()
                     .filter(header -> !header.equals(DATE_FIELD))
-                    .limit(DEVICE_LIMIT)
-                    .map(header -> Map.entry(header, new Telemetry<Double>("consumption")))
+                    .map(header -> Map.entry(header, store.getSeries(header)))
                     .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
             int iterator = 1;
@@ -327,17 +345,13 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
                     continue;
                 }
 
-                for (String header : consumptionMap.keySet()) {
-                    if (header.equals(DATE_FIELD)) {
-                        continue;
-                    }
-                    String recordValue = record.get(header);
+                for (Map.Entry<String, MappedTelemetryStore.Series> entry : consumptionMap.entrySet()) {
+                    String recordValue = record.get(entry.getKey());
 
                     String valueStr = recordValue.replace(",", ".");
                     double value = Double.parseDouble(valueStr);
 
-                    Telemetry<Double> telemetry = consumptionMap.get(header);
-                    telemetry.add(new Telemetry.Point<>(Timestamp.of(ts), value));
+                    entry.getValue().append(ts, value);
                 }
 
                 iterator++;
@@ -347,7 +361,9 @@ public class ElectricityLoadSolution implements SolutionTemplateGenerator {
             }
 
             log.info("Start telemetry parsing from the file is finished");
-            return consumptionMap;
+            return consumptionMap.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue().toSource("consumption")))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
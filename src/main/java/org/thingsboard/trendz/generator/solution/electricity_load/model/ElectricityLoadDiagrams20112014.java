@@ -6,7 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.thingsboard.trendz.generator.model.ModelEntity;
-import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
 
 @Getter
 @ToString
@@ -23,5 +23,5 @@ public class ElectricityLoadDiagrams20112014 extends ModelEntity {
     private String systemName;
     private String systemLabel;
 
-    private Telemetry<Double> consumption;
+    private TelemetrySource<Double> consumption;
 }
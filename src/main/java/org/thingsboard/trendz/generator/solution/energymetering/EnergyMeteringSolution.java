@@ -1,5 +1,6 @@
 package org.thingsboard.trendz.generator.solution.energymetering;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
@@ -28,13 +29,17 @@ import org.thingsboard.trendz.generator.model.anomaly.AnomalyType;
 import org.thingsboard.trendz.generator.model.tb.Attribute;
 import org.thingsboard.trendz.generator.model.tb.CustomerData;
 import org.thingsboard.trendz.generator.model.tb.CustomerUser;
+import org.thingsboard.trendz.generator.model.tb.GeneratedTelemetrySource;
 import org.thingsboard.trendz.generator.model.tb.RelationType;
 import org.thingsboard.trendz.generator.model.tb.RuleNodeAdditionalInfo;
 import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
 import org.thingsboard.trendz.generator.service.FileService;
 import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
 import org.thingsboard.trendz.generator.service.dashboard.DashboardService;
+import org.thingsboard.trendz.generator.service.rest.EntityAssigner;
 import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.service.rest.TelemetryUploader;
 import org.thingsboard.trendz.generator.service.roolchain.RuleChainBuildingService;
 import org.thingsboard.trendz.generator.solution.SolutionTemplateGenerator;
 import org.thingsboard.trendz.generator.solution.energymetering.configuration.ApartmentConfiguration;
@@ -53,6 +58,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -84,6 +90,8 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
     private final AnomalyService anomalyService;
     private final RuleChainBuildingService ruleChainBuildingService;
     private final DashboardService dashboardService;
+    private final TelemetryUploader telemetryUploader;
+    private final EntityAssigner entityAssigner;
 
     private final Map<Apartment, ApartmentConfiguration> apartmentConfigurationMap = new HashMap<>();
     private final Map<EnergyMeter, UUID> energyMeterIdMap = new HashMap<>();
@@ -95,13 +103,17 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
             FileService fileService,
             AnomalyService anomalyService,
             RuleChainBuildingService ruleChainBuildingService,
-            DashboardService dashboardService
+            DashboardService dashboardService,
+            TelemetryUploader telemetryUploader,
+            EntityAssigner entityAssigner
     ) {
         this.tbRestClient = tbRestClient;
         this.fileService = fileService;
         this.anomalyService = anomalyService;
         this.ruleChainBuildingService = ruleChainBuildingService;
         this.dashboardService = dashboardService;
+        this.telemetryUploader = telemetryUploader;
+        this.entityAssigner = entityAssigner;
     }
 
     @Override
@@ -139,7 +151,12 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
         try {
             CustomerData customerData = createCustomerData(strictGeneration);
             ModelData data = makeData(skipTelemetry, startYear, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
-            applyData(data, customerData, strictGeneration);
+            try {
+                applyData(data, customerData, strictGeneration);
+            } finally {
+                this.entityAssigner.cancelAll();
+                this.telemetryUploader.cancelAll();
+            }
             createRuleChain(data, strictGeneration);
             dashboardService.createDashboardItems(getSolutionName(), customerData.getCustomer().getId(), strictGeneration);
 
@@ -704,6 +721,9 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                 this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), apartmentAsset.getId(), heatMeterDevice.getId());
             }
         }
+
+        this.entityAssigner.flush();
+        this.telemetryUploader.awaitAll();
     }
 
     private void validateData(ModelData data) {
@@ -732,20 +752,14 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        Set<Asset> badAssets = this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
-                .collect(Collectors.toSet());
+        Set<Asset> badAssets = this.tbRestClient.findAssetsByNames(assets);
 
         if (!badAssets.isEmpty()) {
             log.error("There are assets that already exists: {}", badAssets);
             throw new AssetAlreadyExistException(badAssets.iterator().next());
         }
 
-        Set<Device> badDevices = this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
-                .collect(Collectors.toSet());
+        Set<Device> badDevices = this.tbRestClient.findDevicesByNames(devices);
 
         if (!badDevices.isEmpty()) {
             log.error("There are devices that already exists: {}", badDevices);
@@ -779,14 +793,10 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
+        this.tbRestClient.findDevicesByNames(devices)
                 .forEach(device -> this.tbRestClient.deleteDevice(device.getUuidId()));
 
-        this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
+        this.tbRestClient.findAssetsByNames(assets)
                 .forEach(asset -> this.tbRestClient.deleteAsset(asset.getUuidId()));
     }
 
@@ -834,22 +844,22 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
         String letterAndNumber = buildingName.charAt(0) + titleNumber;
         long startDate = configuration.getStartDate() + createRandomDateBias();
 
-        Telemetry<Long> energyMeterConsumption = createTelemetryEnergyMeterConsumption(
+        TelemetrySource<Long> energyMeterConsumption = createTelemetryEnergyMeterConsumption(
                 configuration, skipTelemetry, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
         if (!fullTelemetryGeneration) {
-            this.anomalyService.applyAnomaly(energyMeterConsumption, configuration.getAnomalies());
+            energyMeterConsumption = this.anomalyService.applyAnomaly(energyMeterConsumption, configuration.getAnomalies());
         }
-        Telemetry<Long> energyMeterConsAbsolute = createTelemetryEnergyMeterConsAbsolute(energyMeterConsumption, skipTelemetry);
+        TelemetrySource<Long> energyMeterConsAbsolute = createTelemetryEnergyMeterConsAbsolute(energyMeterConsumption, skipTelemetry);
 
-        Telemetry<Long> heatMeterTemperature = createTelemetryHeatMeterTemperature(
+        TelemetrySource<Long> heatMeterTemperature = createTelemetryHeatMeterTemperature(
                 configuration, skipTelemetry, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
-        Telemetry<Long> heatMeterConsumption = createTelemetryHeatMeterConsumption(
+        TelemetrySource<Long> heatMeterConsumption = createTelemetryHeatMeterConsumption(
                 configuration, skipTelemetry, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
         if (!fullTelemetryGeneration) {
-            this.anomalyService.applyAnomaly(heatMeterTemperature, configuration.getAnomalies());
-            this.anomalyService.applyAnomaly(heatMeterConsumption, configuration.getAnomalies());
+            heatMeterTemperature = this.anomalyService.applyAnomaly(heatMeterTemperature, configuration.getAnomalies());
+            heatMeterConsumption = this.anomalyService.applyAnomaly(heatMeterConsumption, configuration.getAnomalies());
         }
-        Telemetry<Long> heatMeterConsAbsolute = createTelemetryHeatMeterConsAbsolute(heatMeterConsumption, skipTelemetry);
+        TelemetrySource<Long> heatMeterConsAbsolute = createTelemetryHeatMeterConsAbsolute(heatMeterConsumption, skipTelemetry);
 
         EnergyMeter energyMeter = EnergyMeter.builder()
                 .systemName("Energy Meter " + letterAndNumber)
@@ -910,15 +920,16 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
     }
 
 
-    private Telemetry<Long> createTelemetryEnergyMeterConsumption(
+    @VisibleForTesting
+    TelemetrySource<Long> createTelemetryEnergyMeterConsumption(
             ApartmentConfiguration configuration, boolean skipTelemetry, boolean fullTelemetryGeneration,
             long startGenerationTime, long endGenerationTime
     ) {
         if (skipTelemetry) {
-            return new Telemetry<>("skip");
+            return TelemetrySource.empty("skip");
         }
 
-        Telemetry<Long> result = new Telemetry<>("energyConsumption");
+        String name = "energyConsumption";
         boolean occupied = configuration.isOccupied();
         int level = configuration.getLevel();
 
@@ -926,12 +937,11 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
         try {
             fromToPair = DateTimeUtils.calculateNewDateRange(configuration.getStartDate(), System.currentTimeMillis(), startGenerationTime, endGenerationTime, fullTelemetryGeneration);
         } catch (IllegalStateException e) {
-            return new Telemetry<>("skip");
+            return TelemetrySource.empty("skip");
         }
 
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime nowDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
-        ZonedDateTime iteratedDate = startDate;
 
         if (occupied) {
             switch (level) {
@@ -943,16 +953,11 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                     double phase = (3.14 * 1) / 12;
                     double koeff = 3.14 / 24;
 
-                    while (iteratedDate.isBefore(nowDate)) {
-                        long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+                    return new GeneratedTelemetrySource<>(name, startDate, nowDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
                         long argument = iteratedDate.getHour() - 12;
-                        long noise = (long) (RandomUtils.getRandomNumber(-noiseAmplitude, noiseAmplitude) * noiseWidth);
-                        long value = minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
-
-                        result.add(iteratedTs, value);
-                        iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-                    }
-                    return result;
+                        long noise = (long) (RandomUtils.getRandomNumber(random, -noiseAmplitude, noiseAmplitude) * noiseWidth);
+                        return minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
+                    });
                 }
                 case 2: {
                     long minValue = 15_000;
@@ -962,16 +967,11 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                     double phase = (3.14 * 3) / 12;
                     double koeff = 3.14 / 12;
 
-                    while (iteratedDate.isBefore(nowDate)) {
-                        long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+                    return new GeneratedTelemetrySource<>(name, startDate, nowDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
                         long argument = iteratedDate.getHour() - 12;
-                        long noise = (long) (RandomUtils.getRandomNumber(-noiseAmplitude, noiseAmplitude) * noiseWidth);
-                        long value = minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
-
-                        result.add(iteratedTs, value);
-                        iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-                    }
-                    return result;
+                        long noise = (long) (RandomUtils.getRandomNumber(random, -noiseAmplitude, noiseAmplitude) * noiseWidth);
+                        return minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
+                    });
                 }
                 case 3: {
                     long minValue = 30_000;
@@ -982,17 +982,12 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                     double koeffDay = 3.14 / 14;
                     double koeffHour = 3.14 / 6;
 
-                    while (iteratedDate.isBefore(nowDate)) {
-                        long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+                    return new GeneratedTelemetrySource<>(name, startDate, nowDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
                         long argumentDay = iteratedDate.getDayOfWeek().getValue() * 2L - 7;
                         long argumentHour = iteratedDate.getHour() - 12;
-                        long noise = (long) (RandomUtils.getRandomNumber(-noiseAmplitude, noiseAmplitude) * noiseWidth);
-                        long value = minValue + noise + Math.round(amplitude * Math.sin(phase + koeffDay * argumentDay + koeffHour * argumentHour));
-
-                        result.add(iteratedTs, value);
-                        iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-                    }
-                    return result;
+                        long noise = (long) (RandomUtils.getRandomNumber(random, -noiseAmplitude, noiseAmplitude) * noiseWidth);
+                        return minValue + noise + Math.round(amplitude * Math.sin(phase + koeffDay * argumentDay + koeffHour * argumentHour));
+                    });
                 }
                 default:
                     throw new IllegalStateException("Unsupported level: " + level);
@@ -1005,40 +1000,29 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
             double phase = (3.14 * 3) / 128;
             double koeff = 3.14 / 128;
 
-            while (iteratedDate.isBefore(nowDate)) {
-                long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+            return new GeneratedTelemetrySource<>(name, startDate, nowDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
                 long argument = iteratedDate.getHour() - 12;
-                long noise = (long) (RandomUtils.getRandomNumber(-noiseAmplitude, noiseAmplitude) * noiseWidth);
-                long value = minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
-
-                result.add(iteratedTs, value);
-                iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-            }
-            return result;
+                long noise = (long) (RandomUtils.getRandomNumber(random, -noiseAmplitude, noiseAmplitude) * noiseWidth);
+                return minValue + noise + Math.round(amplitude * Math.sin(phase + koeff * argument));
+            });
         }
     }
 
-    private Telemetry<Long> createTelemetryEnergyMeterConsAbsolute(
-            Telemetry<Long> energyConsumptionTelemetry, boolean skipTelemetry
+    private TelemetrySource<Long> createTelemetryEnergyMeterConsAbsolute(
+            TelemetrySource<Long> energyConsumptionTelemetry, boolean skipTelemetry
     ) {
         if (skipTelemetry) {
-            return new Telemetry<>("skip");
+            return TelemetrySource.empty("skip");
         }
 
-        Telemetry<Long> result = new Telemetry<>("energyConsAbsolute");
-        long sum = 0;
-        for (Telemetry.Point<Long> point : energyConsumptionTelemetry.getPoints()) {
-            sum += point.getValue();
-            result.add(new Telemetry.Point<>(point.getTs(), sum));
-        }
-        return result;
+        return createCumulativeTelemetry("energyConsAbsolute", energyConsumptionTelemetry);
     }
 
-    private Telemetry<Long> createTelemetryHeatMeterTemperature(
+    private TelemetrySource<Long> createTelemetryHeatMeterTemperature(
             ApartmentConfiguration configuration, boolean skipTelemetry, boolean fullTelemetryGeneration,
             long startGenerationTime, long endGenerationTime
     ) {
-        var skipTelemetryValue = new Telemetry<Long>("skip");
+        TelemetrySource<Long> skipTelemetryValue = TelemetrySource.empty("skip");
 
         if (skipTelemetry) {
             return skipTelemetryValue;
@@ -1051,36 +1035,29 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
             return skipTelemetryValue;
         }
 
-        Telemetry<Long> result = new Telemetry<>("temperature");
         boolean occupied = configuration.isOccupied();
         long noiseAmplitude = 3;
 
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime nowDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
-        ZonedDateTime iteratedDate = startDate;
 
-        while (iteratedDate.isBefore(nowDate)) {
-            long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+        return new GeneratedTelemetrySource<>("temperature", startDate, nowDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
             long value;
             if (occupied) {
                 value = 20;
             } else {
                 value = 15;
             }
-            value += RandomUtils.getRandomNumber(-noiseAmplitude, noiseAmplitude);
-
-            result.add(iteratedTs, value);
-            iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-        }
-
-        return result;
+            value += RandomUtils.getRandomNumber(random, -noiseAmplitude, noiseAmplitude);
+            return value;
+        });
     }
 
-    private Telemetry<Long> createTelemetryHeatMeterConsumption(
+    private TelemetrySource<Long> createTelemetryHeatMeterConsumption(
             ApartmentConfiguration configuration, boolean skipTelemetry, boolean fullTelemetryGeneration,
             long startGenerationTime, long endGenerationTime
     ) {
-        var skipTelemetryValue = new Telemetry<Long>("skip");
+        TelemetrySource<Long> skipTelemetryValue = TelemetrySource.empty("skip");
 
         if (skipTelemetry) {
             return skipTelemetryValue;
@@ -1135,10 +1112,9 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
         }
     }
 
-    private Telemetry<Long> makeHeatConsumption(
+    private TelemetrySource<Long> makeHeatConsumption(
             long toMs, long startTs, long valueWarmTime, long valueColdTime, long noiseAmplitude, long noiseWidth
     ) {
-        Telemetry<Long> result = new Telemetry<>("heatConsumption");
         int dayColdTimeEnd = 80;
         int dayWarmTimeStart = 120;
         int dayWarmTimeEnd = 230;
@@ -1147,13 +1123,11 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
         long shiftedNoiseAmplitude = noiseAmplitude / noiseWidth;
         ZonedDateTime startDate = DateTimeUtils.fromTs(startTs).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime toDate = DateTimeUtils.fromTs(toMs).truncatedTo(ChronoUnit.HOURS);
-        ZonedDateTime iteratedDate = startDate;
-        while (iteratedDate.isBefore(toDate)) {
-            long iteratedTs = DateTimeUtils.toTs(iteratedDate);
+        return new GeneratedTelemetrySource<>("heatConsumption", startDate, toDate, ChronoUnit.HOURS, (iteratedDate, random) -> {
             int day = iteratedDate.getDayOfYear();
 
             long value;
-            long noise = (long) (RandomUtils.getRandomNumber(-shiftedNoiseAmplitude, shiftedNoiseAmplitude) * noiseWidth);
+            long noise = (long) (RandomUtils.getRandomNumber(random, -shiftedNoiseAmplitude, shiftedNoiseAmplitude) * noiseWidth);
             if (day <= dayColdTimeEnd || day > dayColdTimeStart) {
                 // Cold Time
                 value = valueColdTime;
@@ -1175,27 +1149,47 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                 value += noise;
             }
 
-            value = Math.max(0, value);
-            result.add(iteratedTs, value);
-            iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
-        }
-        return result;
+            return Math.max(0, value);
+        });
     }
 
-    private Telemetry<Long> createTelemetryHeatMeterConsAbsolute(
-            Telemetry<Long> heatConsumptionTelemetry, boolean skipTelemetry
+    private TelemetrySource<Long> createTelemetryHeatMeterConsAbsolute(
+            TelemetrySource<Long> heatConsumptionTelemetry, boolean skipTelemetry
     ) {
         if (skipTelemetry) {
-            return new Telemetry<>("skip");
+            return TelemetrySource.empty("skip");
         }
 
-        Telemetry<Long> result = new Telemetry<>("heatConsAbsolute");
-        long sum = 0;
-        for (Telemetry.Point<Long> point : heatConsumptionTelemetry.getPoints()) {
-            sum += point.getValue();
-            result.add(new Telemetry.Point<>(point.getTs(), sum));
-        }
-        return result;
+        return createCumulativeTelemetry("heatConsAbsolute", heatConsumptionTelemetry);
+    }
+
+    private TelemetrySource<Long> createCumulativeTelemetry(String name, TelemetrySource<Long> source) {
+        return new TelemetrySource<>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Iterator<Telemetry.Point<Long>> iterator() {
+                Iterator<Telemetry.Point<Long>> iterator = source.iterator();
+                return new Iterator<>() {
+                    private long sum = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Telemetry.Point<Long> next() {
+                        Telemetry.Point<Long> point = iterator.next();
+                        this.sum += point.getValue();
+                        return new Telemetry.Point<>(point.getTs(), this.sum);
+                    }
+                };
+            }
+        };
     }
 
 
@@ -1211,13 +1205,13 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(building.getSystemName(), building.entityType(), customerId, attributes)
                     : tbRestClient.createAssetIfNotExists(building.getSystemName(), building.entityType(), customerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(building.getSystemName(), building.entityType(), attributes)
                     : tbRestClient.createAssetIfNotExists(building.getSystemName(), building.entityType(), attributes)
             ;
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         return asset;
@@ -1238,12 +1232,12 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(apartment.getSystemName(), apartment.entityType(), customerId, attributes)
                     : tbRestClient.createAssetIfNotExists(apartment.getSystemName(), apartment.entityType(), customerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(apartment.getSystemName(), apartment.entityType(), attributes)
                     : tbRestClient.createAssetIfNotExists(apartment.getSystemName(), apartment.entityType(), attributes);
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         return asset;
@@ -1260,18 +1254,20 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(energyMeter.getSystemName(), energyMeter.entityType(), new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(energyMeter.getSystemName(), energyMeter.entityType(), new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(energyMeter.getSystemName(), energyMeter.entityType(), attributes)
                     : tbRestClient.createDeviceIfNotExists(energyMeter.getSystemName(), energyMeter.entityType(), attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumption());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsAbsolute());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                energyMeter.getEnergyConsumption(),
+                energyMeter.getEnergyConsAbsolute()
+        );
 
         this.energyMeterIdMap.put(energyMeter, device.getUuidId());
         return device;
@@ -1288,20 +1284,22 @@ public class EnergyMeteringSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(heatMeter.getSystemName(), heatMeter.entityType(), new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(heatMeter.getSystemName(), heatMeter.entityType(), new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(heatMeter.getSystemName(), heatMeter.entityType(), attributes)
                     : tbRestClient.createDeviceIfNotExists(heatMeter.getSystemName(), heatMeter.entityType(), attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), heatMeter.getTemperature());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), heatMeter.getHeatConsumption());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), heatMeter.getHeatConsAbsolute());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                heatMeter.getTemperature(),
+                heatMeter.getHeatConsumption(),
+                heatMeter.getHeatConsAbsolute()
+        );
 
         this.heatMeterIdMap.put(heatMeter, device.getUuidId());
         return device;
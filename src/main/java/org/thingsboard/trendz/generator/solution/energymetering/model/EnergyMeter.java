@@ -6,7 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.thingsboard.trendz.generator.model.ModelEntity;
-import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
 
 @Getter
 @ToString
@@ -26,6 +26,6 @@ public class EnergyMeter extends ModelEntity {
     private long installDate;
     private long serialNumber;
 
-    private Telemetry<Long> energyConsumption;
-    private Telemetry<Long> energyConsAbsolute;
+    private TelemetrySource<Long> energyConsumption;
+    private TelemetrySource<Long> energyConsAbsolute;
 }
@@ -6,7 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.thingsboard.trendz.generator.model.ModelEntity;
-import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
 
 @Getter
 @ToString
@@ -25,7 +25,7 @@ public class HeatMeter extends ModelEntity {
 
     private long installDate;
     private long serialNumber;
-    private Telemetry<Long> temperature;
-    private Telemetry<Long> heatConsumption;
-    private Telemetry<Long> heatConsAbsolute;
+    private TelemetrySource<Long> temperature;
+    private TelemetrySource<Long> heatConsumption;
+    private TelemetrySource<Long> heatConsAbsolute;
 }
@@ -1,6 +1,6 @@
 package org.thingsboard.trendz.generator.solution.greenhouse;
 
-import com.google.common.base.Functions;
+import com.google.common.annotations.VisibleForTesting;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -12,7 +12,6 @@ import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.asset.Asset;
 import org.thingsboard.server.common.data.group.EntityGroup;
-import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.rule.NodeConnectionInfo;
 import org.thingsboard.server.common.data.rule.RuleChain;
@@ -36,7 +35,11 @@ import org.thingsboard.trendz.generator.model.tb.Timestamp;
 import org.thingsboard.trendz.generator.service.FileService;
 import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
 import org.thingsboard.trendz.generator.service.dashboard.DashboardService;
+import org.thingsboard.trendz.generator.service.provisioning.ProvisioningExecutor;
+import org.thingsboard.trendz.generator.service.provisioning.ProvisioningGraph;
+import org.thingsboard.trendz.generator.service.rest.EntityAssigner;
 import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.service.rest.TelemetryUploader;
 import org.thingsboard.trendz.generator.service.roolchain.RuleChainBuildingService;
 import org.thingsboard.trendz.generator.solution.SolutionTemplateGenerator;
 import org.thingsboard.trendz.generator.solution.greenhouse.configuration.GreenhouseConfiguration;
@@ -81,6 +84,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -111,22 +116,25 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
     private final AnomalyService anomalyService;
     private final RuleChainBuildingService ruleChainBuildingService;
     private final DashboardService dashboardService;
+    private final TelemetryUploader telemetryUploader;
+    private final EntityAssigner entityAssigner;
+    private final ProvisioningExecutor provisioningExecutor;
 
     private final Map<PlantConfiguration, Plant> configurationToPlantMap = new HashMap<>();
 
-    private final Map<Greenhouse, UUID> greenhouseToIdMap = new HashMap<>();
-    private final Map<Plant, UUID> plantToIdMap = new HashMap<>();
-    private final Map<SoilNpkSensor, UUID> soilNpkSensorToIdMap = new HashMap<>();
-    private final Map<SoilWarmMoistureSensor, UUID> soilWarmMoistureSensorToIdMap = new HashMap<>();
-    private final Map<SoilAciditySensor, UUID> soilAciditySensorToIdMap = new HashMap<>();
-    private final Map<InsideAirWarmHumiditySensor, UUID> insideAirWarmHumiditySensorToIdMap = new HashMap<>();
-    private final Map<InsideCO2Sensor, UUID> insideCO2SensorToIdMap = new HashMap<>();
-    private final Map<InsideLightSensor, UUID> insideLightSensorToIdMap = new HashMap<>();
-    private final Map<HarvestReporter, UUID> harvestReporterToIdMap = new HashMap<>();
-    private final Map<EnergyMeter, UUID> energyMeterToIdMap = new HashMap<>();
-    private final Map<WaterMeter, UUID> waterMeterToIdMap = new HashMap<>();
-    private final Map<OutsideAirWarmHumiditySensor, UUID> outsideAirWarmHumiditySensorToIdMap = new HashMap<>();
-    private final Map<OutsideLightSensor, UUID> outsideLightSensorToIdMap = new HashMap<>();
+    private final Map<Greenhouse, UUID> greenhouseToIdMap = new ConcurrentHashMap<>();
+    private final Map<Plant, UUID> plantToIdMap = new ConcurrentHashMap<>();
+    private final Map<SoilNpkSensor, UUID> soilNpkSensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<SoilWarmMoistureSensor, UUID> soilWarmMoistureSensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<SoilAciditySensor, UUID> soilAciditySensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<InsideAirWarmHumiditySensor, UUID> insideAirWarmHumiditySensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<InsideCO2Sensor, UUID> insideCO2SensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<InsideLightSensor, UUID> insideLightSensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<HarvestReporter, UUID> harvestReporterToIdMap = new ConcurrentHashMap<>();
+    private final Map<EnergyMeter, UUID> energyMeterToIdMap = new ConcurrentHashMap<>();
+    private final Map<WaterMeter, UUID> waterMeterToIdMap = new ConcurrentHashMap<>();
+    private final Map<OutsideAirWarmHumiditySensor, UUID> outsideAirWarmHumiditySensorToIdMap = new ConcurrentHashMap<>();
+    private final Map<OutsideLightSensor, UUID> outsideLightSensorToIdMap = new ConcurrentHashMap<>();
 
 
     @Autowired
@@ -135,13 +143,19 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             FileService fileService,
             AnomalyService anomalyService,
             RuleChainBuildingService ruleChainBuildingService,
-            DashboardService dashboardService
+            DashboardService dashboardService,
+            TelemetryUploader telemetryUploader,
+            ProvisioningExecutor provisioningExecutor,
+            EntityAssigner entityAssigner
     ) {
         this.tbRestClient = tbRestClient;
         this.fileService = fileService;
         this.anomalyService = anomalyService;
         this.ruleChainBuildingService = ruleChainBuildingService;
         this.dashboardService = dashboardService;
+        this.telemetryUploader = telemetryUploader;
+        this.provisioningExecutor = provisioningExecutor;
+        this.entityAssigner = entityAssigner;
     }
 
     @Override
@@ -179,9 +193,20 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         try {
             CustomerData customerData = createCustomerData(strictGeneration);
             ModelData data = makeData(skipTelemetry, startYear, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
-            applyData(data, customerData, strictGeneration);
-            createRuleChain(data, strictGeneration);
-            dashboardService.createDashboardItems(getSolutionName(), customerData.getCustomer().getId(), strictGeneration);
+
+            ProvisioningGraph graph = this.provisioningExecutor.newGraph();
+            try {
+                CompletableFuture<Void> entitiesCreated = applyData(graph, data, customerData, strictGeneration);
+                graph.run(() -> createRuleChain(data, strictGeneration), entitiesCreated);
+                graph.run(() -> dashboardService.createDashboardItems(getSolutionName(), customerData.getCustomer().getId(), strictGeneration));
+                graph.await();
+                this.entityAssigner.flush();
+                this.telemetryUploader.awaitAll();
+            } finally {
+                graph.cancel();
+                this.entityAssigner.cancelAll();
+                this.telemetryUploader.cancelAll();
+            }
 
             log.info("Greenhouse Solution - generation is completed!");
         } catch (Exception e) {
@@ -958,7 +983,8 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
     }
 
 
-    private ModelData makeData(boolean skipTelemetry, ZonedDateTime startYear, boolean fullTelemetryGeneration, long startGenerationTime, long endGenerationTime) {
+    @VisibleForTesting
+    ModelData makeData(boolean skipTelemetry, ZonedDateTime startYear, boolean fullTelemetryGeneration, long startGenerationTime, long endGenerationTime) {
         long startTs = DateTimeUtils.toTs(startYear);
         long now = System.currentTimeMillis();
 
@@ -1020,66 +1046,83 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                 .build();
     }
 
-    private void applyData(ModelData data, CustomerData customerData, boolean strictGeneration) {
+    /**
+     * Adds the creation of all entities and relations to the graph, the returned future is completed when all entities
+     * are created. Relations are created as soon as both of their entities exist.
+     */
+    private CompletableFuture<Void> applyData(ProvisioningGraph graph, ModelData data, CustomerData customerData, boolean strictGeneration) {
         CustomerUser customerUser = customerData.getUser();
         UUID ownerId = customerUser.getCustomerId().getId();
 
-        UUID assetGroupId = null;
-        UUID deviceGroupId = null;
+        CompletableFuture<UUID> assetGroupIdFuture = CompletableFuture.completedFuture(null);
+        CompletableFuture<UUID> deviceGroupIdFuture = CompletableFuture.completedFuture(null);
         if (tbRestClient.isPe()) {
-            EntityGroup assetGroup = strictGeneration
-                    ? tbRestClient.createEntityGroup(ASSET_GROUP_NAME, EntityType.ASSET, ownerId, true)
-                    : tbRestClient.createEntityGroupIfNotExists(ASSET_GROUP_NAME, EntityType.ASSET, ownerId, true);
-            EntityGroup deviceGroup = strictGeneration
-                    ? tbRestClient.createEntityGroup(DEVICE_GROUP_NAME, EntityType.DEVICE, ownerId, true)
-                    : tbRestClient.createEntityGroupIfNotExists(DEVICE_GROUP_NAME, EntityType.DEVICE, ownerId, true);
-            assetGroupId = assetGroup.getUuidId();
-            deviceGroupId = deviceGroup.getUuidId();
-        }
-
-        Set<Plant> plants = mapToPlants(data);
-        for (Plant plant : plants) {
-            Asset plantAsset = createPlant(plant, ownerId, assetGroupId, strictGeneration);
+            assetGroupIdFuture = graph.submit(() -> {
+                EntityGroup assetGroup = strictGeneration
+                        ? tbRestClient.createEntityGroup(ASSET_GROUP_NAME, EntityType.ASSET, ownerId, true)
+                        : tbRestClient.createEntityGroupIfNotExists(ASSET_GROUP_NAME, EntityType.ASSET, ownerId, true);
+                return assetGroup.getUuidId();
+            });
+            deviceGroupIdFuture = graph.submit(() -> {
+                EntityGroup deviceGroup = strictGeneration
+                        ? tbRestClient.createEntityGroup(DEVICE_GROUP_NAME, EntityType.DEVICE, ownerId, true)
+                        : tbRestClient.createEntityGroupIfNotExists(DEVICE_GROUP_NAME, EntityType.DEVICE, ownerId, true);
+                return deviceGroup.getUuidId();
+            });
+        }
+        CompletableFuture<UUID> assetGroupId = assetGroupIdFuture;
+        CompletableFuture<UUID> deviceGroupId = deviceGroupIdFuture;
+
+        List<CompletableFuture<?>> entities = new ArrayList<>();
+
+        Map<Plant, CompletableFuture<Asset>> plantAssets = new HashMap<>();
+        for (Plant plant : mapToPlants(data)) {
+            CompletableFuture<Asset> plantAsset = graph.submit(assetGroupId, groupId -> createPlant(plant, ownerId, groupId, strictGeneration));
+            plantAssets.put(plant, plantAsset);
+            entities.add(plantAsset);
         }
 
         Set<Greenhouse> greenhouses = mapToGreenhouses(data);
         for (Greenhouse greenhouse : greenhouses) {
-            Asset greenhouseAsset = createGreenhouse(greenhouse, ownerId, assetGroupId, strictGeneration);
+            CompletableFuture<Asset> greenhouseAsset = graph.submit(assetGroupId, groupId -> createGreenhouse(greenhouse, ownerId, groupId, strictGeneration));
+            entities.add(greenhouseAsset);
 
             for (Section section : greenhouse.getSections()) {
-                Asset sectionAsset = createSection(section, ownerId, assetGroupId, strictGeneration);
-                this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), sectionAsset.getId());
-
-                Device soilWarmMoistureSensorDevice = createSoilWarmMoistureSensor(section.getSoilWarmMoistureSensor(), ownerId, deviceGroupId, strictGeneration);
-                Device soilAciditySensorDevice = createSoilAciditySensor(section.getSoilAciditySensor(), ownerId, deviceGroupId, strictGeneration);
-                Device soilNpkSensorDevice = createSoilNpkSensor(section.getSoilNpkSensor(), ownerId, deviceGroupId, strictGeneration);
-                Device harvestReporterDevice = createHarvestReporter(section.getHarvestReporter(), ownerId, deviceGroupId, strictGeneration);
-
-                this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), sectionAsset.getId(), soilWarmMoistureSensorDevice.getId());
-                this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), sectionAsset.getId(), soilAciditySensorDevice.getId());
-                this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), sectionAsset.getId(), soilNpkSensorDevice.getId());
-                this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), sectionAsset.getId(), harvestReporterDevice.getId());
+                CompletableFuture<Asset> sectionAsset = graph.submit(assetGroupId, groupId -> createSection(section, ownerId, groupId, strictGeneration));
+                graph.submit(greenhouseAsset, sectionAsset, (from, to) -> this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), from.getId(), to.getId()));
+                entities.add(sectionAsset);
+
+                List<CompletableFuture<Device>> sectionDevices = List.of(
+                        graph.submit(deviceGroupId, groupId -> createSoilWarmMoistureSensor(section.getSoilWarmMoistureSensor(), ownerId, groupId, strictGeneration)),
+                        graph.submit(deviceGroupId, groupId -> createSoilAciditySensor(section.getSoilAciditySensor(), ownerId, groupId, strictGeneration)),
+                        graph.submit(deviceGroupId, groupId -> createSoilNpkSensor(section.getSoilNpkSensor(), ownerId, groupId, strictGeneration)),
+                        graph.submit(deviceGroupId, groupId -> createHarvestReporter(section.getHarvestReporter(), ownerId, groupId, strictGeneration))
+                );
+                for (CompletableFuture<Device> device : sectionDevices) {
+                    graph.submit(sectionAsset, device, (from, to) -> this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), from.getId(), to.getId()));
+                }
+                entities.addAll(sectionDevices);
             }
 
-            Device insideAirWarmHumiditySensorDevice = createInsideAirWarmHumiditySensor(greenhouse.getInsideAirWarmHumiditySensor(), ownerId, deviceGroupId, strictGeneration);
-            Device insideLightSensorDevice = createInsideLightSensor(greenhouse.getInsideLightSensor(), ownerId, deviceGroupId, strictGeneration);
-            Device insideCO2SensorDevice = createInsideCO2Sensor(greenhouse.getInsideCO2Sensor(), ownerId, deviceGroupId, strictGeneration);
-            Device outsideAirWarmHumiditySensorDevice = createOutsideAirWarmHumiditySensor(greenhouse.getOutsideAirWarmHumiditySensor(), ownerId, deviceGroupId, strictGeneration);
-            Device outsideLightSensorDevice = createOutsideLightSensor(greenhouse.getOutsideLightSensor(), ownerId, deviceGroupId, strictGeneration);
-            Device energyMeter = createEnergyMeter(greenhouse.getEnergyMeter(), ownerId, deviceGroupId, strictGeneration);
-            Device waterMeter = createWaterMeter(greenhouse.getWaterMeter(), ownerId, deviceGroupId, strictGeneration);
-
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), insideAirWarmHumiditySensorDevice.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), insideLightSensorDevice.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), insideCO2SensorDevice.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), outsideAirWarmHumiditySensorDevice.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), outsideLightSensorDevice.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), energyMeter.getId());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), greenhouseAsset.getId(), waterMeter.getId());
+            List<CompletableFuture<Device>> greenhouseDevices = List.of(
+                    graph.submit(deviceGroupId, groupId -> createInsideAirWarmHumiditySensor(greenhouse.getInsideAirWarmHumiditySensor(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createInsideLightSensor(greenhouse.getInsideLightSensor(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createInsideCO2Sensor(greenhouse.getInsideCO2Sensor(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createOutsideAirWarmHumiditySensor(greenhouse.getOutsideAirWarmHumiditySensor(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createOutsideLightSensor(greenhouse.getOutsideLightSensor(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createEnergyMeter(greenhouse.getEnergyMeter(), ownerId, groupId, strictGeneration)),
+                    graph.submit(deviceGroupId, groupId -> createWaterMeter(greenhouse.getWaterMeter(), ownerId, groupId, strictGeneration))
+            );
+            for (CompletableFuture<Device> device : greenhouseDevices) {
+                graph.submit(greenhouseAsset, device, (from, to) -> this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), from.getId(), to.getId()));
+            }
+            entities.addAll(greenhouseDevices);
 
-            UUID plantUuid = this.plantToIdMap.get(greenhouse.getPlant());
-            this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), new AssetId(plantUuid), greenhouseAsset.getId());
+            CompletableFuture<Asset> plantAsset = plantAssets.get(greenhouse.getPlant());
+            graph.submit(plantAsset, greenhouseAsset, (from, to) -> this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), from.getId(), to.getId()));
         }
+
+        return CompletableFuture.allOf(entities.toArray(CompletableFuture[]::new));
     }
 
     private void validateData(ModelData data) {
@@ -1164,20 +1207,14 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        Set<Asset> badAssets = this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
-                .collect(Collectors.toSet());
+        Set<Asset> badAssets = this.tbRestClient.findAssetsByNames(assets);
 
         if (!badAssets.isEmpty()) {
             log.error("There are assets that already exists: {}", badAssets);
             throw new AssetAlreadyExistException(badAssets.iterator().next());
         }
 
-        Set<Device> badDevices = this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
-                .collect(Collectors.toSet());
+        Set<Device> badDevices = this.tbRestClient.findDevicesByNames(devices);
 
         if (!badDevices.isEmpty()) {
             log.error("There are devices that already exists: {}", badDevices);
@@ -1268,18 +1305,14 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                 .collect(Collectors.toSet());
 
         AtomicInteger deviceCounter = new AtomicInteger(0);
-        this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
+        this.tbRestClient.findDevicesByNames(devices)
                 .forEach(device -> {
                     log.debug("Device deleted {}/{}", deviceCounter.incrementAndGet(), devices.size());
                     this.tbRestClient.deleteDevice(device.getUuidId());
                 });
 
         AtomicInteger assetCounter = new AtomicInteger(0);
-        this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
+        this.tbRestClient.findAssetsByNames(assets)
                 .forEach(asset -> {
                     log.debug("Asset deleted {}/{}", assetCounter.incrementAndGet(), assets.size());
                     this.tbRestClient.deleteAsset(asset.getUuidId());
@@ -2158,10 +2191,6 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
 
         Telemetry<Integer> result = new Telemetry<>("light_in");
 
-        Map<Timestamp, Telemetry.Point<Integer>> outsideLightTelemetryMap = outsideLightTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         double dayMinLevel = configuration.getPlantConfiguration().getDayMinLight();
         double dayMaxLevel = configuration.getPlantConfiguration().getDayMaxLight();
         double nightMinLevel = configuration.getPlantConfiguration().getNightMinLight();
@@ -2176,8 +2205,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
             int hour = iteratedDate.getHour();
 
-            Telemetry.Point<Integer> outsideLightPoint = outsideLightTelemetryMap.get(Timestamp.of(iteratedTs));
-            int outsideValue = outsideLightPoint.getValue();
+            int outsideValue = outsideLightTelemetry.getValueByTs(iteratedTs);
 
             double currentNeededLevel = (DAY_START_HOUR <= hour && hour < NIGHT_START_HOUR)
                     ? dayLevel
@@ -2185,7 +2213,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
 
             double diff = Math.max(0, currentNeededLevel - outsideValue);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), (int) diff));
+            result.add(iteratedTs, (int) diff);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2217,17 +2245,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         double maxLevel = configuration.getPlantConfiguration().getMaxCo2Concentration();
         double decreaseLevel = maxLevel - minLevel;
 
-        Map<Timestamp, Telemetry.Point<Integer>> co2ConsumptionMap = temporalTelemetryCo2Generation.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
         double currentLevel = startLevel;
         while (iteratedDate.isBefore(endDate)) {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
-            Integer co2Consumption = co2ConsumptionMap.get(Timestamp.of(iteratedTs)).getValue();
+            Integer co2Consumption = temporalTelemetryCo2Generation.getValueByTs(iteratedTs);
 
             currentLevel += co2Consumption;
             if (maxLevel <= currentLevel) {
@@ -2237,7 +2261,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
 
             currentLevel = Math.max(MIN_WORD_CO2_CONCENTRATION, currentLevel);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), (int) currentLevel));
+            result.add(iteratedTs, (int) currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2266,27 +2290,19 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         int nightConsumption = 50;
         double zeroConsumptionLightLevel = configuration.getPlantConfiguration().getDayMinLight();
 
-        Map<Timestamp, Telemetry.Point<Integer>> outsideLightTelemetryMap = outsideLightTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
-        Map<Timestamp, Telemetry.Point<Integer>> insideLightTelemetryMap = insideLightTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
         while (iteratedDate.isBefore(endDate)) {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
 
-            int outsideLight = outsideLightTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
-            int insideLight = insideLightTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
+            int outsideLight = outsideLightTelemetry.getValueByTs(iteratedTs);
+            int insideLight = insideLightTelemetry.getValueByTs(iteratedTs);
             int light = outsideLight + insideLight;
 
             int consumption = (int) (Math.round((-1.0 * nightConsumption * light) / zeroConsumptionLightLevel) + nightConsumption);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), consumption));
+            result.add(iteratedTs, consumption);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2331,10 +2347,6 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         double nightHighLevel = configuration.getPlantConfiguration().getNightMaxTemperature();
         double nightOkLevel = (nightLowLevel + nightHighLevel) / 2;
 
-        Map<Timestamp, Telemetry.Point<Integer>> outsideTemperatureTelemetryMap = outsideTemperatureTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
@@ -2349,7 +2361,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             double highLevel = (day) ? dayHighLevel : nightHighLevel;
             double okLevel = (day) ? dayOkLevel : nightOkLevel;
 
-            double outsideTemperature = outsideTemperatureTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
+            double outsideTemperature = outsideTemperatureTelemetry.getValueByTs(iteratedTs);
             double diff = outsideTemperature - currentLevel;
 
             currentLevel += diff * defaultCoefficient;
@@ -2385,7 +2397,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                 currentLevel += RandomUtils.getRandomNumber(-2, 2);
             }
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), (int) currentLevel));
+            result.add(iteratedTs, (int) currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2425,10 +2437,6 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         double highLevel = configuration.getPlantConfiguration().getMaxAirHumidity();
         double okLevel = (lowLevel + highLevel) / 2;
 
-        Map<Timestamp, Telemetry.Point<Integer>> outsideHumidityTelemetryMap = outsideHumidityTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
@@ -2440,7 +2448,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             boolean heating = heatings.contains(iteratedTs);
             boolean cooling = coolings.contains(iteratedTs);
 
-            int outsideHumidity = outsideHumidityTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
+            int outsideHumidity = outsideHumidityTelemetry.getValueByTs(iteratedTs);
             double diff = outsideHumidity - currentLevel;
 
             currentLevel += increaseLevel;
@@ -2477,7 +2485,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             currentLevel = Math.min(currentLevel, 100);
             currentLevel = Math.max(currentLevel, 0);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), (int) currentLevel));
+            result.add(iteratedTs, (int) currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2661,7 +2669,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                     value += RandomUtils.getRandomNumber(0, noiseAmplitude) * noiseCoefficient;
                     value = Math.max(prevValue, value);
 
-                    result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), value));
+                    result.add(iteratedTs, value);
                     prevValue = value;
                     break;
                 }
@@ -2696,17 +2704,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         double maxLevel = plantConfiguration.getMaxSoilMoisture();
         double startLevel = RandomUtils.getRandomNumber(minLevel, maxLevel);
 
-        Map<Timestamp, Telemetry.Point<Double>> waterConsumptionMap = temporalTelemetrySoilWaterConsumption.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
         double currentLevel = startLevel;
         while (iteratedDate.isBefore(endDate)) {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
-            double waterConsumption = waterConsumptionMap.get(Timestamp.of(iteratedTs)).getValue();
+            double waterConsumption = temporalTelemetrySoilWaterConsumption.getValueByTs(iteratedTs);
 
             currentLevel -= waterConsumption;
             if (currentLevel <= minLevel) {
@@ -2717,7 +2721,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             currentLevel = Math.min(currentLevel, 100);
             currentLevel = Math.max(currentLevel, 0);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), currentLevel));
+            result.add(iteratedTs, currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2758,7 +2762,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             double consumption = Math.pow(0.8, step) * (minLevel + maxLevel) / period;
             consumption += RandomUtils.getRandomNumber(0, 1);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), consumption));
+            result.add(iteratedTs, consumption);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2792,10 +2796,6 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         double increaseLevel = 0.5;
         double decreaseIrrigationLevel = 5;
 
-        Map<Timestamp, Telemetry.Point<Integer>> insideTemperatureTelemetryMap = insideTemperatureTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         ZonedDateTime startDate = DateTimeUtils.fromTs(fromToPair.getLeft()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime endDate = DateTimeUtils.fromTs(fromToPair.getRight()).truncatedTo(ChronoUnit.HOURS);
         ZonedDateTime iteratedDate = startDate;
@@ -2803,14 +2803,14 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         while (iteratedDate.isBefore(endDate)) {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
             boolean irrigation = sectionIrrigations.contains(iteratedTs);
-            int insideTemperature = insideTemperatureTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
+            int insideTemperature = insideTemperatureTelemetry.getValueByTs(iteratedTs);
 
             double diff = insideTemperature - currentLevel;
 
             currentLevel += diff * increaseLevel;
             currentLevel -= (irrigation) ? decreaseIrrigationLevel : 0;
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), (int) currentLevel));
+            result.add(iteratedTs, (int) currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2865,7 +2865,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
 
             currentLevel += RandomUtils.getRandomNumber(-0.03, 0.03);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), currentLevel));
+            result.add(iteratedTs, currentLevel);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -2924,8 +2924,8 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                 currentLevel -= value;
 
                 if (0 < value) {
-                    telemetryCropWeight.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), value));
-                    telemetryWorkerInCharge.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), worker.toString()));
+                    telemetryCropWeight.add(iteratedTs, value);
+                    telemetryWorkerInCharge.add(iteratedTs, worker.toString());
                 }
             } else {
                 skip = true;
@@ -2947,10 +2947,6 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             return;
         }
 
-        Map<Timestamp, Telemetry.Point<Integer>> insideLightTelemetryMap = insideLightTelemetry.getPoints()
-                .stream()
-                .collect(Collectors.toMap(Telemetry.Point::getTs, Functions.identity()));
-
         Map<Long, Long> irrigationCountMap = irrigations.values()
                 .stream()
                 .flatMap(Collection::stream)
@@ -2963,7 +2959,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
         while (iteratedDate.isBefore(endDate)) {
             long iteratedTs = DateTimeUtils.toTs(iteratedDate);
 
-            int light = insideLightTelemetryMap.get(Timestamp.of(iteratedTs)).getValue();
+            int light = insideLightTelemetry.getValueByTs(iteratedTs);
             boolean aeration = aerations.contains(iteratedTs);
             boolean heating = heatings.contains(iteratedTs);
             boolean cooling = coolings.contains(iteratedTs);
@@ -2998,12 +2994,11 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             valueIrrigation += RandomUtils.getRandomNumber(-2, 2);
             valueIrrigation = Math.max(0, valueIrrigation);
 
-            Timestamp timestamp = Timestamp.of(iteratedTs);
-            energyConsumptionLight.add(new Telemetry.Point<>(timestamp, valueLight));
-            energyConsumptionHeating.add(new Telemetry.Point<>(timestamp, valueHeating));
-            energyConsumptionCooling.add(new Telemetry.Point<>(timestamp, valueCooling));
-            energyConsumptionAirControl.add(new Telemetry.Point<>(timestamp, valueAirControl));
-            energyConsumptionIrrigation.add(new Telemetry.Point<>(timestamp, valueIrrigation));
+            energyConsumptionLight.add(iteratedTs, valueLight);
+            energyConsumptionHeating.add(iteratedTs, valueHeating);
+            energyConsumptionCooling.add(iteratedTs, valueCooling);
+            energyConsumptionAirControl.add(iteratedTs, valueAirControl);
+            energyConsumptionIrrigation.add(iteratedTs, valueIrrigation);
 
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
@@ -3046,7 +3041,7 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             value += RandomUtils.getRandomNumber(-0.5, 0.5);
             value = Math.max(0, value);
 
-            result.add(new Telemetry.Point<>(Timestamp.of(iteratedTs), value));
+            result.add(iteratedTs, value);
             iteratedDate = iteratedDate.plus(1, ChronoUnit.HOURS);
         }
 
@@ -3100,13 +3095,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(name, entityType, newCustomerId, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, newCustomerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(name, entityType, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         this.plantToIdMap.put(plant, asset.getUuidId());
@@ -3130,13 +3125,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(name, entityType, customerId, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, customerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(name, entityType, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         this.greenhouseToIdMap.put(greenhouse, asset.getUuidId());
@@ -3160,13 +3155,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(name, entityType, customerId, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, customerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(name, entityType, attributes)
                     : tbRestClient.createAssetIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         return asset;
@@ -3184,20 +3179,22 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilNpkSensor.getNitrogen());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilNpkSensor.getPotassium());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilNpkSensor.getPhosphorus());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                soilNpkSensor.getNitrogen(),
+                soilNpkSensor.getPotassium(),
+                soilNpkSensor.getPhosphorus()
+        );
 
         this.soilNpkSensorToIdMap.put(soilNpkSensor, device.getUuidId());
         return device;
@@ -3215,19 +3212,21 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilWarmMoistureSensor.getTemperature());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilWarmMoistureSensor.getMoisture());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                soilWarmMoistureSensor.getTemperature(),
+                soilWarmMoistureSensor.getMoisture()
+        );
 
         this.soilWarmMoistureSensorToIdMap.put(soilWarmMoistureSensor, device.getUuidId());
         return device;
@@ -3245,18 +3244,18 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), soilAciditySensor.getAcidity());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), soilAciditySensor.getAcidity());
 
         this.soilAciditySensorToIdMap.put(soilAciditySensor, device.getUuidId());
         return device;
@@ -3274,13 +3273,13 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes)
             ;
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
@@ -3288,8 +3287,10 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             tbRestClient.setEntityAttributes(device.getUuidId(), EntityType.DEVICE, Attribute.Scope.SERVER_SCOPE, attributes);
         }
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), insideAirWarmHumiditySensor.getTemperatureIn());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), insideAirWarmHumiditySensor.getHumidityIn());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                insideAirWarmHumiditySensor.getTemperatureIn(),
+                insideAirWarmHumiditySensor.getHumidityIn()
+        );
 
         this.insideAirWarmHumiditySensorToIdMap.put(insideAirWarmHumiditySensor, device.getUuidId());
         return device;
@@ -3307,17 +3308,17 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), insideCO2Sensor.getConcentration());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), insideCO2Sensor.getConcentration());
 
         this.insideCO2SensorToIdMap.put(insideCO2Sensor, device.getUuidId());
         return device;
@@ -3335,17 +3336,17 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), insideLightSensor.getLightIn());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), insideLightSensor.getLightIn());
 
         this.insideLightSensorToIdMap.put(insideLightSensor, device.getUuidId());
         return device;
@@ -3363,18 +3364,20 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), harvestReporter.getCropWeight());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), harvestReporter.getWorkerInCharge());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                harvestReporter.getCropWeight(),
+                harvestReporter.getWorkerInCharge()
+        );
 
         this.harvestReporterToIdMap.put(harvestReporter, device.getUuidId());
         return device;
@@ -3392,21 +3395,23 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumptionLight());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumptionHeating());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumptionCooling());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumptionAirControl());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), energyMeter.getEnergyConsumptionIrrigation());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                energyMeter.getEnergyConsumptionLight(),
+                energyMeter.getEnergyConsumptionHeating(),
+                energyMeter.getEnergyConsumptionCooling(),
+                energyMeter.getEnergyConsumptionAirControl(),
+                energyMeter.getEnergyConsumptionIrrigation()
+        );
 
         this.energyMeterToIdMap.put(energyMeter, device.getUuidId());
         return device;
@@ -3424,17 +3429,17 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), waterMeter.getConsumptionWater());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), waterMeter.getConsumptionWater());
 
         this.waterMeterToIdMap.put(waterMeter, device.getUuidId());
         return device;
@@ -3452,17 +3457,19 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), outsideAirWarmHumiditySensor.getTemperatureOut());
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), outsideAirWarmHumiditySensor.getHumidityOut());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(),
+                outsideAirWarmHumiditySensor.getTemperatureOut(),
+                outsideAirWarmHumiditySensor.getHumidityOut()
+        );
 
         this.outsideAirWarmHumiditySensorToIdMap.put(outsideAirWarmHumiditySensor, device.getUuidId());
         return device;
@@ -3480,17 +3487,17 @@ public class GreenhouseSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(name, entityType, attributes)
                     : tbRestClient.createDeviceIfNotExists(name, entityType, attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         final var deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), outsideLightSensor.getLightOut());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), outsideLightSensor.getLightOut());
 
         this.outsideLightSensorToIdMap.put(outsideLightSensor, device.getUuidId());
         return device;
@@ -35,7 +35,9 @@ import org.thingsboard.trendz.generator.model.tb.Timestamp;
 import org.thingsboard.trendz.generator.service.FileService;
 import org.thingsboard.trendz.generator.service.anomaly.AnomalyService;
 import org.thingsboard.trendz.generator.service.dashboard.DashboardService;
+import org.thingsboard.trendz.generator.service.rest.EntityAssigner;
 import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.service.rest.TelemetryUploader;
 import org.thingsboard.trendz.generator.service.roolchain.RuleChainBuildingService;
 import org.thingsboard.trendz.generator.solution.SolutionTemplateGenerator;
 import org.thingsboard.trendz.generator.solution.watermetering.configuration.CityConfiguration;
@@ -85,6 +87,8 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
     private final AnomalyService anomalyService;
     private final RuleChainBuildingService ruleChainBuildingService;
     private final DashboardService dashboardService;
+    private final TelemetryUploader telemetryUploader;
+    private final EntityAssigner entityAssigner;
 
     private final Map<Consumer, UUID> consumerToIdMap = new HashMap<>();
 
@@ -94,13 +98,17 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
             FileService fileService,
             AnomalyService anomalyService,
             RuleChainBuildingService ruleChainBuildingService,
-            DashboardService dashboardService
+            DashboardService dashboardService,
+            TelemetryUploader telemetryUploader,
+            EntityAssigner entityAssigner
     ) {
         this.tbRestClient = tbRestClient;
         this.fileService = fileService;
         this.anomalyService = anomalyService;
         this.ruleChainBuildingService = ruleChainBuildingService;
         this.dashboardService = dashboardService;
+        this.telemetryUploader = telemetryUploader;
+        this.entityAssigner = entityAssigner;
     }
 
     @Override
@@ -138,7 +146,12 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
         try {
             CustomerData customerData = createCustomerData(strictGeneration);
             ModelData data = makeData(skipTelemetry, startYear, fullTelemetryGeneration, startGenerationTime, endGenerationTime);
-            applyData(data, customerData, strictGeneration);
+            try {
+                applyData(data, customerData, strictGeneration);
+            } finally {
+                this.entityAssigner.cancelAll();
+                this.telemetryUploader.cancelAll();
+            }
             createRuleChain(data, strictGeneration);
             dashboardService.createDashboardItems(getSolutionName(), customerData.getCustomer().getId(), strictGeneration);
 
@@ -561,6 +574,9 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
                 this.tbRestClient.createRelation(RelationType.CONTAINS.getType(), cityAsset.getId(), pumpStationDevice.getId());
             }
         }
+
+        this.entityAssigner.flush();
+        this.telemetryUploader.awaitAll();
     }
 
     private void validateData(ModelData data) {
@@ -591,20 +607,14 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        Set<Asset> badAssets = this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
-                .collect(Collectors.toSet());
+        Set<Asset> badAssets = this.tbRestClient.findAssetsByNames(assets);
 
         if (!badAssets.isEmpty()) {
             log.error("There are assets that already exists: {}", badAssets);
             throw new AssetAlreadyExistException(badAssets.iterator().next());
         }
 
-        Set<Device> badDevices = this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
-                .collect(Collectors.toSet());
+        Set<Device> badDevices = this.tbRestClient.findDevicesByNames(devices);
 
         if (!badDevices.isEmpty()) {
             log.error("There are devices that already exists: {}", badDevices);
@@ -640,14 +650,10 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
                 .map(ModelEntity::getSystemName)
                 .collect(Collectors.toSet());
 
-        this.tbRestClient.getAllDevices()
-                .stream()
-                .filter(device -> devices.contains(device.getName()))
+        this.tbRestClient.findDevicesByNames(devices)
                 .forEach(device -> this.tbRestClient.deleteDevice(device.getUuidId()));
 
-        this.tbRestClient.getAllAssets()
-                .stream()
-                .filter(asset -> assets.contains(asset.getName()))
+        this.tbRestClient.findAssetsByNames(assets)
                 .forEach(asset -> this.tbRestClient.deleteAsset(asset.getUuidId()));
     }
 
@@ -664,13 +670,13 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
                     ? tbRestClient.createAsset(city.getSystemName(), city.entityType(), customerId, attributes)
                     : tbRestClient.createAssetIfNotExists(city.getSystemName(), city.entityType(), customerId, attributes)
             ;
-            tbRestClient.addEntitiesToTheGroup(assetGroupId, Set.of(asset.getUuidId()));
+            entityAssigner.addToGroup(assetGroupId, asset.getUuidId());
         } else {
             asset = strictGeneration
                     ? tbRestClient.createAsset(city.getSystemName(), city.entityType(), attributes)
                     : tbRestClient.createAssetIfNotExists(city.getSystemName(), city.entityType(), attributes)
             ;
-            tbRestClient.assignAssetToCustomer(ownerId, asset.getUuidId());
+            entityAssigner.assignAssetToCustomer(ownerId, asset.getUuidId());
         }
 
         return asset;
@@ -683,16 +689,16 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(region.getSystemName(), region.entityType(), new CustomerId(ownerId), noAttributes)
                     : tbRestClient.createDeviceIfNotExists(region.getSystemName(), region.entityType(), new CustomerId(ownerId), noAttributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(region.getSystemName(), region.entityType(), noAttributes)
                     : tbRestClient.createDeviceIfNotExists(region.getSystemName(), region.entityType(), noAttributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), region.getFullConsumption());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), region.getFullConsumption());
 
         return device;
     }
@@ -707,17 +713,17 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(consumer.getSystemName(), consumer.entityType(), new CustomerId(ownerId), attributes)
                     : tbRestClient.createDeviceIfNotExists(consumer.getSystemName(), consumer.entityType(), new CustomerId(ownerId), attributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(consumer.getSystemName(), consumer.entityType(), attributes)
                     : tbRestClient.createDeviceIfNotExists(consumer.getSystemName(), consumer.entityType(), attributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
 
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), consumer.getConsumption());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), consumer.getConsumption());
 
         this.consumerToIdMap.put(consumer, device.getUuidId());
         return device;
@@ -730,16 +736,16 @@ public class WaterMeteringSolution implements SolutionTemplateGenerator {
             device = strictGeneration
                     ? tbRestClient.createDevice(pumpStation.getSystemName(), pumpStation.entityType(), new CustomerId(ownerId), noAttributes)
                     : tbRestClient.createDeviceIfNotExists(pumpStation.getSystemName(), pumpStation.entityType(), new CustomerId(ownerId), noAttributes);
-            tbRestClient.addEntitiesToTheGroup(deviceGroupId, Set.of(device.getUuidId()));
+            entityAssigner.addToGroup(deviceGroupId, device.getUuidId());
         } else {
             device = strictGeneration
                     ? tbRestClient.createDevice(pumpStation.getSystemName(), pumpStation.entityType(), noAttributes)
                     : tbRestClient.createDeviceIfNotExists(pumpStation.getSystemName(), pumpStation.entityType(), noAttributes);
-            tbRestClient.assignDeviceToCustomer(ownerId, device.getUuidId());
+            entityAssigner.assignDeviceToCustomer(ownerId, device.getUuidId());
         }
         DeviceCredentials deviceCredentials = tbRestClient.getDeviceCredentials(device.getUuidId());
 
-        tbRestClient.pushTelemetry(deviceCredentials.getCredentialsId(), pumpStation.getProvided());
+        telemetryUploader.pushTelemetry(deviceCredentials.getCredentialsId(), pumpStation.getProvided());
 
         return device;
     }
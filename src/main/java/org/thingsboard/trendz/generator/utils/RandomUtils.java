@@ -26,13 +26,17 @@ public class RandomUtils {
     }
 
     public static double getRandomNumber(double from, double to) {
+        return getRandomNumber(getRandom(), from, to);
+    }
+
+    public static double getRandomNumber(Random random, double from, double to) {
         if (to < from) {
             throw new IllegalArgumentException(String.format("'From' value is bigger than 'to' (%s, %s).", from, to));
         }
         if (from == to) {
             return to;
         }
-        double i = Math.abs(getRandom().nextDouble());
+        double i = Math.abs(random.nextDouble());
         return from + (i * (to - from));
     }
 
@@ -0,0 +1,198 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlignedTelemetryTest {
+
+    @Test
+    void mergesSeriesByTimestamp() throws IOException {
+        Telemetry<Long> energy = series("energy", new long[]{0, 10, 20}, 0L, 1L, 2L);
+        Telemetry<Double> power = series("power", new long[]{10, 30}, 1.5, 3.5);
+        AlignedTelemetry telemetry = new AlignedTelemetry(List.of(TelemetrySource.of(energy), TelemetrySource.of(power)));
+
+        List<AlignedTelemetry.Batch> batches = batches(telemetry, 10);
+
+        assertEquals(1, batches.size());
+        assertEquals("energy, power", batches.get(0).getName());
+        assertEquals(4, batches.get(0).size());
+        assertEquals(30, batches.get(0).getLastTs());
+        assertJson("[" +
+                "{\"ts\":0,\"values\":{\"energy\":0.0}}," +
+                "{\"ts\":10,\"values\":{\"energy\":1.0,\"power\":1.5}}," +
+                "{\"ts\":20,\"values\":{\"energy\":2.0}}," +
+                "{\"ts\":30,\"values\":{\"power\":3.5}}" +
+                "]", batches.get(0));
+    }
+
+    @Test
+    void lazySourcesAreMergedLikeStoredOnes() throws IOException {
+        Telemetry<Long> energy = series("energy", new long[]{0, 10, 20, 40}, 0L, 1L, 2L, 4L);
+        Telemetry<String> status = series("status", new long[]{5, 20, 40}, "off", "on", "off");
+
+        AlignedTelemetry stored = new AlignedTelemetry(List.of(TelemetrySource.of(energy), TelemetrySource.of(status)));
+        AlignedTelemetry lazy = new AlignedTelemetry(List.of(
+                TelemetrySource.of("energy", energy.getPoints()),
+                TelemetrySource.of("status", status.getPoints())
+        ));
+
+        assertEquals(toJson(batches(stored, 100)), toJson(batches(lazy, 100)));
+        assertJson("[" +
+                "{\"ts\":0,\"values\":{\"energy\":0.0}}," +
+                "{\"ts\":5,\"values\":{\"status\":\"off\"}}," +
+                "{\"ts\":10,\"values\":{\"energy\":1.0}}," +
+                "{\"ts\":20,\"values\":{\"energy\":2.0,\"status\":\"on\"}}," +
+                "{\"ts\":40,\"values\":{\"energy\":4.0,\"status\":\"off\"}}" +
+                "]", batches(lazy, 100).get(0));
+    }
+
+    @Test
+    void storedAndLazySourcesAreMergedTogether() throws IOException {
+        Telemetry<Double> energy = new Telemetry<>("energy");
+        Telemetry<Integer> power = new Telemetry<>("power");
+        for (int i = 0; i < 3000; i++) {
+            energy.add(i * 10L, i / 4.0);
+            if (i % 3 == 0) {
+                power.add(i * 10L + 5, i);
+            }
+        }
+
+        AlignedTelemetry mixed = new AlignedTelemetry(List.of(
+                TelemetrySource.of(energy),
+                TelemetrySource.of("power", power.getPoints())
+        ));
+        AlignedTelemetry lazy = new AlignedTelemetry(List.of(
+                TelemetrySource.of("energy", energy.getPoints()),
+                TelemetrySource.of("power", power.getPoints())
+        ));
+
+        // batches grow past their initial capacity
+        List<AlignedTelemetry.Batch> batches = batches(mixed, 2500);
+        assertEquals(2, batches.size());
+        assertEquals(2500, batches.get(0).size());
+        assertEquals(1500, batches.get(1).size());
+        assertEquals(toJson(batches(lazy, 2500)), toJson(batches));
+    }
+
+    @Test
+    void storedSourceAfterTimestampKeepsItsColumns() throws IOException {
+        Telemetry<Long> energy = series("energy", new long[]{0, 10, 20, 30}, 0L, 1L, 2L, 3L);
+        Telemetry<Long> power = series("power", new long[]{5, 15, 25}, 0L, 1L, 2L);
+
+        TelemetrySource<Long> resumed = TelemetrySource.of(energy).after(10);
+        assertEquals(Optional.of(energy), resumed.getStored());
+        assertEquals(2, resumed.getStoredFrom());
+        assertEquals(3, resumed.after(20).getStoredFrom());
+        assertEquals(2, resumed.after(0).getStoredFrom());
+        assertEquals(List.of(20L, 30L), timestamps(resumed));
+        assertEquals(List.of(20L, 30L), timestamps(TelemetrySource.of(resumed.toTelemetry())));
+        assertEquals(4, energy.size());
+
+        AlignedTelemetry stored = new AlignedTelemetry(List.of(resumed, TelemetrySource.of(power).after(10)));
+        AlignedTelemetry lazy = new AlignedTelemetry(List.of(
+                TelemetrySource.of("energy", energy.getPoints()).after(10),
+                TelemetrySource.of("power", power.getPoints()).after(10)
+        ));
+        assertEquals(toJson(batches(lazy, 10)), toJson(batches(stored, 10)));
+        assertJson("[" +
+                "{\"ts\":15,\"values\":{\"power\":1.0}}," +
+                "{\"ts\":20,\"values\":{\"energy\":2.0}}," +
+                "{\"ts\":25,\"values\":{\"power\":2.0}}," +
+                "{\"ts\":30,\"values\":{\"energy\":3.0}}" +
+                "]", batches(stored, 10).get(0));
+        assertFalse(new AlignedTelemetry(List.of(TelemetrySource.of(energy).after(30))).batchIterator(10).hasNext());
+    }
+
+    @Test
+    void batchSizeIsAskedBeforeEveryBatch() {
+        Telemetry<Long> energy = series("energy", new long[]{0, 10, 20, 30, 40, 50}, 0L, 1L, 2L, 3L, 4L, 5L);
+        Telemetry<Long> power = series("power", new long[]{5, 15}, 0L, 1L);
+        AlignedTelemetry telemetry = new AlignedTelemetry(List.of(TelemetrySource.of(energy), TelemetrySource.of(power)));
+
+        AtomicInteger batchSize = new AtomicInteger(1);
+        Iterator<AlignedTelemetry.Batch> iterator = telemetry.batchIterator(batchSize::getAndIncrement);
+        List<Integer> sizes = new ArrayList<>();
+        List<Long> lastTimestamps = new ArrayList<>();
+        while (iterator.hasNext()) {
+            AlignedTelemetry.Batch batch = iterator.next();
+            sizes.add(batch.size());
+            lastTimestamps.add(batch.getLastTs());
+        }
+
+        assertEquals(List.of(1, 2, 3, 2), sizes);
+        assertEquals(List.of(0L, 10L, 30L, 50L), lastTimestamps);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void emptySourcesAreSkipped() {
+        Telemetry<Long> energy = series("energy", new long[]{0, 10}, 0L, 1L);
+
+        AlignedTelemetry empty = new AlignedTelemetry(List.of(TelemetrySource.empty("power")));
+        assertFalse(empty.batchIterator(10).hasNext());
+
+        AlignedTelemetry partial = new AlignedTelemetry(List.of(TelemetrySource.empty("power"), TelemetrySource.of(energy)));
+        List<AlignedTelemetry.Batch> batches = batches(partial, 10);
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void nonPositiveBatchSizeIsRejected() {
+        AlignedTelemetry telemetry = new AlignedTelemetry(List.of(TelemetrySource.empty("power")));
+
+        assertThrows(IllegalArgumentException.class, () -> telemetry.batchIterator(0));
+    }
+
+
+    @SafeVarargs
+    private static <T> Telemetry<T> series(String name, long[] timestamps, T... values) {
+        Telemetry<T> telemetry = new Telemetry<>(name);
+        for (int i = 0; i < timestamps.length; i++) {
+            telemetry.add(timestamps[i], values[i]);
+        }
+        return telemetry;
+    }
+
+    private static List<Long> timestamps(TelemetrySource<?> source) {
+        List<Long> timestamps = new ArrayList<>();
+        for (Telemetry.Point<?> point : source) {
+            timestamps.add(point.getTs().get());
+        }
+        return timestamps;
+    }
+
+    private static List<AlignedTelemetry.Batch> batches(AlignedTelemetry telemetry, int batchSize) {
+        List<AlignedTelemetry.Batch> batches = new ArrayList<>();
+        telemetry.batchIterator(batchSize).forEachRemaining(batches::add);
+        return batches;
+    }
+
+    private static void assertJson(String expected, AlignedTelemetry.Batch batch) throws IOException {
+        assertEquals(JsonUtils.getObjectMapper().readTree(expected), JsonUtils.getObjectMapper().readTree(toJson(List.of(batch))));
+    }
+
+    private static String toJson(List<AlignedTelemetry.Batch> batches) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JsonUtils.getObjectMapper().getFactory().createGenerator(writer)) {
+            for (AlignedTelemetry.Batch batch : batches) {
+                batch.writeJson(generator, 2);
+            }
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedTelemetryStoreTest {
+
+    /**
+     * Records per memory-mapped window of the store.
+     */
+    private static final int WINDOW_RECORDS = 64 * 1024;
+
+    @TempDir
+    Path workDirectory;
+
+    @Test
+    void readsPointsAcrossWindowBoundaries() {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"))) {
+            MappedTelemetryStore.Series series = store.getSeries("energy");
+            int count = 2 * WINDOW_RECORDS + 3;
+            for (int i = 0; i < count; i++) {
+                series.append(i * 1000L, i / 2.0);
+            }
+
+            assertEquals(count, series.size());
+            assertSeries(series.toSource("energy"), count);
+        }
+    }
+
+    @Test
+    void readsSeriesEndingExactlyAtWindowBoundary() {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"))) {
+            MappedTelemetryStore.Series series = store.getSeries("energy");
+            for (int i = 0; i < WINDOW_RECORDS; i++) {
+                series.append(i * 1000L, i / 2.0);
+            }
+            assertSeries(series.toSource("energy"), WINDOW_RECORDS);
+
+            series.append(WINDOW_RECORDS * 1000L, WINDOW_RECORDS / 2.0);
+            assertSeries(series.toSource("energy"), WINDOW_RECORDS + 1);
+        }
+    }
+
+    @Test
+    void iteratorSeesPointsAppendedBeforeItIsCreated() {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"))) {
+            MappedTelemetryStore.Series series = store.getSeries("energy");
+            TelemetrySource<Double> source = series.toSource("energy");
+            for (int i = 0; i < 10; i++) {
+                series.append(i * 1000L, i / 2.0);
+            }
+
+            Iterator<Telemetry.Point<Double>> iterator = source.iterator();
+            series.append(10_000L, 5.0);
+
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(10, count);
+            assertThrows(NoSuchElementException.class, iterator::next);
+            assertSeries(source, 11);
+        }
+    }
+
+    @Test
+    void seriesOfDifferentKeysAreSeparate() {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"))) {
+            store.getSeries("energy").append(0, 1.0);
+            store.getSeries("power").append(0, 2.0);
+            store.getSeries("power").append(1000, 3.0);
+
+            assertEquals(1, store.getSeries("energy").size());
+            assertEquals(2, store.getSeries("power").size());
+            assertEquals(3.0, store.getSeries("power").toSource("power").toTelemetry().getValueByTs(1000));
+        }
+    }
+
+    @Test
+    void pointsMustBeAppendedInAscendingOrder() {
+        try (MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"))) {
+            MappedTelemetryStore.Series series = store.getSeries("energy");
+            series.append(1000, 1.0);
+
+            assertThrows(IllegalStateException.class, () -> series.append(1000, 2.0));
+            assertThrows(IllegalStateException.class, () -> series.append(0, 2.0));
+            assertEquals(1, series.size());
+        }
+    }
+
+    @Test
+    void closeDeletesFiles() {
+        Path directory = this.workDirectory.resolve("store");
+        MappedTelemetryStore store = new MappedTelemetryStore(directory);
+        MappedTelemetryStore.Series series = store.getSeries("energy");
+        series.append(0, 1.0);
+        assertTrue(Files.exists(directory));
+
+        store.close();
+
+        assertFalse(Files.exists(directory));
+        assertThrows(IllegalStateException.class, () -> series.append(1000, 2.0));
+    }
+
+    @Test
+    void iteratorFailsAfterStoreIsClosed() {
+        MappedTelemetryStore store = new MappedTelemetryStore(this.workDirectory.resolve("store"));
+        MappedTelemetryStore.Series series = store.getSeries("energy");
+        for (int i = 0; i < 10; i++) {
+            series.append(i * 1000L, i / 2.0);
+        }
+        Iterator<Telemetry.Point<Double>> iterator = series.toSource("energy").iterator();
+        iterator.next();
+
+        store.close();
+
+        assertTrue(iterator.hasNext());
+        assertThrows(IllegalStateException.class, iterator::next);
+        assertThrows(IllegalStateException.class, () -> series.toSource("energy").iterator().next());
+    }
+
+
+    private static void assertSeries(TelemetrySource<Double> source, int count) {
+        int index = 0;
+        for (Telemetry.Point<Double> point : source) {
+            assertEquals(index * 1000L, point.getTs().get());
+            assertEquals(index / 2.0, point.getValue());
+            index++;
+        }
+        assertEquals(count, index);
+    }
+}
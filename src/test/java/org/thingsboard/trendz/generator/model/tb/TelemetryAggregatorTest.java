@@ -0,0 +1,199 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryAggregatorTest {
+
+    private static final ZoneId KYIV = ZoneId.of("Europe/Kyiv");
+
+    @Test
+    void statsOfWholeSeriesAndRange() {
+        Telemetry<Long> telemetry = series(0L, 1000L, 4L, 8L, 2L, 6L);
+
+        TelemetryAggregator.Stats all = TelemetryAggregator.stats(telemetry);
+        assertEquals(4, all.getCount());
+        assertEquals(2.0, all.getMin());
+        assertEquals(8.0, all.getMax());
+        assertEquals(20.0, all.getSum());
+        assertEquals(5.0, all.getMean());
+
+        // start inclusive, end exclusive
+        TelemetryAggregator.Stats range = TelemetryAggregator.stats(telemetry, 1000, 3000);
+        assertEquals(2, range.getCount());
+        assertEquals(8.0, range.getMax());
+        assertEquals(10.0, range.getSum());
+    }
+
+    @Test
+    void statsOfEmptySeriesAndRange() {
+        assertEmpty(TelemetryAggregator.stats(new Telemetry<Double>("energy")));
+        assertEmpty(TelemetryAggregator.stats(series(0L, 1000L, 1.0, 2.0), 5000, 10_000));
+        assertEmpty(TelemetryAggregator.stats(series(0L, 1000L, 1.0, 2.0), 1000, 1000));
+    }
+
+    @Test
+    void listOverloadKeepsSeriesOrder() {
+        List<Telemetry<Integer>> telemetryList = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            telemetryList.add(series(0L, 1000L, i, i + 1));
+        }
+
+        List<TelemetryAggregator.Stats> stats = TelemetryAggregator.stats(telemetryList);
+        List<Telemetry<Double>> downsampled = TelemetryAggregator.downsample(telemetryList, ChronoUnit.DAYS, ZoneOffset.UTC, TelemetryAggregator.Aggregation.MAX);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(2 * i + 1.0, stats.get(i).getSum());
+            assertEquals(i + 1.0, downsampled.get(i).getValue(0));
+        }
+    }
+
+    @Test
+    void dayBucketsFollowDaylightSavingTime() {
+        // 2023-03-26 has 23 hours in Kyiv, 2023-10-29 has 25
+        Telemetry<Integer> spring = hourly(ZonedDateTime.of(2023, 3, 25, 0, 0, 0, 0, KYIV), 24 + 23 + 24);
+        Telemetry<Integer> autumn = hourly(ZonedDateTime.of(2023, 10, 28, 0, 0, 0, 0, KYIV), 24 + 25 + 24);
+
+        Telemetry<Double> springDays = TelemetryAggregator.downsample(spring, ChronoUnit.DAYS, KYIV, TelemetryAggregator.Aggregation.COUNT);
+        Telemetry<Double> autumnDays = TelemetryAggregator.downsample(autumn, ChronoUnit.DAYS, KYIV, TelemetryAggregator.Aggregation.COUNT);
+
+        assertEquals(List.of(24.0, 23.0, 24.0), values(springDays));
+        assertEquals(List.of(24.0, 25.0, 24.0), values(autumnDays));
+        assertEquals(ts(ZonedDateTime.of(2023, 3, 26, 0, 0, 0, 0, KYIV)), springDays.getTs(1));
+        assertEquals(ts(ZonedDateTime.of(2023, 3, 27, 0, 0, 0, 0, KYIV)), springDays.getTs(2));
+        assertEquals(ts(ZonedDateTime.of(2023, 10, 30, 0, 0, 0, 0, KYIV)), autumnDays.getTs(2));
+    }
+
+    @Test
+    void repeatedHourIsSeparateBucket() {
+        // 03:00-04:00 is passed twice on 2023-10-29 in Kyiv, points every 30 minutes
+        ZonedDateTime start = ZonedDateTime.of(2023, 10, 29, 2, 0, 0, 0, KYIV);
+        Telemetry<Integer> telemetry = new Telemetry<>("energy");
+        for (int i = 0; i < 8; i++) {
+            telemetry.add(ts(start) + i * 1800_000L, i);
+        }
+
+        Telemetry<Double> hours = TelemetryAggregator.downsample(telemetry, ChronoUnit.HOURS, KYIV, TelemetryAggregator.Aggregation.SUM);
+
+        assertEquals(List.of(1.0, 5.0, 9.0, 13.0), values(hours));
+        for (int i = 0; i < hours.size(); i++) {
+            assertEquals(ts(start) + i * 3600_000L, hours.getTs(i));
+        }
+    }
+
+    @Test
+    void monthAndYearBucketsStartAtCalendarBoundaries() {
+        ZonedDateTime start = ZonedDateTime.of(2023, 12, 30, 12, 0, 0, 0, ZoneOffset.UTC);
+        Telemetry<Integer> telemetry = new Telemetry<>("energy");
+        for (int day = 0; day < 35; day++) {
+            telemetry.add(ts(start.plusDays(day)), day);
+        }
+
+        Telemetry<Double> months = TelemetryAggregator.downsample(telemetry, ChronoUnit.MONTHS, ZoneOffset.UTC, TelemetryAggregator.Aggregation.MIN);
+        Telemetry<Double> years = TelemetryAggregator.downsample(telemetry, ChronoUnit.YEARS, ZoneOffset.UTC, TelemetryAggregator.Aggregation.AVG);
+
+        assertEquals(List.of(0.0, 2.0, 33.0), values(months));
+        assertEquals(ts(ZonedDateTime.of(2023, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC)), months.getTs(0));
+        assertEquals(ts(ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)), months.getTs(1));
+        assertEquals(ts(ZonedDateTime.of(2024, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC)), months.getTs(2));
+        assertEquals(List.of(0.5, 18.0), values(years));
+    }
+
+    @Test
+    void downsamplingEmptySeriesGivesEmptySeries() {
+        Telemetry<Double> result = TelemetryAggregator.downsample(new Telemetry<Double>("energy"), ChronoUnit.DAYS, ZoneOffset.UTC, TelemetryAggregator.Aggregation.AVG);
+
+        assertEquals("energy", result.getName());
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void unsupportedUnitIsRejected() {
+        Telemetry<Integer> telemetry = series(0L, 1000L, 1, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> TelemetryAggregator.downsample(telemetry, ChronoUnit.MINUTES, ZoneOffset.UTC, TelemetryAggregator.Aggregation.SUM));
+    }
+
+    @Test
+    void percentilesInterpolateBetweenRanks() {
+        Telemetry<Double> telemetry = series(0L, 1000L, 40.0, 10.0, 30.0, 20.0);
+
+        double[] percentiles = TelemetryAggregator.percentiles(telemetry, 0, 25, 50, 90, 100);
+
+        assertArrayEquals(new double[]{10.0, 17.5, 25.0, 37.0, 40.0}, percentiles, 1e-9);
+    }
+
+    @Test
+    void percentilesOfSingleValueAndEmptySeries() {
+        assertArrayEquals(new double[]{5.0, 5.0, 5.0}, TelemetryAggregator.percentiles(series(0L, 1000L, 5L), 0, 50, 100));
+
+        double[] empty = TelemetryAggregator.percentiles(new Telemetry<Double>("energy"), 0, 100);
+        assertTrue(Double.isNaN(empty[0]));
+        assertTrue(Double.isNaN(empty[1]));
+    }
+
+    @Test
+    void percentileMustBeInRange() {
+        Telemetry<Double> telemetry = series(0L, 1000L, 1.0);
+
+        assertThrows(IllegalArgumentException.class, () -> TelemetryAggregator.percentiles(telemetry, -1));
+        assertThrows(IllegalArgumentException.class, () -> TelemetryAggregator.percentiles(telemetry, 100.5));
+    }
+
+    @Test
+    void columnsAreCopiedToArrays() {
+        Telemetry<Integer> telemetry = series(1000L, 500L, 3, 1, 2);
+
+        assertArrayEquals(new long[]{1000, 1500, 2000}, TelemetryAggregator.toTsArray(telemetry));
+        assertArrayEquals(new double[]{3.0, 1.0, 2.0}, TelemetryAggregator.toDoubleArray(telemetry));
+    }
+
+
+    @SafeVarargs
+    private static <T> Telemetry<T> series(long startTs, long step, T... values) {
+        Telemetry<T> telemetry = new Telemetry<>("energy");
+        for (int i = 0; i < values.length; i++) {
+            telemetry.add(startTs + i * step, values[i]);
+        }
+        return telemetry;
+    }
+
+    private static Telemetry<Integer> hourly(ZonedDateTime start, int hours) {
+        Telemetry<Integer> telemetry = new Telemetry<>("energy");
+        for (int i = 0; i < hours; i++) {
+            telemetry.add(ts(start) + i * 3600_000L, i);
+        }
+        return telemetry;
+    }
+
+    private static long ts(ZonedDateTime date) {
+        return DateTimeUtils.toTs(date);
+    }
+
+    private static List<Double> values(Telemetry<Double> telemetry) {
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < telemetry.size(); i++) {
+            values.add(telemetry.getValue(i));
+        }
+        return values;
+    }
+
+    private static void assertEmpty(TelemetryAggregator.Stats stats) {
+        assertEquals(0, stats.getCount());
+        assertTrue(Double.isNaN(stats.getMin()));
+        assertTrue(Double.isNaN(stats.getMax()));
+        assertTrue(Double.isNaN(stats.getMean()));
+    }
+}
@@ -0,0 +1,223 @@
+package org.thingsboard.trendz.generator.model.tb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryTest {
+
+    private static final long STEP = 3_600_000;
+
+    @Test
+    void denseSeriesResolvesTimestampsByStep() {
+        Telemetry<Long> telemetry = hourly(10);
+
+        assertTrue(telemetry.isDense());
+        assertEquals(3, telemetry.indexOf(3 * STEP));
+        assertEquals(-5, telemetry.indexOf(3 * STEP + 1));
+        assertEquals(-1, telemetry.indexOf(-1));
+        assertEquals(-11, telemetry.indexOf(10 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void denseSeriesKeepsOffsetOfFirstTimestamp() {
+        Telemetry<Long> telemetry = new Telemetry<>("value");
+        for (int i = 0; i < 5; i++) {
+            telemetry.add(1000 + i * STEP, (long) i);
+        }
+
+        assertTrue(telemetry.isDense());
+        assertEquals(2, telemetry.indexOf(1000 + 2 * STEP));
+        assertEquals(-3, telemetry.indexOf(2 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void irregularAppendFallsBackToBinarySearch() {
+        Telemetry<Long> telemetry = hourly(5);
+        telemetry.add(5 * STEP + 1, 5L);
+
+        assertFalse(telemetry.isDense());
+        assertEquals(5, telemetry.indexOf(5 * STEP + 1));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void insertionKeepsOrderAndIgnoresDuplicates() {
+        Telemetry<Long> telemetry = new Telemetry<>("value");
+        telemetry.add(2 * STEP, 2L);
+        telemetry.add(0, 0L);
+        telemetry.add(STEP, 1L);
+        telemetry.add(STEP, 100L);
+
+        assertEquals(3, telemetry.size());
+        assertFalse(telemetry.isDense());
+        assertEquals(List.of(0L, STEP, 2 * STEP), timestamps(telemetry));
+        assertEquals(1L, telemetry.getValueByTs(STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void removingHeadOrTailKeepsSeriesDense() {
+        Telemetry<Long> telemetry = hourly(10);
+
+        telemetry.removeRange(0, 3);
+        assertTrue(telemetry.isDense());
+        assertEquals(7, telemetry.size());
+        assertEquals(3 * STEP, telemetry.getTs(0));
+        assertEquals(0, telemetry.indexOf(3 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+
+        telemetry.removeRange(5, 7);
+        assertTrue(telemetry.isDense());
+        assertEquals(5, telemetry.size());
+        assertEquals(-6, telemetry.indexOf(8 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void removingMiddleMakesSeriesSparse() {
+        Telemetry<Long> telemetry = hourly(10);
+
+        telemetry.removeRange(3, 6);
+
+        assertFalse(telemetry.isDense());
+        assertEquals(List.of(0L, STEP, 2 * STEP, 6 * STEP, 7 * STEP, 8 * STEP, 9 * STEP), timestamps(telemetry));
+        assertEquals(6L, telemetry.getValueByTs(6 * STEP));
+        assertNull(telemetry.getValueByTs(4 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void removingEmptyRangeChangesNothing() {
+        Telemetry<Long> telemetry = hourly(10);
+
+        telemetry.removeRange(4, 4);
+
+        assertTrue(telemetry.isDense());
+        assertEquals(10, telemetry.size());
+    }
+
+    @Test
+    void ceilingIndexOfDenseAndSparseSeries() {
+        Telemetry<Long> dense = hourly(10);
+        assertEquals(0, dense.ceilingIndex(-1));
+        assertEquals(0, dense.ceilingIndex(0));
+        assertEquals(4, dense.ceilingIndex(3 * STEP + 1));
+        assertEquals(4, dense.ceilingIndex(4 * STEP));
+        assertEquals(10, dense.ceilingIndex(9 * STEP + 1));
+
+        Telemetry<Long> sparse = hourly(10);
+        sparse.removeRange(3, 6);
+        assertEquals(3, sparse.ceilingIndex(3 * STEP));
+        assertEquals(3, sparse.ceilingIndex(6 * STEP));
+        assertEquals(4, sparse.ceilingIndex(6 * STEP + 1));
+        assertEquals(7, sparse.ceilingIndex(10 * STEP));
+    }
+
+    @Test
+    void pointViewReflectsSeries() {
+        Telemetry<Long> telemetry = hourly(3);
+        Set<Telemetry.Point<Long>> points = telemetry.getPoints();
+
+        telemetry.add(3 * STEP, 3L);
+        assertEquals(4, points.size());
+        assertTrue(points.contains(point(3 * STEP, 3L)));
+
+        assertTrue(points.add(point(4 * STEP, 4L)));
+        assertFalse(points.add(point(4 * STEP, 40L)));
+        assertEquals(5, telemetry.size());
+        assertEquals(4L, telemetry.getValueByTs(4 * STEP));
+
+        List<Long> values = new ArrayList<>();
+        for (Telemetry.Point<Long> point : points) {
+            values.add(point.getValue());
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), values);
+    }
+
+    @Test
+    void pointViewRemovalUpdatesDensity() {
+        Telemetry<Long> telemetry = hourly(10);
+        Set<Telemetry.Point<Long>> points = telemetry.getPoints();
+
+        assertTrue(points.remove(point(9 * STEP, 9L)));
+        assertTrue(telemetry.isDense());
+
+        assertTrue(points.remove(point(5 * STEP, 5L)));
+        assertFalse(telemetry.isDense());
+        assertIndexOfMatchesBinarySearch(telemetry);
+
+        // every second point is left, so the step is regular again
+        points.removeAll(List.of(point(STEP, 1L), point(3 * STEP, 3L), point(7 * STEP, 7L)));
+        assertTrue(telemetry.isDense());
+        assertEquals(List.of(0L, 2 * STEP, 4 * STEP, 6 * STEP, 8 * STEP), timestamps(telemetry));
+        assertEquals(2, telemetry.indexOf(4 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+    }
+
+    @Test
+    void pointViewIteratorRemovesPoints() {
+        Telemetry<Long> telemetry = hourly(6);
+
+        Iterator<Telemetry.Point<Long>> iterator = telemetry.getPoints().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() % 2 == 1) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(List.of(0L, 2 * STEP, 4 * STEP), timestamps(telemetry));
+        assertEquals(4L, telemetry.getValueByTs(4 * STEP));
+        assertIndexOfMatchesBinarySearch(telemetry);
+
+        telemetry.getPoints().clear();
+        assertTrue(telemetry.isEmpty());
+        assertEquals(-1, telemetry.indexOf(0));
+    }
+
+
+    private static Telemetry<Long> hourly(int count) {
+        Telemetry<Long> telemetry = new Telemetry<>("value");
+        for (int i = 0; i < count; i++) {
+            telemetry.add(i * STEP, (long) i);
+        }
+        return telemetry;
+    }
+
+    private static Telemetry.Point<Long> point(long ts, long value) {
+        return new Telemetry.Point<>(Timestamp.of(ts), value);
+    }
+
+    private static List<Long> timestamps(Telemetry<?> telemetry) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = 0; i < telemetry.size(); i++) {
+            timestamps.add(telemetry.getTs(i));
+        }
+        return timestamps;
+    }
+
+    /**
+     * Every timestamp around the series, including the ones between its points, resolves to the same index
+     * as a binary search over the timestamps.
+     */
+    private static void assertIndexOfMatchesBinarySearch(Telemetry<?> telemetry) {
+        long[] timestamps = timestamps(telemetry).stream().mapToLong(Long::longValue).toArray();
+        long first = timestamps.length == 0 ? 0 : timestamps[0];
+        long last = timestamps.length == 0 ? 0 : timestamps[timestamps.length - 1];
+        for (long ts = first - STEP; ts <= last + STEP; ts += STEP / 2) {
+            assertEquals(Arrays.binarySearch(timestamps, ts), telemetry.indexOf(ts), "index of " + ts);
+            assertEquals(Arrays.binarySearch(timestamps, ts + 1), telemetry.indexOf(ts + 1), "index of " + (ts + 1));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.thingsboard.trendz.generator.service.anomaly;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyInfo;
+import org.thingsboard.trendz.generator.model.anomaly.AnomalyType;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.utils.DateTimeUtils;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AnomalyServiceTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private AnomalyService anomalyService;
+
+    @BeforeEach
+    void setUp() {
+        this.anomalyService = new AnomalyService(List.of(
+                new DataGapAnomalyCreator(),
+                new SettingValueAnomalyCreator(),
+                new ShiftedDataAnomalyCreator()
+        ));
+        this.anomalyService.init();
+    }
+
+    @Test
+    void overlappingValueAnomaliesRewriteEveryPointOnce() {
+        Set<AnomalyInfo> anomalies = Set.of(
+                scale(2, 6, 2),
+                scale(4, 8, 3)
+        );
+
+        List<Long> values = apply(hourly(10), anomalies);
+
+        assertEquals(List.of(0L, 1L, 4L, 6L, 24L, 30L, 18L, 21L, 8L, 9L), values);
+    }
+
+    @Test
+    void overlappingAndAdjacentGapsAreMerged() {
+        Set<AnomalyInfo> anomalies = Set.of(
+                gap(2, 4),
+                gap(3, 6),
+                gap(6, 7)
+        );
+
+        Telemetry<Long> telemetry = hourly(10);
+        List<Long> values = apply(telemetry, anomalies);
+
+        assertEquals(List.of(0L, 1L, 7L, 8L, 9L), values);
+        assertEquals(7L, telemetry.getValueByTs(hour(7)));
+        assertEquals(2, telemetry.ceilingIndex(hour(3)));
+    }
+
+    @Test
+    void gapsDropRewrittenPoints() {
+        Set<AnomalyInfo> anomalies = Set.of(
+                setValue(1, 5, 100),
+                gap(3, 7)
+        );
+
+        List<Long> values = apply(hourly(10), anomalies);
+
+        assertEquals(List.of(0L, 100L, 100L, 7L, 8L, 9L), values);
+    }
+
+    @Test
+    void anomaliesOutsideOfSeriesAreClipped() {
+        Set<AnomalyInfo> anomalies = Set.of(
+                setValue(-5, 2, 100),
+                gap(8, 20),
+                setValue(30, 40, 100)
+        );
+
+        List<Long> values = apply(hourly(10), anomalies);
+
+        assertEquals(List.of(100L, 100L, 2L, 3L, 4L, 5L, 6L, 7L), values);
+    }
+
+    @Test
+    void emptyAnomalyRangeChangesNothing() {
+        Set<AnomalyInfo> anomalies = Set.of(
+                setValue(4, 4, 100),
+                gap(6, 6)
+        );
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), apply(hourly(10), anomalies));
+    }
+
+    @Test
+    void unsupportedAnomalyTypeIsRejected() {
+        AnomalyService service = new AnomalyService(List.of(new DataGapAnomalyCreator()));
+        service.init();
+
+        Telemetry<Long> telemetry = hourly(10);
+        Set<AnomalyInfo> anomalies = Set.of(setValue(1, 2, 100));
+        assertThrows(IllegalStateException.class, () -> service.applyAnomaly(telemetry, anomalies));
+        assertFalse(telemetry.isEmpty());
+    }
+
+
+    /**
+     * Applies the anomalies both in place and to a lazy source of the same series,
+     * checks that the results are equal and returns the values.
+     */
+    private List<Long> apply(Telemetry<Long> telemetry, Set<AnomalyInfo> anomalies) {
+        TelemetrySource<Long> source = this.anomalyService.applyAnomaly(TelemetrySource.of(new Telemetry<>(telemetry)), anomalies);
+        List<Long> lazyValues = new ArrayList<>();
+        for (Telemetry.Point<Long> point : source) {
+            lazyValues.add(point.getValue());
+        }
+
+        this.anomalyService.applyAnomaly(telemetry, anomalies);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < telemetry.size(); i++) {
+            values.add(telemetry.getValue(i));
+        }
+        assertEquals(values, lazyValues);
+        return values;
+    }
+
+    private static Telemetry<Long> hourly(int count) {
+        Telemetry<Long> telemetry = new Telemetry<>("value");
+        for (int i = 0; i < count; i++) {
+            telemetry.add(hour(i), (long) i);
+        }
+        return telemetry;
+    }
+
+    private static long hour(int hour) {
+        return DateTimeUtils.toTs(START.plusHours(hour));
+    }
+
+    private static AnomalyInfo gap(int startHour, int endHour) {
+        return anomaly(startHour, endHour, AnomalyType.DATA_GAP).build();
+    }
+
+    private static AnomalyInfo setValue(int startHour, int endHour, double value) {
+        return anomaly(startHour, endHour, AnomalyType.SET_VALUES)
+                .settingValue(value)
+                .build();
+    }
+
+    private static AnomalyInfo scale(int startHour, int endHour, double coefficient) {
+        return anomaly(startHour, endHour, AnomalyType.SHIFTED_DATA)
+                .coefficient(coefficient)
+                .build();
+    }
+
+    private static AnomalyInfo.AnomalyInfoBuilder anomaly(int startHour, int endHour, AnomalyType type) {
+        return AnomalyInfo.builder()
+                .startDate(START.plusHours(startHour))
+                .endDate(START.plusHours(endHour))
+                .type(type);
+    }
+}
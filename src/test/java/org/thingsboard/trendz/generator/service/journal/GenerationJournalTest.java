@@ -0,0 +1,158 @@
+package org.thingsboard.trendz.generator.service.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.common.data.EntityType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GenerationJournalTest {
+
+    private static final String SOLUTION = "test";
+    private static final UUID CUSTOMER_ID = UUID.fromString("2b1c5a40-3f7e-11ee-8a4b-0f5c6d1e2a01");
+    private static final UUID DEVICE_ID = UUID.fromString("2b1c5a40-3f7e-11ee-8a4b-0f5c6d1e2a02");
+    private static final UUID SECOND_DEVICE_ID = UUID.fromString("2b1c5a40-3f7e-11ee-8a4b-0f5c6d1e2a03");
+
+    @TempDir
+    Path workDirectory;
+
+    private GenerationJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        this.journal = new GenerationJournal(true, 1, 1000, this.workDirectory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.journal.shutdown();
+    }
+
+    @Test
+    void restoresEntriesAndDropsPartiallyWrittenLastLine() throws IOException {
+        this.journal.open(SOLUTION, false);
+        this.journal.recordEntity(EntityType.CUSTOMER, "Customer", CUSTOMER_ID);
+        this.journal.recordEntity(EntityType.DEVICE, "Device", DEVICE_ID);
+        this.journal.recordAccessToken(DEVICE_ID, "token");
+        this.journal.acknowledge("token", "energy", 3000);
+        this.journal.acknowledge("token", "energy", 1000);
+        this.journal.acknowledge("token", "power", 2000);
+        this.journal.close();
+
+        // a crash in the middle of writing the next entry
+        Path file = journalFile();
+        String entry = "{\"type\":\"ACK\",\"token\":\"token\",\"key\":\"power\",\"ts\":9000}\n";
+        Files.writeString(file, entry.substring(0, entry.length() / 2), StandardOpenOption.APPEND);
+
+        this.journal.open(SOLUTION, true);
+
+        assertEquals(Optional.of(CUSTOMER_ID), this.journal.getEntityId(EntityType.CUSTOMER, "Customer"));
+        assertEquals(Optional.of(DEVICE_ID), this.journal.getEntityId(EntityType.DEVICE, "Device"));
+        assertEquals(Optional.empty(), this.journal.getEntityId(EntityType.ASSET, "Device"));
+        assertEquals(Optional.of("token"), this.journal.getAccessToken(DEVICE_ID));
+        assertEquals(Optional.empty(), this.journal.getAccessToken(SECOND_DEVICE_ID));
+        assertEquals(3000, this.journal.getAcknowledgedTs("token", "energy"));
+        assertEquals(2000, this.journal.getAcknowledgedTs("token", "power"));
+        assertEquals(GenerationJournal.NOT_ACKNOWLEDGED, this.journal.getAcknowledgedTs("token", "voltage"));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(6, lines.size());
+        assertTrue(lines.get(lines.size() - 1).endsWith("}"));
+    }
+
+    @Test
+    void entriesAfterResumeFollowTheLastCompleteLine() throws IOException {
+        this.journal.open(SOLUTION, false);
+        this.journal.recordEntity(EntityType.DEVICE, "Device", DEVICE_ID);
+        this.journal.close();
+        Files.writeString(journalFile(), "{\"type\":\"ENT", StandardOpenOption.APPEND);
+
+        this.journal.open(SOLUTION, true);
+        this.journal.recordEntity(EntityType.DEVICE, "Second device", SECOND_DEVICE_ID);
+        this.journal.recordAccessToken(SECOND_DEVICE_ID, "second token");
+        this.journal.acknowledge("second token", "energy", 5000);
+        this.journal.close();
+
+        this.journal.open(SOLUTION, true);
+
+        assertEquals(Optional.of(DEVICE_ID), this.journal.getEntityId(EntityType.DEVICE, "Device"));
+        assertEquals(Optional.of(SECOND_DEVICE_ID), this.journal.getEntityId(EntityType.DEVICE, "Second device"));
+        assertEquals(Optional.of("second token"), this.journal.getAccessToken(SECOND_DEVICE_ID));
+        assertEquals(5000, this.journal.getAcknowledgedTs("second token", "energy"));
+        assertEquals(4, Files.readAllLines(journalFile(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void newJournalReplacesTheOldOne() {
+        this.journal.open(SOLUTION, false);
+        this.journal.recordEntity(EntityType.DEVICE, "Device", DEVICE_ID);
+        this.journal.close();
+
+        this.journal.open(SOLUTION, false);
+        this.journal.close();
+        this.journal.open(SOLUTION, true);
+
+        assertFalse(this.journal.getEntityId(EntityType.DEVICE, "Device").isPresent());
+    }
+
+    @Test
+    void closedJournalForgetsEntries() {
+        this.journal.open(SOLUTION, false);
+        this.journal.recordEntity(EntityType.DEVICE, "Device", DEVICE_ID);
+        this.journal.close();
+
+        this.journal.recordEntity(EntityType.DEVICE, "Second device", SECOND_DEVICE_ID);
+
+        assertFalse(this.journal.getEntityId(EntityType.DEVICE, "Device").isPresent());
+        assertFalse(this.journal.getEntityId(EntityType.DEVICE, "Second device").isPresent());
+    }
+
+    @Test
+    void resumeRequiresExistingJournal() {
+        assertThrows(IllegalStateException.class, () -> this.journal.open(SOLUTION, true));
+
+        GenerationJournal disabled = new GenerationJournal(false, 1, 1000, this.workDirectory.toString());
+        try {
+            assertThrows(IllegalStateException.class, () -> disabled.open(SOLUTION, true));
+        } finally {
+            disabled.shutdown();
+        }
+    }
+
+    @Test
+    void journalIsReadableByOwnerOnly() throws IOException {
+        assumeTrue(Files.getFileStore(this.workDirectory).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        this.journal.open(SOLUTION, false);
+        this.journal.recordAccessToken(DEVICE_ID, "token");
+        this.journal.close();
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(journalFile())));
+
+        // a journal left readable by an older version
+        Files.setPosixFilePermissions(journalFile(), PosixFilePermissions.fromString("rw-r--r--"));
+        this.journal.open(SOLUTION, true);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(journalFile())));
+    }
+
+
+    private Path journalFile() {
+        return this.workDirectory.resolve("journal-" + SOLUTION + ".jsonl");
+    }
+}
@@ -0,0 +1,350 @@
+package org.thingsboard.trendz.generator.service.mqtt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import io.moquette.interception.AbstractInterceptHandler;
+import io.moquette.interception.messages.InterceptPublishMessage;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.trendz.generator.model.tb.Telemetry;
+import org.thingsboard.trendz.generator.model.tb.TelemetrySource;
+import org.thingsboard.trendz.generator.service.journal.GenerationJournal;
+import org.thingsboard.trendz.generator.service.rest.TbRestClient;
+import org.thingsboard.trendz.generator.utils.JsonUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@Timeout(60)
+class MqttGatewayTransportTest {
+
+    private static final String TOKEN_A = "token-a";
+    private static final String TOKEN_B = "token-b";
+    private static final String DEVICE_A = "Device A";
+    private static final String DEVICE_B = "Device B";
+
+    @TempDir
+    Path workDirectory;
+
+    private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    private Server broker;
+    private int port;
+    private int maxPayloadBytes;
+    private GenerationJournal journal;
+    private TbRestClient tbRestClient;
+    private MqttGatewayTransport transport;
+    private HoldingClient holdingClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+        Properties properties = new Properties();
+        properties.setProperty("host", "localhost");
+        properties.setProperty("port", Integer.toString(this.port));
+        properties.setProperty("websocket_port", "disabled");
+        properties.setProperty("allow_anonymous", "true");
+        properties.setProperty("persistence_enabled", "false");
+        this.broker = new Server();
+        this.broker.startServer(new MemoryConfig(properties), List.of(new AbstractInterceptHandler() {
+            @Override
+            public String getID() {
+                return "test-collector";
+            }
+
+            @Override
+            public void onSessionLoopError(Throwable error) {
+            }
+
+            @Override
+            public void onPublish(InterceptPublishMessage message) {
+                messages.add(message.getPayload().toString(StandardCharsets.UTF_8));
+            }
+        }));
+
+        this.journal = new GenerationJournal(true, 1, 1000, this.workDirectory.toString());
+        this.journal.open("test", false);
+
+        this.tbRestClient = mock(TbRestClient.class);
+        mockDevice(TOKEN_A, DEVICE_A);
+        mockDevice(TOKEN_B, DEVICE_B);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.transport != null) {
+            this.transport.shutdown();
+        }
+        if (this.holdingClient != null) {
+            try {
+                this.holdingClient.disconnectForcibly(0, 0, false);
+                this.holdingClient.close();
+            } catch (MqttException ignored) {
+            }
+        }
+        this.journal.shutdown();
+        if (this.broker != null) {
+            this.broker.stopServer();
+        }
+    }
+
+
+    @Test
+    void packsPointsIntoMessagesUpToMaxPayload() throws Exception {
+        this.transport = createTransport(4, 512);
+        Telemetry<Long> temperature = series("temperature", 200, 1);
+        Telemetry<Long> humidity = series("humidity", 200, 2);
+        Telemetry<Long> pressure = series("pressure", 1, 1);
+
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(temperature), TelemetrySource.of(humidity)));
+        this.transport.pushTelemetry(TOKEN_B, List.of(TelemetrySource.of(pressure)));
+        this.transport.flush();
+
+        List<JsonNode> received = receive(201);
+        assertTrue(1 < received.size());
+        List<Long> timestamps = new ArrayList<>();
+        boolean shared = false;
+        for (JsonNode message : received) {
+            for (JsonNode point : message.path(DEVICE_A)) {
+                long ts = point.get("ts").asLong();
+                timestamps.add(ts);
+                assertEquals(ts / 1000, point.get("values").get("temperature").asLong());
+                assertEquals(ts % 2000 == 0, point.get("values").has("humidity"));
+            }
+            shared |= message.has(DEVICE_A) && message.has(DEVICE_B);
+        }
+        assertEquals(timeline(200, 1), timestamps);
+        assertTrue(shared, "the single point of device B must share a message with device A");
+    }
+
+    /**
+     * The client is connected with the same in flight limit and rejects a publish above it,
+     * so any message sent outside of the window fails the flush.
+     */
+    @Test
+    void keepsPublishesWithinInFlightWindow() throws Exception {
+        this.transport = createTransport(1, 256);
+        Telemetry<Long> temperature = series("temperature", 300, 1);
+
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(temperature)));
+        this.transport.flush();
+
+        List<JsonNode> received = receive(300);
+        assertTrue(30 < received.size());
+        assertEquals(299_000, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+    }
+
+    @Test
+    void acknowledgesJournalWhenMessageIsDelivered() throws Exception {
+        this.transport = createTransport(4, 65536);
+        Telemetry<Long> temperature = series("temperature", 10, 1);
+
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(temperature)));
+        assertEquals(GenerationJournal.NOT_ACKNOWLEDGED, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+        this.transport.flush();
+        receive(10);
+        assertEquals(9_000, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+
+        temperature.add(10_000, 10L);
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(temperature)));
+        this.transport.flush();
+        List<JsonNode> resent = receive(1);
+        assertEquals(10_000, resent.get(0).get(DEVICE_A).get(0).get("ts").asLong());
+        assertEquals(10_000, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+    }
+
+    @Test
+    void rethrowsDeliveryFailureOnFlush() throws Exception {
+        this.transport = createTransport(4, 65536);
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(series("temperature", 10, 1))));
+        this.transport.flush();
+        receive(10);
+
+        this.transport.pushTelemetry(TOKEN_B, List.of(TelemetrySource.of(series("pressure", 10, 1))));
+        this.broker.stopServer();
+        this.broker = null;
+
+        assertThrows(IllegalStateException.class, () -> this.transport.flush());
+        assertEquals(GenerationJournal.NOT_ACKNOWLEDGED, this.journal.getAcknowledgedTs(TOKEN_B, "pressure"));
+    }
+
+    @Test
+    void acknowledgesInSendOrderWhenEarlierMessageIsDeliveredLast() throws Exception {
+        CompletableFuture<Void> flushed = pushHoldingFirstMessage(series("temperature", 60, 1));
+
+        assertEquals(GenerationJournal.NOT_ACKNOWLEDGED, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+        assertFalse(flushed.isDone());
+
+        this.holdingClient.held.onSuccess(null);
+        flushed.get(10, TimeUnit.SECONDS);
+        assertEquals(59_000, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+    }
+
+    @Test
+    void earlierFailedMessageStopsAcknowledgementsOfLaterDeliveredOnes() throws Exception {
+        CompletableFuture<Void> flushed = pushHoldingFirstMessage(series("temperature", 60, 1));
+
+        this.holdingClient.held.onFailure(null, new MqttException(MqttException.REASON_CODE_CONNECTION_LOST));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> flushed.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(GenerationJournal.NOT_ACKNOWLEDGED, this.journal.getAcknowledgedTs(TOKEN_A, "temperature"));
+    }
+
+
+    /**
+     * Pushes the telemetry and flushes it in background; returns when every message except the held first one
+     * is received by the broker and acknowledged to the client.
+     */
+    private CompletableFuture<Void> pushHoldingFirstMessage(Telemetry<Long> telemetry) throws Exception {
+        this.holdingClient = new HoldingClient("tcp://localhost:" + this.port);
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setUserName("test-gateway");
+        options.setMaxInflight(4);
+        this.holdingClient.connect(options).waitForCompletion(TimeUnit.SECONDS.toMillis(10));
+        this.transport = spy(createTransport(4, 256));
+        doReturn(this.holdingClient).when(this.transport).getClient();
+
+        this.transport.pushTelemetry(TOKEN_A, List.of(TelemetrySource.of(telemetry)));
+        CompletableFuture<Void> flushed = CompletableFuture.runAsync(this.transport::flush);
+
+        List<JsonNode> received = receive(telemetry.size() - countPoints(JsonUtils.getObjectMapper().readTree(this.holdingClient.heldPayload)));
+        assertTrue(0 < received.size());
+        assertTrue(this.holdingClient.delivered.tryAcquire(received.size(), 10, TimeUnit.SECONDS));
+        return flushed;
+    }
+
+    private MqttGatewayTransport createTransport(int maxInFlight, int maxPayloadBytes) {
+        this.maxPayloadBytes = maxPayloadBytes;
+        return new MqttGatewayTransport(
+                true, "tcp://localhost:" + this.port, "test-gateway", "Test Gateway",
+                1, maxInFlight, maxPayloadBytes, 60, 10, 2,
+                this.tbRestClient, this.journal
+        );
+    }
+
+    private void mockDevice(String accessToken, String name) {
+        UUID deviceId = UUID.randomUUID();
+        Device device = new Device();
+        device.setName(name);
+        when(this.tbRestClient.getDeviceIdByAccessToken(accessToken)).thenReturn(Optional.of(deviceId));
+        when(this.tbRestClient.getDeviceById(deviceId)).thenReturn(Optional.of(device));
+    }
+
+    /**
+     * Messages published until they contain the given number of points, each one within the max payload size.
+     */
+    private List<JsonNode> receive(int points) throws Exception {
+        List<JsonNode> received = new ArrayList<>();
+        int count = 0;
+        while (count < points) {
+            String message = this.messages.poll(10, TimeUnit.SECONDS);
+            assertNotNull(message, "only " + count + " of " + points + " points are received");
+            assertTrue(message.getBytes(StandardCharsets.UTF_8).length <= this.maxPayloadBytes, "message is too large: " + message);
+            JsonNode node = JsonUtils.getObjectMapper().readTree(message);
+            count += countPoints(node);
+            received.add(node);
+        }
+        assertEquals(points, count);
+        assertNull(this.messages.poll(200, TimeUnit.MILLISECONDS), "more points are received than sent");
+        return received;
+    }
+
+    private static int countPoints(JsonNode message) {
+        int count = 0;
+        for (JsonNode devicePoints : message) {
+            count += devicePoints.size();
+        }
+        return count;
+    }
+
+    private static Telemetry<Long> series(String name, int seconds, int every) {
+        Telemetry<Long> telemetry = new Telemetry<>(name);
+        for (long ts : timeline(seconds, every)) {
+            telemetry.add(ts, ts / 1000);
+        }
+        return telemetry;
+    }
+
+    private static List<Long> timeline(int seconds, int every) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int second = 0; second < seconds; second += every) {
+            timestamps.add(second * 1000L);
+        }
+        return timestamps;
+    }
+
+
+    /**
+     * Keeps the first message instead of publishing it, so the test decides when and how it is completed.
+     */
+    private static class HoldingClient extends MqttAsyncClient {
+
+        private final Semaphore delivered = new Semaphore(0);
+        private volatile IMqttActionListener held;
+        private volatile byte[] heldPayload;
+
+        private HoldingClient(String serverURI) throws MqttException {
+            super(serverURI, "test-" + UUID.randomUUID(), new MemoryPersistence());
+        }
+
+        @Override
+        public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained, Object userContext, IMqttActionListener callback) throws MqttException {
+            if (this.held == null) {
+                this.heldPayload = payload;
+                this.held = callback;
+                return null;
+            }
+            return super.publish(topic, payload, qos, retained, userContext, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    callback.onSuccess(token);
+                    delivered.release();
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable exception) {
+                    callback.onFailure(token, exception);
+                    delivered.release();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CloudPushControllerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+    @Test
+    void growsAdditivelyWhileLatencyIsUnderTarget() {
+        CloudPushController controller = controller(100, 100);
+
+        controller.onSuccess(100, 1000, FAST);
+        assertEquals(110, controller.getBatchSize());
+        assertEquals(90, controller.getDelay());
+
+        controller.onSuccess(110, 1100, FAST);
+        assertEquals(120, controller.getBatchSize());
+        assertEquals(80, controller.getDelay());
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnThrottlingAndServerErrors() {
+        CloudPushController controller = controller(100, 100);
+
+        controller.onFailure(429);
+        assertEquals(50, controller.getBatchSize());
+        assertEquals(200, controller.getDelay());
+
+        controller.onFailure(503);
+        assertEquals(25, controller.getBatchSize());
+        assertEquals(400, controller.getDelay());
+
+        controller.onFailure(400);
+        assertEquals(25, controller.getBatchSize());
+        assertEquals(400, controller.getDelay());
+    }
+
+    @Test
+    void doesNotGrowDuringCooldownAfterBackoff() {
+        CloudPushController controller = controller(100, 100);
+        controller.onFailure(429);
+
+        for (int i = 0; i < 5; i++) {
+            controller.onSuccess(50, 500, FAST);
+            assertEquals(50, controller.getBatchSize());
+            assertEquals(200, controller.getDelay());
+        }
+        controller.onSuccess(50, 500, FAST);
+        assertEquals(60, controller.getBatchSize());
+        assertEquals(190, controller.getDelay());
+    }
+
+    @Test
+    void backsOffWhenLatencyIsAboveTarget() {
+        CloudPushController controller = controller(100, 100);
+
+        controller.onSuccess(100, 1000, SLOW);
+
+        assertEquals(50, controller.getBatchSize());
+        assertEquals(200, controller.getDelay());
+    }
+
+    @Test
+    void backsOffOnLatencySpike() {
+        CloudPushController controller = controller(100, 100);
+        controller.onSuccess(100, 1000, FAST);
+
+        // more than 3 times the smoothed latency, but still under the target
+        controller.onSuccess(110, 1100, 4 * FAST);
+
+        assertEquals(55, controller.getBatchSize());
+        assertEquals(180, controller.getDelay());
+    }
+
+    @Test
+    void staysWithinLimits() {
+        CloudPushController controller = new CloudPushController(4990, 10, 5000, 1 << 30, 5, 0, 1000, 1000, 0);
+        controller.onSuccess(100, 1000, FAST);
+        assertEquals(5000, controller.getBatchSize());
+        assertEquals(0, controller.getDelay());
+
+        for (int i = 0; i < 10; i++) {
+            controller.onFailure(500);
+        }
+        assertEquals(10, controller.getBatchSize());
+        assertEquals(1000, controller.getDelay());
+    }
+
+    @Test
+    void limitsBatchSizeBySerializedSize() {
+        CloudPushController controller = new CloudPushController(1000, 10, 5000, 100_000, 0, 0, 1000, 1000, 0);
+
+        controller.onSuccess(100, 100 * 1000, FAST);
+        assertEquals(100, controller.getBatchSize());
+
+        controller = new CloudPushController(1000, 10, 5000, 100_000, 0, 0, 1000, 1000, 0);
+        controller.onSuccess(1, 1_000_000, FAST);
+        assertEquals(10, controller.getBatchSize());
+    }
+
+    @Test
+    void initialValuesAreClampedAndLimitsAreChecked() {
+        CloudPushController controller = new CloudPushController(1, 10, 5000, 1 << 20, 20_000, 0, 10_000, 1000, 0);
+        assertEquals(10, controller.getBatchSize());
+        assertEquals(10_000, controller.getDelay());
+
+        assertThrows(IllegalArgumentException.class, () -> new CloudPushController(100, 0, 5000, 1 << 20, 0, 0, 1000, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CloudPushController(100, 10, 5, 1 << 20, 0, 0, 1000, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CloudPushController(100, 10, 5000, 1 << 20, 0, 100, 10, 1000, 0));
+    }
+
+
+    private static CloudPushController controller(int initialBatchSize, long initialDelay) {
+        return new CloudPushController(initialBatchSize, 10, 5000, 1 << 30, initialDelay, 0, 10_000, 1000, 0);
+    }
+}
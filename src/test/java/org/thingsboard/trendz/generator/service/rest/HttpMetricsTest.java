@@ -0,0 +1,35 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpMetricsTest {
+
+    @Test
+    void deviceApiTokenIsReplaced() {
+        assertEquals("POST /api/v1/{token}/telemetry", HttpMetrics.toTemplate("POST", "/api/v1/A1_TEST_TOKEN/telemetry"));
+        assertEquals("POST /api/v1/{token}/attributes", HttpMetrics.toTemplate("POST", "/api/v1/784f394c-42b6-435a-983c-b7beff2784f9/attributes"));
+        assertEquals("GET /api/v1/{token}", HttpMetrics.toTemplate("GET", "/api/v1/A1_TEST_TOKEN"));
+    }
+
+    @Test
+    void idsAndNumbersAreReplaced() {
+        assertEquals("GET /api/device/{id}/credentials",
+                HttpMetrics.toTemplate("GET", "/api/device/784f394c-42b6-435a-983c-b7beff2784f9/credentials"));
+        assertEquals("POST /api/plugins/telemetry/DEVICE/{id}/timeseries/delete",
+                HttpMetrics.toTemplate("POST", "/api/plugins/telemetry/DEVICE/784F394C-42B6-435A-983C-B7BEFF2784F9/timeseries/delete"));
+        assertEquals("DELETE /api/customer/{id}/asset/{id}",
+                HttpMetrics.toTemplate("DELETE", "/api/customer/784f394c-42b6-435a-983c-b7beff2784f9/asset/0b2ba0e0-63b9-11ee-8c99-0242ac120002"));
+        assertEquals("GET /api/audit/logs/{n}", HttpMetrics.toTemplate("GET", "/api/audit/logs/12345"));
+    }
+
+    @Test
+    void otherSegmentsAreKept() {
+        assertEquals("GET /api/tenant/devices", HttpMetrics.toTemplate("GET", "/api/tenant/devices"));
+        assertEquals("GET /api/tenant/assets/", HttpMetrics.toTemplate("GET", "/api/tenant/assets/"));
+        assertEquals("POST /api/auth/login", HttpMetrics.toTemplate("POST", "/api/auth/login"));
+        assertEquals("GET /api/v1", HttpMetrics.toTemplate("GET", "/api/v1"));
+        assertEquals("GET /api/device/abc-123", HttpMetrics.toTemplate("GET", "/api/device/abc-123"));
+    }
+}
@@ -0,0 +1,153 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.trendz.generator.model.rest.PageData;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageIteratorTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void keepsPageOrderWhenLaterPagesLoadFirst() {
+        int pages = 8;
+        // the later the page, the faster it is loaded
+        IntFunction<PageData<Integer>> loader = page -> {
+            sleep((pages - page) * 5L);
+            return page(page, pages, pages);
+        };
+
+        List<Integer> elements = collect(new PageIterator<>(loader, this.executor, 4));
+
+        assertEquals(range(pages * PAGE_SIZE), elements);
+    }
+
+    @Test
+    void followsHasNextWhenTotalPagesIsUnderestimated() {
+        int pages = 5;
+        IntFunction<PageData<Integer>> loader = page -> page(page, 1, pages);
+
+        List<Integer> elements = collect(new PageIterator<>(loader, this.executor, 2));
+
+        assertEquals(range(pages * PAGE_SIZE), elements);
+    }
+
+    @Test
+    void prefetchesAtMostGivenNumberOfPages() {
+        List<Integer> requested = new CopyOnWriteArrayList<>();
+        IntFunction<PageData<Integer>> loader = page -> {
+            requested.add(page);
+            return page(page, 10, 10);
+        };
+
+        // pages are loaded synchronously, so every request is visible right away
+        PageIterator<Integer> iterator = new PageIterator<>(loader, Runnable::run, 2);
+        assertEquals(List.of(0, 1, 2), requested);
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            iterator.next();
+        }
+        assertEquals(List.of(0, 1, 2), requested);
+        iterator.next();
+        assertEquals(List.of(0, 1, 2, 3), requested);
+    }
+
+    @Test
+    void singlePageIsNotPrefetched() {
+        List<Integer> requested = new CopyOnWriteArrayList<>();
+        IntFunction<PageData<Integer>> loader = page -> {
+            requested.add(page);
+            return page(page, 1, 1);
+        };
+
+        List<Integer> elements = collect(new PageIterator<>(loader, this.executor, 4));
+
+        assertEquals(range(PAGE_SIZE), elements);
+        assertEquals(List.of(0), requested);
+    }
+
+    @Test
+    void rethrowsPageFailure() {
+        IntFunction<PageData<Integer>> loader = page -> {
+            if (page == 2) {
+                throw new IllegalStateException("page 2 is not available");
+            }
+            return page(page, 4, 4);
+        };
+
+        PageIterator<Integer> iterator = new PageIterator<>(loader, this.executor, 4);
+        for (int i = 0; i < 2 * PAGE_SIZE; i++) {
+            iterator.next();
+        }
+        IllegalStateException exception = assertThrows(IllegalStateException.class, iterator::hasNext);
+        assertEquals("page 2 is not available", exception.getMessage());
+    }
+
+    @Test
+    void closedStreamStopsIteration() {
+        IntFunction<PageData<Integer>> loader = page -> page(page, 10, 10);
+
+        Iterator<Integer> iterator;
+        try (Stream<Integer> stream = PageIterator.stream(loader, this.executor, 2)) {
+            iterator = stream.iterator();
+            iterator.next();
+        }
+
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void prefetchPagesMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PageIterator<>(page -> page(page, 1, 1), this.executor, 0));
+    }
+
+
+    /**
+     * Page of consecutive numbers, {@code totalPages} is reported as given while {@code hasNext} follows the real number of pages.
+     */
+    private static PageData<Integer> page(int page, int totalPages, int realPages) {
+        List<Integer> data = IntStream.range(page * PAGE_SIZE, (page + 1) * PAGE_SIZE).boxed().collect(Collectors.toList());
+        return new PageData<>(data, totalPages, (long) realPages * PAGE_SIZE, page + 1 < realPages);
+    }
+
+    private static List<Integer> collect(Iterator<Integer> iterator) {
+        List<Integer> elements = new ArrayList<>();
+        iterator.forEachRemaining(elements::add);
+        return elements;
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.thingsboard.trendz.generator.service.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCompressorTest {
+
+    @Test
+    void compressedBodyIsReadByGzipInputStream() throws IOException {
+        RequestCompressor compressor = new RequestCompressor(true, 6);
+        byte[] body = telemetryJson(10_000);
+
+        byte[] compressed = compress(compressor, body);
+
+        assertTrue(compressed.length < body.length / 2);
+        assertArrayEquals(body, decompress(compressed));
+    }
+
+    @Test
+    void pooledDeflaterIsResetBetweenBodies() throws IOException {
+        RequestCompressor compressor = new RequestCompressor(true, 1);
+        byte[] random = new byte[100_000];
+        new Random(42).nextBytes(random);
+
+        for (byte[] body : new byte[][]{telemetryJson(1000), random, new byte[0], telemetryJson(10)}) {
+            assertArrayEquals(body, decompress(compress(compressor, body)));
+        }
+        compressor.shutdown();
+    }
+
+    @Test
+    void closingTwiceReturnsDeflaterOnce() throws IOException {
+        RequestCompressor compressor = new RequestCompressor(true, 6);
+        byte[] body = telemetryJson(100);
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        OutputStream firstStream = compressor.compress(first);
+        firstStream.write(body);
+        firstStream.close();
+        firstStream.close();
+
+        // a deflater returned twice would be shared by these two streams
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        ByteArrayOutputStream third = new ByteArrayOutputStream();
+        OutputStream secondStream = compressor.compress(second);
+        OutputStream thirdStream = compressor.compress(third);
+        secondStream.write(body);
+        thirdStream.write(body);
+        secondStream.close();
+        thirdStream.close();
+
+        assertArrayEquals(body, decompress(first.toByteArray()));
+        assertArrayEquals(body, decompress(second.toByteArray()));
+        assertArrayEquals(body, decompress(third.toByteArray()));
+        compressor.shutdown();
+    }
+
+    @Test
+    void disabledCompressorPassesBodyThrough() throws IOException {
+        RequestCompressor compressor = new RequestCompressor(false, 6);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpHeaders headers = new HttpHeaders();
+
+        compressor.setContentEncoding(headers);
+
+        assertSame(body, compressor.compress(body));
+        assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void enabledCompressorSetsContentEncoding() {
+        RequestCompressor compressor = new RequestCompressor(true, 6);
+        HttpHeaders headers = new HttpHeaders();
+
+        compressor.setContentEncoding(headers);
+
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void levelIsChecked() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestCompressor(true, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RequestCompressor(true, 10));
+    }
+
+
+    private static byte[] compress(RequestCompressor compressor, byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.compress(compressed)) {
+            // written in parts, as the request body is streamed
+            for (int offset = 0; offset < body.length; offset += 1000) {
+                out.write(body, offset, Math.min(1000, body.length - offset));
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] telemetryJson(int points) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < points; i++) {
+            if (0 < i) {
+                json.append(',');
+            }
+            json.append("{\"ts\":").append(1672531200000L + i * 3600_000L)
+                    .append(",\"values\":{\"energy\":").append(i % 97 / 4.0).append("}}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}